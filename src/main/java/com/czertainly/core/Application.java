@@ -7,10 +7,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.task.TaskDecorator;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
 import org.springframework.web.context.request.RequestAttributes;
@@ -26,6 +28,8 @@ public class Application extends SpringBootServletInitializer {
 	private static final Integer POOL_SIZE = 10;
 	// Maximum queue size for the async operations when no pool is available to take action. Maximum count cannot exceed 500 since there are not many async operations
 	private static final Integer QUEUE_SIZE = 500;
+	// Number of threads running the periodic background tasks, such as polling of the discoveries and maintenance of the tables
+	private static final Integer SCHEDULER_POOL_SIZE = 4;
 
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
@@ -57,6 +61,7 @@ public class Application extends SpringBootServletInitializer {
 	}
 
     @Bean("threadPoolTaskExecutor")
+	@Primary
 	public TaskExecutor taskExecutor() {
 		ThreadPoolTaskExecutor executor = new ContextAwarePoolExecutor();
 		executor.setCorePoolSize(POOL_SIZE);
@@ -66,4 +71,14 @@ public class Application extends SpringBootServletInitializer {
 		executor.initialize();
 		return new DelegatingSecurityContextAsyncTaskExecutor(executor);
 	}
-}
\ No newline at end of file
+
+	@Bean("taskScheduler")
+	public ThreadPoolTaskScheduler taskScheduler() {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(SCHEDULER_POOL_SIZE);
+		scheduler.setThreadNamePrefix("CZERTAINLYCore-scheduler-");
+		scheduler.setDaemon(true);
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+}
@@ -4,6 +4,8 @@ import com.czertainly.api.model.common.Identified;
 import com.czertainly.api.model.common.Named;
 import com.czertainly.api.model.core.audit.OperationStatusEnum;
 import com.czertainly.core.service.AuditLogService;
+import com.czertainly.core.service.impl.AuditLogArgumentProjector;
+import com.czertainly.core.service.impl.AuditLogPolicyManager;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -20,6 +22,13 @@ public class AuditLogAspect {
 
     @Autowired
     private AuditLogService auditLogService;
+    @Autowired
+    private AuditLogPolicyManager auditLogPolicyManager;
+    @Autowired
+    private AuditLogArgumentProjector auditLogArgumentProjector;
+
+    // number of the audited methods being executed by the thread, calls made by them are internal
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
 
     @Around("@annotation(AuditLogged)")
     public Object log(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -27,12 +36,14 @@ public class AuditLogAspect {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         AuditLogged annotation = signature.getMethod().getAnnotation(AuditLogged.class);
 
-        Map<Object, Object> additionalData = createAdditionalData(signature.getParameterNames(), joinPoint.getArgs());
-        additionalData.put("method", signature.getName());
+        AuditLogPolicyManager.Rule rule = auditLogPolicyManager.getRule(annotation);
+        int[] callDepth = depth.get();
+        boolean internal = callDepth[0] > 0;
 
         String objectIdentifier = getRequestObjectIdentifier(signature.getParameterNames(), joinPoint.getArgs());
 
         OperationStatusEnum operationStatus = null;
+        callDepth[0]++;
         try {
             Object result = joinPoint.proceed();
             operationStatus = OperationStatusEnum.SUCCESS;
@@ -46,12 +57,21 @@ public class AuditLogAspect {
             operationStatus = OperationStatusEnum.FAILURE;
             throw e;
         } finally {
-            auditLogService.log(annotation.originator(),
-                    annotation.affected(),
-                    objectIdentifier,
-                    annotation.operation(),
-                    operationStatus,
-                    additionalData);
+            callDepth[0]--;
+            // policy is applied before the arguments are collected for the serialization
+            if (auditLogPolicyManager.isAudited(rule, internal, operationStatus)) {
+                Map<Object, Object> additionalData = createAdditionalData(signature.getParameterNames(), joinPoint.getArgs());
+                additionalData.put("method", signature.getName());
+
+                auditLogService.log(annotation.originator(),
+                        annotation.affected(),
+                        objectIdentifier,
+                        annotation.operation(),
+                        operationStatus,
+                        additionalData);
+            } else if (rule.getPolicy() == AuditLogPolicy.AGGREGATED) {
+                auditLogPolicyManager.countAggregated(annotation, signature.getName());
+            }
         }
     }
 
@@ -59,7 +79,7 @@ public class AuditLogAspect {
         Map<Object, Object> data = new LinkedHashMap<>();
         if (names != null && values != null) {
             for (int i = 0; i < names.length; i++) {
-                data.put(names[i], values[i]);
+                data.put(names[i], auditLogArgumentProjector.project(values[i]));
             }
         }
         return data;
@@ -0,0 +1,17 @@
+package com.czertainly.core.aop;
+
+/**
+ * Policy deciding which calls of the audited methods are written to the audit log
+ */
+public enum AuditLogPolicy {
+    // every call is audited
+    ALWAYS,
+    // successful calls are audited at the configured rate, failed calls are always audited
+    SAMPLED,
+    // successful calls are only counted and the counts are audited periodically, failed calls are always audited
+    AGGREGATED,
+    // calls made by another audited method are not audited
+    EXTERNAL_ONLY,
+    // calls are not audited
+    OFF
+}
@@ -1,14 +1,18 @@
 package com.czertainly.core.api.web;
 
-import com.czertainly.api.interfaces.core.web.AuditLogController;
+import com.czertainly.api.exception.NotFoundException;
+import com.czertainly.api.exception.ValidationException;
+import com.czertainly.api.model.core.audit.AuditLogDto;
 import com.czertainly.api.model.core.audit.AuditLogFilter;
 import com.czertainly.api.model.core.audit.AuditLogResponseDto;
 import com.czertainly.api.model.core.audit.ExportResultDto;
 import com.czertainly.api.model.core.audit.ObjectType;
 import com.czertainly.api.model.core.audit.OperationStatusEnum;
 import com.czertainly.api.model.core.audit.OperationType;
+import com.czertainly.core.model.auditlog.AuditLogScrollResponseDto;
 import com.czertainly.core.service.AuditLogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
@@ -16,13 +20,21 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
-public class AuditLogControllerImpl implements AuditLogController {
+public class AuditLogControllerImpl implements AuditLogCoreController {
+
+    @Value("${export.auditLog.streaming:true}")
+    private boolean streamingExport;
 
     @Autowired
     private AuditLogService auditLogService;
@@ -34,6 +46,26 @@ public class AuditLogControllerImpl implements AuditLogController {
 
     @Override
     public ResponseEntity<Resource> exportAuditLogs(AuditLogFilter filter, Pageable pageable) {
+        if (streamingExport) {
+            // export is written directly to the response, the response is already handled. The signature of the
+            // handler is given by the API interface, so the response of the current request is taken from its attributes
+            HttpServletResponse response = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getResponse();
+            String fileName = auditLogService.getAuditLogExportFileName();
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+            try {
+                auditLogService.exportAuditLogs(filter, pageable.getSort(), fileName, response.getOutputStream());
+                response.flushBuffer();
+            } catch (IOException e) {
+                resetUncommitted(response);
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                resetUncommitted(response);
+                throw e;
+            }
+            return null;
+        }
+
         ExportResultDto export = auditLogService.exportAuditLogs(filter, pageable.getSort());
 
         return ResponseEntity.ok()
@@ -43,6 +75,23 @@ public class AuditLogControllerImpl implements AuditLogController {
                 .body(new ByteArrayResource(export.getFileContent()));
     }
 
+    private void resetUncommitted(HttpServletResponse response) {
+        // failed export is reported as the error when nothing was sent yet, otherwise the response is left incomplete
+        if (!response.isCommitted()) {
+            response.reset();
+        }
+    }
+
+    @Override
+    public AuditLogScrollResponseDto scrollAuditLogs(AuditLogFilter filter, String cursor, int size, boolean ascending) throws ValidationException {
+        return auditLogService.scrollAuditLogs(filter, cursor, size, ascending);
+    }
+
+    @Override
+    public AuditLogDto getAuditLog(Long id) throws NotFoundException {
+        return auditLogService.getAuditLog(id);
+    }
+
     @Override
     public List<String> listObjects() {
         return Arrays.stream(ObjectType.values()).map(ObjectType::name).collect(Collectors.toList());
@@ -0,0 +1,34 @@
+package com.czertainly.core.api.web;
+
+import com.czertainly.api.exception.NotFoundException;
+import com.czertainly.api.exception.ValidationException;
+import com.czertainly.api.interfaces.core.web.AuditLogController;
+import com.czertainly.api.model.core.audit.AuditLogDto;
+import com.czertainly.api.model.core.audit.AuditLogFilter;
+import com.czertainly.core.model.auditlog.AuditLogScrollResponseDto;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Audit log endpoints provided only by the core. {@link AuditLogController} is published in the interfaces library
+ * together with its models, the endpoints are declared here until they are added there.
+ */
+public interface AuditLogCoreController extends AuditLogController {
+
+    /**
+     * List the audit logs by the cursor without their additional data
+     */
+    @GetMapping(path = "/scroll", produces = MediaType.APPLICATION_JSON_VALUE)
+    AuditLogScrollResponseDto scrollAuditLogs(AuditLogFilter filter,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "100") int size,
+                                              @RequestParam(defaultValue = "false") boolean ascending) throws ValidationException;
+
+    /**
+     * Get the audit log with its additional data
+     */
+    @GetMapping(path = "/{id}/detail", produces = MediaType.APPLICATION_JSON_VALUE)
+    AuditLogDto getAuditLog(@PathVariable Long id) throws NotFoundException;
+}
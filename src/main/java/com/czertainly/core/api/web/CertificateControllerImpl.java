@@ -3,7 +3,6 @@ package com.czertainly.core.api.web;
 import com.czertainly.api.exception.AlreadyExistException;
 import com.czertainly.api.exception.NotFoundException;
 import com.czertainly.api.exception.ValidationException;
-import com.czertainly.api.interfaces.core.web.CertificateController;
 import com.czertainly.api.model.client.certificate.*;
 import com.czertainly.api.model.client.certificate.owner.CertificateOwnerBulkUpdateDto;
 import com.czertainly.api.model.client.certificate.owner.CertificateOwnerRequestDto;
@@ -15,6 +14,7 @@ import com.czertainly.api.model.core.certificate.CertificateStatus;
 import com.czertainly.api.model.core.location.LocationDto;
 import com.czertainly.api.model.core.search.SearchFieldDataDto;
 import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.model.certificate.CertificateEventHistoryPageResponseDto;
 import com.czertainly.core.service.CertValidationService;
 import com.czertainly.core.service.CertificateEventHistoryService;
 import com.czertainly.core.service.CertificateService;
@@ -31,7 +31,7 @@ import java.security.cert.CertificateException;
 import java.util.List;
 
 @RestController
-public class CertificateControllerImpl implements CertificateController {
+public class CertificateControllerImpl implements CertificateCoreController {
 
 	@Autowired
 	private CertificateService certificateService;
@@ -146,6 +146,11 @@ public class CertificateControllerImpl implements CertificateController {
 		return certificateEventHistoryService.getCertificateEventHistory(uuid);
 	}
 
+	@Override
+	public CertificateEventHistoryPageResponseDto getCertificateEventHistoryPage(String uuid, int pageNumber, int itemsPerPage) throws NotFoundException, ValidationException {
+		return certificateEventHistoryService.getCertificateEventHistory(uuid, pageNumber, itemsPerPage);
+	}
+
 	@Override
 	public List<LocationDto> listLocations(String certificateUuid) throws NotFoundException {
 		return certificateService.listLocations(certificateUuid);
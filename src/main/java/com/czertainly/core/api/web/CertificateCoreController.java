@@ -0,0 +1,25 @@
+package com.czertainly.core.api.web;
+
+import com.czertainly.api.exception.NotFoundException;
+import com.czertainly.api.exception.ValidationException;
+import com.czertainly.api.interfaces.core.web.CertificateController;
+import com.czertainly.core.model.certificate.CertificateEventHistoryPageResponseDto;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Certificate endpoints provided only by the core. {@link CertificateController} is published in the interfaces
+ * library together with its models, the endpoints are declared here until they are added there.
+ */
+public interface CertificateCoreController extends CertificateController {
+
+    /**
+     * Get the page of the certificate event history ordered from the latest event
+     */
+    @GetMapping(path = "/{uuid}/history/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    CertificateEventHistoryPageResponseDto getCertificateEventHistoryPage(@PathVariable String uuid,
+                                                                          @RequestParam(defaultValue = "1") int pageNumber,
+                                                                          @RequestParam(defaultValue = "20") int itemsPerPage) throws NotFoundException, ValidationException;
+}
@@ -11,11 +11,11 @@ import java.util.concurrent.Future;
 public class ContextAwarePoolExecutor extends ThreadPoolTaskExecutor {
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        return super.submit(new DelegatingSecurityContextCallable(new ContextAwareCallable(task, RequestContextHolder.currentRequestAttributes())));
+        return super.submit(new DelegatingSecurityContextCallable(new ContextAwareCallable(task, RequestContextHolder.getRequestAttributes())));
     }
 
     @Override
     public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
-        return super.submitListenable(new DelegatingSecurityContextCallable(new ContextAwareCallable(task, RequestContextHolder.currentRequestAttributes())));
+        return super.submitListenable(new DelegatingSecurityContextCallable(new ContextAwareCallable(task, RequestContextHolder.getRequestAttributes())));
     }
 }
@@ -6,10 +6,12 @@ import com.czertainly.api.model.core.certificate.CertificateDto;
 import com.czertainly.api.model.core.certificate.CertificateStatus;
 import com.czertainly.api.model.core.certificate.CertificateType;
 import com.czertainly.api.model.core.compliance.ComplianceStatus;
+import com.czertainly.core.dao.listener.EntityChangeListener;
 import com.czertainly.core.util.DtoMapper;
 import com.czertainly.core.util.MetaDefinitions;
 import com.czertainly.core.util.SerializationUtil;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.slf4j.Logger;
@@ -19,10 +21,12 @@ import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 @Entity
 @Table(name = "certificate")
+@EntityListeners(EntityChangeListener.class)
 public class Certificate extends Audited implements Serializable, DtoMapper<CertificateDto> {
 
     private static final long serialVersionUID = -3048734620156664554L;
@@ -32,7 +36,7 @@ public class Certificate extends Audited implements Serializable, DtoMapper<Cert
     @Id
     @Column(name = "id")
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_seq")
-    @SequenceGenerator(name = "certificate_seq", sequenceName = "certificate_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "certificate_seq", sequenceName = "certificate_id_seq", allocationSize = 100)
     private Long id;
 
     @Column(name = "common_name")
@@ -137,6 +141,11 @@ public class Certificate extends Audited implements Serializable, DtoMapper<Cert
     @OneToMany(mappedBy = "certificate")
     private Set<CertificateEventHistory> eventHistories = new HashSet<>();
 
+    // values of the statistics dimensions when the certificate was loaded, used by the incremental statistics
+    @Transient
+    @JsonIgnore
+    private Map<String, String> statisticsLabels;
+
     @Override
     public CertificateDto mapToDto() {
         CertificateDto dto = new CertificateDto();
@@ -448,4 +457,12 @@ public class Certificate extends Audited implements Serializable, DtoMapper<Cert
     public void setComplianceStatus(ComplianceStatus complianceStatus) {
         this.complianceStatus = complianceStatus;
     }
+
+    public Map<String, String> getStatisticsLabels() {
+        return statisticsLabels;
+    }
+
+    public void setStatisticsLabels(Map<String, String> statisticsLabels) {
+        this.statisticsLabels = statisticsLabels;
+    }
 }
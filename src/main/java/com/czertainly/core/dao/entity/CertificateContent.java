@@ -17,7 +17,7 @@ public class CertificateContent {
 	@Id
 	@Column(name = "id")
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_content_seq")
-	@SequenceGenerator(name = "certificate_content_seq", sequenceName = "certificate_content_id_seq", allocationSize = 1)
+	@SequenceGenerator(name = "certificate_content_seq", sequenceName = "certificate_content_id_seq", allocationSize = 100)
 	private Long id;
 	
 	@Column(name = "fingerprint")
@@ -11,6 +11,7 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 
 @Entity
@@ -40,6 +41,14 @@ public class CertificateEventHistory extends Audited implements Serializable, Dt
     @JoinColumn(name = "certificate_id", nullable = false)
     private Certificate certificate;
 
+    // Number of the identical events compacted into this event, 1 for a single event
+    @Column(name = "repeat_count")
+    private Integer repeatCount = 1;
+
+    // Time of the first of the compacted events, the time of creation is the time of the last one
+    @Column(name = "first_seen")
+    private LocalDateTime firstSeen;
+
     @Override
     public String toString() {
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
@@ -50,6 +59,7 @@ public class CertificateEventHistory extends Audited implements Serializable, Dt
                 .append("status", status)
                 .append("event", event)
                 .append("message", message)
+                .append("repeatCount", repeatCount)
                 .toString();
     }
 
@@ -63,6 +73,16 @@ public class CertificateEventHistory extends Audited implements Serializable, Dt
         } catch (JsonProcessingException | IllegalArgumentException e) {
             certificateEventHistoryDto.setAdditionalInformation(null);
         }
+        if (repeatCount != null && repeatCount > 1) {
+            HashMap<String, Object> compactedInformation = new HashMap<>();
+            if (certificateEventHistoryDto.getAdditionalInformation() != null) {
+                compactedInformation.putAll(certificateEventHistoryDto.getAdditionalInformation());
+            }
+            compactedInformation.put("Occurrences", repeatCount);
+            compactedInformation.put("First Seen", firstSeen != null ? firstSeen.toString() : null);
+            compactedInformation.put("Last Seen", created != null ? created.toString() : null);
+            certificateEventHistoryDto.setAdditionalInformation(compactedInformation);
+        }
         certificateEventHistoryDto.setMessage(message);
         certificateEventHistoryDto.setUuid(uuid);
         certificateEventHistoryDto.setCreated(created);
@@ -118,4 +138,20 @@ public class CertificateEventHistory extends Audited implements Serializable, Dt
     public void setCertificate(Certificate certificate) {
         this.certificate = certificate;
     }
+
+    public Integer getRepeatCount() {
+        return repeatCount;
+    }
+
+    public void setRepeatCount(Integer repeatCount) {
+        this.repeatCount = repeatCount;
+    }
+
+    public LocalDateTime getFirstSeen() {
+        return firstSeen;
+    }
+
+    public void setFirstSeen(LocalDateTime firstSeen) {
+        this.firstSeen = firstSeen;
+    }
 }
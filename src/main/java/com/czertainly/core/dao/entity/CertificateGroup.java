@@ -1,6 +1,7 @@
 package com.czertainly.core.dao.entity;
 
 import com.czertainly.api.model.core.certificate.group.GroupDto;
+import com.czertainly.core.dao.listener.EntityChangeListener;
 import com.czertainly.core.util.DtoMapper;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -9,6 +10,7 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -18,6 +20,7 @@ import java.io.Serializable;
 
 @Entity
 @Table(name = "certificate_group")
+@EntityListeners(EntityChangeListener.class)
 public class CertificateGroup extends Audited implements Serializable, DtoMapper<GroupDto> {
 
     /**
@@ -0,0 +1,93 @@
+package com.czertainly.core.dao.entity;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Materialized number of certificates with the given value of the statistics dimension
+ */
+@Entity
+@Table(name = "certificate_statistic")
+public class CertificateStatistic implements Serializable {
+
+    private static final long serialVersionUID = 4915301297342287193L;
+
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_statistic_seq")
+    @SequenceGenerator(name = "certificate_statistic_seq", sequenceName = "certificate_statistic_id_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "dimension", nullable = false)
+    private String dimension;
+
+    @Column(name = "label", nullable = false)
+    private String label;
+
+    @Column(name = "certificate_count", nullable = false)
+    private Long certificateCount;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private Date refreshedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public Long getCertificateCount() {
+        return certificateCount;
+    }
+
+    public void setCertificateCount(Long certificateCount) {
+        this.certificateCount = certificateCount;
+    }
+
+    public Date getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public void setRefreshedAt(Date refreshedAt) {
+        this.refreshedAt = refreshedAt;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("id", id)
+                .append("dimension", dimension)
+                .append("label", label)
+                .append("certificateCount", certificateCount)
+                .append("refreshedAt", refreshedAt)
+                .toString();
+    }
+}
@@ -20,7 +20,7 @@ public class DiscoveryCertificate extends Audited implements Serializable, DtoMa
     @Id
     @Column(name = "id")
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "discovery_certificate_seq")
-    @SequenceGenerator(name = "discovery_certificate_seq", sequenceName = "discovery_certificate_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "discovery_certificate_seq", sequenceName = "discovery_certificate_id_seq", allocationSize = 100)
     private Long id;
 
     @Column(name = "common_name")
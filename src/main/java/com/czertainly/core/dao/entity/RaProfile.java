@@ -4,6 +4,7 @@ import com.czertainly.api.model.client.raprofile.RaProfileAcmeDetailResponseDto;
 import com.czertainly.api.model.client.raprofile.SimplifiedRaProfileDto;
 import com.czertainly.api.model.core.raprofile.RaProfileDto;
 import com.czertainly.core.dao.entity.acme.AcmeProfile;
+import com.czertainly.core.dao.listener.EntityChangeListener;
 import com.czertainly.core.util.AttributeDefinitionUtils;
 import com.czertainly.core.util.DtoMapper;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -22,6 +23,7 @@ import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "ra_profile")
+@EntityListeners(EntityChangeListener.class)
 public class RaProfile extends Audited implements Serializable, DtoMapper<RaProfileDto> {
 
     @Id
@@ -26,7 +26,7 @@ public class AcmeAccount extends Audited implements Serializable, DtoMapper<Acco
     @Id
     @Column(name = "id")
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "acme_new_account_seq")
-    @SequenceGenerator(name = "acme_new_account_seq", sequenceName = "acme_new_account_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "acme_new_account_seq", sequenceName = "acme_new_account_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name="account_id")
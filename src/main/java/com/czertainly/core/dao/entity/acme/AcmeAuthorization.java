@@ -25,7 +25,7 @@ public class AcmeAuthorization  extends Audited implements Serializable, DtoMapp
     @Id
     @Column(name = "id")
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "acme_new_authorization_seq")
-    @SequenceGenerator(name = "acme_new_authorization_seq", sequenceName = "acme_new_authorization_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "acme_new_authorization_seq", sequenceName = "acme_new_authorization_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name="authorization_id")
@@ -20,7 +20,7 @@ public class AcmeChallenge extends Audited implements Serializable, DtoMapper<Ch
     @Id
     @Column(name = "id")
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "acme_new_challenge_seq")
-    @SequenceGenerator(name = "acme_new_challenge_seq", sequenceName = "acme_new_challenge_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "acme_new_challenge_seq", sequenceName = "acme_new_challenge_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name="challenge_id")
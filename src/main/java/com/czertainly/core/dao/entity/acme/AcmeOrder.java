@@ -26,7 +26,7 @@ public class AcmeOrder extends Audited implements Serializable, DtoMapper<Order>
     @Id
     @Column(name = "id")
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "acme_new_order_seq")
-    @SequenceGenerator(name = "acme_new_order_seq", sequenceName = "acme_new_order_id_seq", allocationSize = 1)
+    @SequenceGenerator(name = "acme_new_order_seq", sequenceName = "acme_new_order_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name="order_id")
@@ -0,0 +1,56 @@
+package com.czertainly.core.dao.listener;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Notifies the {@link EntityChangeObserver} beans about the lifecycle events of the entity. Observers are resolved
+ * on the first event, entities can be loaded before all the beans are created.
+ */
+public class EntityChangeListener {
+
+    @Autowired
+    private ObjectProvider<EntityChangeObserver> observerProvider;
+
+    private volatile List<EntityChangeObserver> observers;
+
+    @PostLoad
+    public void onLoad(Object entity) {
+        notifyObservers(observer -> observer.onLoad(entity));
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        notifyObservers(observer -> observer.onPersist(entity));
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        notifyObservers(observer -> observer.onUpdate(entity));
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        notifyObservers(observer -> observer.onRemove(entity));
+    }
+
+    private void notifyObservers(Consumer<EntityChangeObserver> action) {
+        if (observerProvider == null) {
+            return;
+        }
+        List<EntityChangeObserver> resolved = observers;
+        if (resolved == null) {
+            resolved = observerProvider.orderedStream().collect(Collectors.toList());
+            observers = resolved;
+        }
+        resolved.forEach(action);
+    }
+}
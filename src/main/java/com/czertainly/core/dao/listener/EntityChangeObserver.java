@@ -0,0 +1,20 @@
+package com.czertainly.core.dao.listener;
+
+/**
+ * Observes the lifecycle of the entities registered with {@link EntityChangeListener}. Observers are beans
+ * implementing this interface, so the entities do not depend on the services interested in their changes.
+ */
+public interface EntityChangeObserver {
+
+    default void onLoad(Object entity) {
+    }
+
+    default void onPersist(Object entity) {
+    }
+
+    default void onUpdate(Object entity) {
+    }
+
+    default void onRemove(Object entity) {
+    }
+}
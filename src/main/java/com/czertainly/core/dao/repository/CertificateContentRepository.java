@@ -1,19 +1,22 @@
 package com.czertainly.core.dao.repository;
 
 import com.czertainly.core.dao.entity.CertificateContent;
+import com.czertainly.core.dao.repository.custom.CustomCertificateContentRepository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 @Transactional
-public interface CertificateContentRepository extends JpaRepository<CertificateContent, Long> {
+public interface CertificateContentRepository extends JpaRepository<CertificateContent, Long>, CustomCertificateContentRepository {
 
     CertificateContent findByFingerprint(String thumbprint);
     CertificateContent findByContent(String content);
+    List<CertificateContent> findByFingerprintIn(Collection<String> fingerprints);
 
     @Query("SELECT c FROM CertificateContent c " +
             "LEFT JOIN Certificate t1 ON c.id= t1.certificateContent " +
@@ -2,12 +2,17 @@ package com.czertainly.core.dao.repository;
 
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateEventHistory;
+import com.czertainly.core.dao.repository.custom.CustomCertificateEventHistoryRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface CertificateEventHistoryRepository extends JpaRepository<CertificateEventHistory, Long> {
+public interface CertificateEventHistoryRepository extends JpaRepository<CertificateEventHistory, Long>, CustomCertificateEventHistoryRepository {
     List<CertificateEventHistory> findByCertificateOrderByCreatedDesc(Certificate certificate);
+
+    Page<CertificateEventHistory> findByCertificate(Certificate certificate, Pageable pageable);
 }
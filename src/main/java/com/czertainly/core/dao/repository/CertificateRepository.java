@@ -14,6 +14,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -27,9 +28,24 @@ public interface CertificateRepository extends JpaRepository<Certificate, Long>,
 
     Certificate findByCertificateContent(CertificateContent certificateContent);
 	Optional<Certificate> findByFingerprint(String fingerprint);
+    List<Certificate> findByFingerprintIn(Collection<String> fingerprints);
+    List<Certificate> findByCertificateContentIdIn(Collection<Long> certificateContentIds);
     List<Certificate> findBySubjectDn(String subjectDn);
 	List<Certificate> findAllByIssuerSerialNumber(String issuerSerialNumber);
 
+    @Query("SELECT c FROM Certificate c JOIN FETCH c.certificateContent WHERE c.id IN ?1")
+    List<Certificate> findWithContentByIdIn(Collection<Long> ids);
+
+    @Query("SELECT c FROM Certificate c JOIN FETCH c.certificateContent WHERE c.subjectDn IN ?1")
+    List<Certificate> findWithContentBySubjectDnIn(Collection<String> subjectDns);
+
+    @Query("SELECT c FROM Certificate c JOIN FETCH c.certificateContent WHERE c.issuerSerialNumber IS NULL AND c.issuerDn IN ?1")
+    List<Certificate> findWithContentWithoutIssuerByIssuerDnIn(Collection<String> issuerDns);
+
+    @Modifying
+    @Query("UPDATE Certificate c SET c.issuerSerialNumber = ?1 WHERE c.id IN ?2")
+    int updateIssuerSerialNumber(String issuerSerialNumber, Collection<Long> ids);
+
     List<Certificate> findByStatus(CertificateStatus status);
 
     List<Certificate> findByRaProfile(RaProfile raProfile);
@@ -63,33 +79,29 @@ public interface CertificateRepository extends JpaRepository<Certificate, Long>,
     void deleteCertificateWithIds(List<Long> ids);
 
     /* Stats queries */
-    @Query(value = "SELECT c.groupId, COUNT(c.groupId) FROM Certificate AS c WHERE c.groupId IS NOT NULL GROUP BY c.groupId")
-    List<Object[]> getCertificatesCountByGroup();
+    /**
+     * Count the certificates by all the statistics dimensions in a single scan of the certificate table. Certificates
+     * are counted by the combination of the group, RA profile, type, key size, basic constraints, status,
+     * compliance status and expiry bucket. Expiry bucket is the index of the first of the bounds ?2 - ?6 the expiry
+     * of the certificate is within, measured from ?1, or 0 when the certificate does not expire within the bounds.
+     */
+    @Query(value = "SELECT c.group_id, c.ra_profile_id, c.certificate_type, c.key_size, c.basic_constraints, c.status, " +
+            "c.compliance_status, c.expiry_bucket, COUNT(*) FROM (SELECT group_id, ra_profile_id, certificate_type, key_size, " +
+            "basic_constraints, status, compliance_status, CASE " +
+            "WHEN not_after > ?1 AND not_after <= ?2 THEN 1 " +
+            "WHEN not_after > ?2 AND not_after <= ?3 THEN 2 " +
+            "WHEN not_after > ?3 AND not_after <= ?4 THEN 3 " +
+            "WHEN not_after > ?4 AND not_after <= ?5 THEN 4 " +
+            "WHEN not_after > ?5 AND not_after <= ?6 THEN 5 " +
+            "ELSE 0 END AS expiry_bucket FROM certificate) c " +
+            "GROUP BY c.group_id, c.ra_profile_id, c.certificate_type, c.key_size, c.basic_constraints, c.status, " +
+            "c.compliance_status, c.expiry_bucket", nativeQuery = true)
+    List<Object[]> getCertificatesCountByStatisticsDimensions(Date now, Date expiryBound1, Date expiryBound2, Date expiryBound3,
+                                                              Date expiryBound4, Date expiryBound5);
 
     @Query("SELECT g.id, g.name FROM CertificateGroup g WHERE g.id IN ?1")
     List<Object[]> getGroupNamesWithIds(List<Long> ids);
 
-    @Query(value = "SELECT c.raProfileId, COUNT(c.raProfileId) FROM Certificate AS c WHERE c.raProfileId IS NOT NULL GROUP BY c.raProfileId")
-    List<Object[]> getCertificatesCountByRaProfile();
-
     @Query("SELECT p.id, p.name FROM RaProfile p WHERE p.id IN ?1")
     List<Object[]> getRaProfileNamesWithIds(List<Long> ids);
-
-    @Query(value = "SELECT c.certificateType, COUNT(c.certificateType) FROM Certificate AS c WHERE c.certificateType IS NOT NULL GROUP BY c.certificateType")
-    List<Object[]> getCertificatesCountByType();
-
-    @Query(value = "SELECT c.keySize, COUNT(c.keySize) FROM Certificate AS c WHERE c.keySize IS NOT NULL GROUP BY c.keySize")
-    List<Object[]> getCertificatesCountByKeySize();
-
-    @Query(value = "SELECT c.basicConstraints, COUNT(c.basicConstraints) FROM Certificate AS c WHERE c.basicConstraints IS NOT NULL GROUP BY c.basicConstraints")
-    List<Object[]> getCertificatesCountByBasicConstraints();
-
-    @Query(value = "SELECT c.status, COUNT(c.status) FROM Certificate AS c WHERE c.status IS NOT NULL GROUP BY c.status")
-    List<Object[]> getCertificatesCountByStatus();
-
-    @Query(value = "SELECT c.complianceStatus, COUNT(c.complianceStatus) FROM Certificate AS c GROUP BY c.complianceStatus")
-    List<Object[]> getCertificatesCountByComplianceStatus();
-
-    @Query("SELECT COUNT(c.id) FROM Certificate AS c WHERE c.notAfter > ?1 AND c.notAfter <= ?2")
-    List<Object[]> getCertificatesCountByExpiryDate(Date notAfterFrom, Date notAfterTo);
 }
@@ -0,0 +1,24 @@
+package com.czertainly.core.dao.repository;
+
+import com.czertainly.core.dao.entity.CertificateStatistic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import javax.transaction.Transactional;
+import java.util.Date;
+
+@Repository
+@Transactional
+public interface CertificateStatisticRepository extends JpaRepository<CertificateStatistic, Long> {
+
+    @Modifying
+    @Query("UPDATE CertificateStatistic s SET s.certificateCount = s.certificateCount + ?3, s.refreshedAt = ?4 " +
+            "WHERE s.dimension = ?1 AND s.label = ?2")
+    int incrementCertificateCount(String dimension, String label, long delta, Date refreshedAt);
+
+    @Modifying
+    @Query("DELETE FROM CertificateStatistic s WHERE s.certificateCount <= 0 AND s.dimension <> ?1")
+    int deleteEmptyExceptDimension(String dimension);
+}
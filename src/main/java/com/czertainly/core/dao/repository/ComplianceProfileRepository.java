@@ -1,9 +1,12 @@
 package com.czertainly.core.dao.repository;
 
 import com.czertainly.core.dao.entity.ComplianceProfile;
+import com.czertainly.core.dao.entity.Connector;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +15,10 @@ public interface ComplianceProfileRepository extends JpaRepository<CompliancePro
     Optional<ComplianceProfile> findByUuid(String uuid);
 
     Optional<ComplianceProfile> findByName(String name);
+
+    @Query("SELECT DISTINCT p FROM ComplianceProfile p JOIN p.groups g WHERE g.connector = ?1")
+    List<ComplianceProfile> findByGroupConnector(Connector connector);
+
+    @Query("SELECT DISTINCT p.name FROM ComplianceProfile p JOIN p.groups g WHERE g.connector = ?1")
+    List<String> findNamesByGroupConnector(Connector connector);
 }
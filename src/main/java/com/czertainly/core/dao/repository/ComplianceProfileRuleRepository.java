@@ -3,9 +3,13 @@ package com.czertainly.core.dao.repository;
 import com.czertainly.core.dao.entity.ComplianceProfile;
 import com.czertainly.core.dao.entity.ComplianceProfileRule;
 import com.czertainly.core.dao.entity.ComplianceRule;
+import com.czertainly.core.dao.entity.Connector;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,11 @@ public interface ComplianceProfileRuleRepository extends JpaRepository<Complianc
     Optional<ComplianceProfileRule> findByUuid(String uuid);
 
     Optional<ComplianceProfileRule> findByComplianceProfileAndComplianceRule(ComplianceProfile complianceProfile, ComplianceRule complianceRule);
+
+    @Query("SELECT DISTINCT r.complianceProfile.name FROM ComplianceProfileRule r WHERE r.complianceRule.connector = ?1")
+    List<String> findComplianceProfileNamesByConnector(Connector connector);
+
+    @Modifying
+    @Query("DELETE FROM ComplianceProfileRule r WHERE r.complianceRule IN (SELECT cr FROM ComplianceRule cr WHERE cr.connector = ?1)")
+    int deleteByConnector(Connector connector);
 }
@@ -3,10 +3,14 @@ package com.czertainly.core.dao.repository;
 import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.DiscoveryCertificate;
 import com.czertainly.core.dao.entity.DiscoveryHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +20,24 @@ public interface DiscoveryCertificateRepository extends JpaRepository<DiscoveryC
     Optional<DiscoveryCertificate> findByUuid(String uuid);
     List<DiscoveryCertificate> findByDiscovery(DiscoveryHistory history);
 	List<DiscoveryCertificate> findByCertificateContent(CertificateContent certificateContent);
+
+    @Query("SELECT dc.id FROM DiscoveryCertificate dc WHERE dc.discovery = ?1")
+    List<Long> findIdsByDiscovery(DiscoveryHistory history, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM DiscoveryCertificate dc WHERE dc.id IN ?1")
+    int deleteByIdIn(Collection<Long> ids);
+
+    @Query("SELECT dc.id, c.fingerprint FROM DiscoveryCertificate dc JOIN dc.certificateContent c " +
+            "WHERE dc.discovery = ?1 AND dc.id > ?2 ORDER BY dc.id")
+    List<Object[]> findFingerprintsByDiscovery(DiscoveryHistory history, Long afterId, Pageable pageable);
+
+    @Query("SELECT c.fingerprint, c.id, dc.commonName, dc.serialNumber, dc.issuerCommonName, dc.notBefore, dc.notAfter " +
+            "FROM DiscoveryCertificate dc JOIN dc.certificateContent c WHERE dc.discovery = ?1 AND c.fingerprint IN ?2")
+    List<Object[]> findByDiscoveryAndFingerprintIn(DiscoveryHistory history, Collection<String> fingerprints);
+
+    @Query("SELECT dc.id, dc.certificateContent.id FROM DiscoveryCertificate dc WHERE dc.discovery = ?1 AND dc.id > ?3 " +
+            "AND dc.certificateContent.id NOT IN (SELECT n.certificateContent.id FROM DiscoveryCertificate n WHERE n.discovery = ?2) " +
+            "ORDER BY dc.id")
+    List<Object[]> findContentsNotInDiscovery(DiscoveryHistory history, DiscoveryHistory otherHistory, Long afterId, Pageable pageable);
 }
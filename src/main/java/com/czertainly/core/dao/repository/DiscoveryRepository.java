@@ -1,10 +1,13 @@
 package com.czertainly.core.dao.repository;
 
+import com.czertainly.api.model.core.discovery.DiscoveryStatus;
 import com.czertainly.core.dao.entity.DiscoveryHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +17,9 @@ public interface DiscoveryRepository extends JpaRepository<DiscoveryHistory, Lon
     Optional<DiscoveryHistory> findByUuid(String uuid);
 
 	Optional<DiscoveryHistory> findByName(String name);
+
+    List<DiscoveryHistory> findByStatusInAndEndTimeIsNullAndDiscoveryConnectorReferenceIsNotNull(Collection<DiscoveryStatus> statuses);
+
+    Optional<DiscoveryHistory> findFirstByConnectorUuidAndKindAndAttributesAndStatusAndIdLessThanOrderByIdDesc(
+            String connectorUuid, String kind, String attributes, DiscoveryStatus status, Long id);
 }
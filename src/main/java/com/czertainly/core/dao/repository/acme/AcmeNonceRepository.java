@@ -2,11 +2,12 @@ package com.czertainly.core.dao.repository.acme;
 
 import com.czertainly.core.dao.entity.acme.AcmeNonce;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import javax.transaction.Transactional;
 import java.util.Date;
-import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,5 +15,7 @@ import java.util.Optional;
 public interface AcmeNonceRepository extends JpaRepository<AcmeNonce, Long> {
     Optional<AcmeNonce> findByNonce(String nonce);
 
-    List<AcmeNonce> findAllByExpiresBefore(Date expires);
+    @Modifying
+    @Query("DELETE FROM acme_nonce n WHERE n.nonce = ?1 AND n.expires > ?2")
+    int deleteValidNonce(String nonce, Date now);
 }
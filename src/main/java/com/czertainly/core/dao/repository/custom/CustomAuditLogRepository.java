@@ -0,0 +1,30 @@
+package com.czertainly.core.dao.repository.custom;
+
+import com.czertainly.api.model.core.audit.AuditLogDto;
+import com.czertainly.core.model.auditlog.AuditLogItemDto;
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface CustomAuditLogRepository {
+
+    /**
+     * Read the audit logs matching the predicate with a forward-only cursor. Audit logs are mapped directly to the
+     * DTOs and are not kept in the persistence context, so the memory used does not depend on the number of audit logs.
+     * @param predicate Predicate of the audit logs
+     * @param sort Order of the audit logs
+     * @param consumer Consumer of the audit logs
+     */
+    void forEachAuditLog(Predicate predicate, Sort sort, Consumer<AuditLogDto> consumer);
+
+    /**
+     * Find the audit logs matching the predicate ordered by the time of creation and id, without their additional data
+     * @param predicate Predicate of the audit logs
+     * @param ascending True for the oldest audit logs first
+     * @param limit Maximum number of the audit logs
+     * @return Audit logs without additional data
+     */
+    List<AuditLogItemDto> findAuditLogItems(Predicate predicate, boolean ascending, long limit);
+}
@@ -0,0 +1,10 @@
+package com.czertainly.core.dao.repository.custom;
+
+public interface CustomCertificateContentRepository {
+
+    /**
+     * Remove the certificate contents that are not referenced by any certificate or discovered certificate
+     * @return Number of removed certificate contents
+     */
+    int deleteUnusedCertificateContents();
+}
@@ -0,0 +1,16 @@
+package com.czertainly.core.dao.repository.custom;
+
+import com.czertainly.core.dao.entity.CertificateEventHistory;
+
+public interface CustomCertificateEventHistoryRepository {
+
+    /**
+     * Add the event to the history of all the certificates matching the condition with a single statement, without
+     * loading the certificates
+     * @param certificateCondition JPQL condition of the certificates with the alias c, as used by the bulk update
+     *                             of the certificates, empty condition matches all the certificates
+     * @param history Event with the author and time of creation, its certificate is ignored
+     * @return Number of added events
+     */
+    int insertForCertificates(String certificateCondition, CertificateEventHistory history);
+}
@@ -1,6 +1,22 @@
 package com.czertainly.core.dao.repository.custom;
 
+import com.czertainly.core.dao.entity.RaProfile;
+
 public interface CustomCertificateRepository {
 
     void bulkUpdateQuery(String query);
+
+    /**
+     * Remove the compliance result and status of all the certificates associated with the RA Profile
+     * @param raProfile RA Profile entity
+     * @return Number of updated certificates
+     */
+    int resetComplianceForRaProfile(RaProfile raProfile);
+
+    /**
+     * Remove the association of all the certificates with the RA Profile
+     * @param raProfile RA Profile entity
+     * @return Number of updated certificates
+     */
+    int removeRaProfileAssociation(RaProfile raProfile);
 }
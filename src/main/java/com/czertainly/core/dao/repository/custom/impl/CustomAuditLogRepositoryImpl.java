@@ -0,0 +1,66 @@
+package com.czertainly.core.dao.repository.custom.impl;
+
+import com.czertainly.api.model.core.audit.AuditLogDto;
+import com.czertainly.core.dao.entity.AuditLog;
+import com.czertainly.core.dao.entity.QAuditLog;
+import com.czertainly.core.dao.repository.custom.CustomAuditLogRepository;
+import com.czertainly.core.model.auditlog.AuditLogItemDto;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import org.springframework.data.querydsl.binding.PathBuilderFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CustomAuditLogRepositoryImpl implements CustomAuditLogRepository {
+
+    // Number of audit logs fetched from the database at once by the cursor
+    @Value("${auditLog.cursor.fetchSize:1000}")
+    private int fetchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void forEachAuditLog(Predicate predicate, Sort sort, Consumer<AuditLogDto> consumer) {
+        QAuditLog auditLog = QAuditLog.auditLog;
+        JPAQuery<AuditLogDto> query = new JPAQuery<AuditLog>(entityManager)
+                .select(Projections.bean(AuditLogDto.class,
+                        auditLog.id, auditLog.uuid, auditLog.author, auditLog.created, auditLog.operationStatus,
+                        auditLog.origination, auditLog.affected, auditLog.objectIdentifier, auditLog.operation,
+                        auditLog.additionalData))
+                .from(auditLog)
+                .where(predicate);
+        new Querydsl(entityManager, new PathBuilderFactory().create(AuditLog.class)).applySorting(sort, query);
+        query.setHint(QueryHints.FETCH_SIZE, fetchSize);
+        query.setHint(QueryHints.READ_ONLY, true);
+
+        try (CloseableIterator<AuditLogDto> iterator = query.iterate()) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+            }
+        }
+    }
+
+    @Override
+    public List<AuditLogItemDto> findAuditLogItems(Predicate predicate, boolean ascending, long limit) {
+        QAuditLog auditLog = QAuditLog.auditLog;
+        return new JPAQuery<AuditLog>(entityManager)
+                .select(Projections.bean(AuditLogItemDto.class,
+                        auditLog.id, auditLog.uuid, auditLog.author, auditLog.created, auditLog.operationStatus,
+                        auditLog.origination, auditLog.affected, auditLog.objectIdentifier, auditLog.operation))
+                .from(auditLog)
+                .where(predicate)
+                .orderBy(ascending ? auditLog.created.asc() : auditLog.created.desc(), ascending ? auditLog.id.asc() : auditLog.id.desc())
+                .limit(limit)
+                .fetch();
+    }
+}
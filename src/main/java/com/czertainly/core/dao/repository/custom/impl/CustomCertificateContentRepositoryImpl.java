@@ -0,0 +1,55 @@
+package com.czertainly.core.dao.repository.custom.impl;
+
+import com.czertainly.core.dao.repository.custom.CustomCertificateContentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+public class CustomCertificateContentRepositoryImpl implements CustomCertificateContentRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomCertificateContentRepositoryImpl.class);
+
+    // Subqueries are not correlated, Hibernate does not qualify the columns of the deleted entity in bulk delete
+    private static final String DELETE_UNUSED_QUERY = "DELETE FROM CertificateContent c " +
+            "WHERE c.id NOT IN (SELECT t1.certificateContent.id FROM Certificate t1 WHERE t1.certificateContent IS NOT NULL%1$s) " +
+            "AND c.id NOT IN (SELECT t2.certificateContent.id FROM DiscoveryCertificate t2 WHERE t2.certificateContent IS NOT NULL%2$s)%3$s";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Number of certificate contents checked by a single statement. Value 0 checks all the contents with a single
+    // statement
+    @Value("${certificate.maintenance.chunkSize:10000}")
+    private long chunkSize;
+
+    @Override
+    public int deleteUnusedCertificateContents() {
+        if (chunkSize <= 0) {
+            return entityManager.createQuery(String.format(DELETE_UNUSED_QUERY, "", "", "")).executeUpdate();
+        }
+
+        Object[] range = (Object[]) entityManager.createQuery("SELECT MIN(c.id), MAX(c.id) FROM CertificateContent c")
+                .getSingleResult();
+        if (range[0] == null) {
+            return 0;
+        }
+
+        String chunkQuery = String.format(DELETE_UNUSED_QUERY,
+                " AND t1.certificateContent.id >= :idFrom AND t1.certificateContent.id < :idTo",
+                " AND t2.certificateContent.id >= :idFrom AND t2.certificateContent.id < :idTo",
+                " AND c.id >= :idFrom AND c.id < :idTo");
+        int deleted = 0;
+        long maxId = (Long) range[1];
+        for (long from = (Long) range[0]; from <= maxId; from += chunkSize) {
+            deleted += entityManager.createQuery(chunkQuery)
+                    .setParameter("idFrom", from)
+                    .setParameter("idTo", from + chunkSize)
+                    .executeUpdate();
+        }
+        logger.debug("Deleted {} unused certificate contents", deleted);
+        return deleted;
+    }
+}
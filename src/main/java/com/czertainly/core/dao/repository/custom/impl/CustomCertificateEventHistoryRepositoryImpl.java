@@ -0,0 +1,63 @@
+package com.czertainly.core.dao.repository.custom.impl;
+
+import com.czertainly.core.dao.entity.CertificateEventHistory;
+import com.czertainly.core.dao.repository.custom.CustomCertificateEventHistoryRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+public class CustomCertificateEventHistoryRepositoryImpl implements CustomCertificateEventHistoryRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomCertificateEventHistoryRepositoryImpl.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @Override
+    public int insertForCertificates(String certificateCondition, CertificateEventHistory history) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        // condition is translated by Hibernate in the same way as in the bulk update of the certificates
+        String[] certificateIdQuery = sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan("SELECT c.id FROM Certificate c " + certificateCondition, false, Collections.emptyMap())
+                .getSqlStrings();
+
+        String prefix = StringUtils.isNotBlank(schema) ? schema + "." : "";
+        String insertQuery = "insert into " + prefix + "certificate_event_history (id, uuid, i_author, i_cre, i_upd, event, " +
+                "status, message, additional_information, certificate_id) " +
+                "select " + dialect.getSelectSequenceNextValString(prefix + "certificate_event_history_id_seq") + ", " +
+                getRandomUuidFunction(dialect) + ", :author, :created, :created, :event, :status, :message, " +
+                ":additionalInformation, h.id from " + prefix + "certificate h where h.id in (" + certificateIdQuery[0] + ")";
+
+        int inserted = entityManager.createNativeQuery(insertQuery)
+                .setParameter("author", history.getAuthor())
+                .setParameter("created", Timestamp.valueOf(history.getCreated()))
+                .setParameter("event", history.getEvent().name())
+                .setParameter("status", history.getStatus().name())
+                .setParameter("message", history.getMessage())
+                .setParameter("additionalInformation", history.getAdditionalInformation())
+                .executeUpdate();
+        logger.debug("Added event {} to the history of {} certificates", history.getEvent(), inserted);
+        return inserted;
+    }
+
+    private String getRandomUuidFunction(Dialect dialect) {
+        if (dialect instanceof PostgreSQL81Dialect) {
+            // available without the pgcrypto extension in all supported versions of PostgreSQL
+            return "cast(cast(md5(cast(random() as text) || cast(clock_timestamp() as text)) as uuid) as varchar)";
+        }
+        return "cast(random_uuid() as varchar)";
+    }
+}
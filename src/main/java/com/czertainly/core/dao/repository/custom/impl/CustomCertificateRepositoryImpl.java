@@ -1,17 +1,66 @@
 package com.czertainly.core.dao.repository.custom.impl;
 
+import com.czertainly.core.dao.entity.RaProfile;
 import com.czertainly.core.dao.repository.custom.CustomCertificateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 public class CustomCertificateRepositoryImpl implements CustomCertificateRepository {
 
+    private static final Logger logger = LoggerFactory.getLogger(CustomCertificateRepositoryImpl.class);
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    // Number of certificates updated by a single statement in the maintenance operations. Value 0 updates all the
+    // certificates with a single statement
+    @Value("${certificate.maintenance.chunkSize:10000}")
+    private long chunkSize;
+
     @Override
     public void bulkUpdateQuery(String query) {
         entityManager.createQuery(query).executeUpdate();
     }
+
+    @Override
+    public int resetComplianceForRaProfile(RaProfile raProfile) {
+        return updateForRaProfile("c.complianceResult = NULL, c.complianceStatus = NULL", raProfile);
+    }
+
+    @Override
+    public int removeRaProfileAssociation(RaProfile raProfile) {
+        return updateForRaProfile("c.raProfile = NULL", raProfile);
+    }
+
+    private int updateForRaProfile(String assignments, RaProfile raProfile) {
+        String updateQuery = "UPDATE Certificate c SET " + assignments + " WHERE c.raProfileId = :raProfileId";
+        if (chunkSize <= 0) {
+            return entityManager.createQuery(updateQuery)
+                    .setParameter("raProfileId", raProfile.getId())
+                    .executeUpdate();
+        }
+
+        Object[] range = (Object[]) entityManager.createQuery("SELECT MIN(c.id), MAX(c.id) FROM Certificate c WHERE c.raProfileId = :raProfileId")
+                .setParameter("raProfileId", raProfile.getId())
+                .getSingleResult();
+        if (range[0] == null) {
+            return 0;
+        }
+
+        int updated = 0;
+        long maxId = (Long) range[1];
+        for (long from = (Long) range[0]; from <= maxId; from += chunkSize) {
+            updated += entityManager.createQuery(updateQuery + " AND c.id >= :idFrom AND c.id < :idTo")
+                    .setParameter("raProfileId", raProfile.getId())
+                    .setParameter("idFrom", from)
+                    .setParameter("idTo", from + chunkSize)
+                    .executeUpdate();
+        }
+        logger.debug("Updated {} certificates of RA Profile {}", updated, raProfile.getName());
+        return updated;
+    }
 }
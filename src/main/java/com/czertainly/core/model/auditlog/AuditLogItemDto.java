@@ -0,0 +1,112 @@
+package com.czertainly.core.model.auditlog;
+
+import com.czertainly.api.model.core.audit.ObjectType;
+import com.czertainly.api.model.core.audit.OperationStatusEnum;
+import com.czertainly.api.model.core.audit.OperationType;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.time.LocalDateTime;
+
+/**
+ * Audit log in the list of the audit logs without its additional data
+ */
+public class AuditLogItemDto {
+
+    private Long id;
+    private String uuid;
+    private String author;
+    private LocalDateTime created;
+    private OperationStatusEnum operationStatus;
+    private ObjectType origination;
+    private ObjectType affected;
+    private String objectIdentifier;
+    private OperationType operation;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(String uuid) {
+        this.uuid = uuid;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public void setCreated(LocalDateTime created) {
+        this.created = created;
+    }
+
+    public OperationStatusEnum getOperationStatus() {
+        return operationStatus;
+    }
+
+    public void setOperationStatus(OperationStatusEnum operationStatus) {
+        this.operationStatus = operationStatus;
+    }
+
+    public ObjectType getOrigination() {
+        return origination;
+    }
+
+    public void setOrigination(ObjectType origination) {
+        this.origination = origination;
+    }
+
+    public ObjectType getAffected() {
+        return affected;
+    }
+
+    public void setAffected(ObjectType affected) {
+        this.affected = affected;
+    }
+
+    public String getObjectIdentifier() {
+        return objectIdentifier;
+    }
+
+    public void setObjectIdentifier(String objectIdentifier) {
+        this.objectIdentifier = objectIdentifier;
+    }
+
+    public OperationType getOperation() {
+        return operation;
+    }
+
+    public void setOperation(OperationType operation) {
+        this.operation = operation;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("id", id)
+                .append("uuid", uuid)
+                .append("author", author)
+                .append("created", created)
+                .append("operationStatus", operationStatus)
+                .append("origination", origination)
+                .append("affected", affected)
+                .append("objectIdentifier", objectIdentifier)
+                .append("operation", operation)
+                .toString();
+    }
+}
@@ -0,0 +1,30 @@
+package com.czertainly.core.model.auditlog;
+
+import java.util.List;
+
+/**
+ * Page of the audit logs listed by the cursor
+ */
+public class AuditLogScrollResponseDto {
+
+    private List<AuditLogItemDto> items;
+
+    // Cursor of the next page or null when there are no more audit logs
+    private String nextCursor;
+
+    public List<AuditLogItemDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<AuditLogItemDto> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,62 @@
+package com.czertainly.core.model.certificate;
+
+import com.czertainly.api.model.core.certificate.CertificateEventHistoryDto;
+
+import java.util.List;
+
+/**
+ * Page of the certificate event history ordered from the latest event
+ */
+public class CertificateEventHistoryPageResponseDto {
+
+    private List<CertificateEventHistoryDto> items;
+
+    private Integer itemsPerPage;
+
+    // Number of the page starting from 1
+    private Integer pageNumber;
+
+    private Integer totalPages;
+
+    private Long totalItems;
+
+    public List<CertificateEventHistoryDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CertificateEventHistoryDto> items) {
+        this.items = items;
+    }
+
+    public Integer getItemsPerPage() {
+        return itemsPerPage;
+    }
+
+    public void setItemsPerPage(Integer itemsPerPage) {
+        this.itemsPerPage = itemsPerPage;
+    }
+
+    public Integer getPageNumber() {
+        return pageNumber;
+    }
+
+    public void setPageNumber(Integer pageNumber) {
+        this.pageNumber = pageNumber;
+    }
+
+    public Integer getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(Integer totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public Long getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(Long totalItems) {
+        this.totalItems = totalItems;
+    }
+}
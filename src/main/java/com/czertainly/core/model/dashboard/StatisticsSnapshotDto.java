@@ -0,0 +1,21 @@
+package com.czertainly.core.model.dashboard;
+
+import com.czertainly.api.model.client.dashboard.StatisticsDto;
+
+import java.util.Date;
+
+/**
+ * Dashboard statistics with the time when the materialized certificate statistics were last updated
+ */
+public class StatisticsSnapshotDto extends StatisticsDto {
+
+    private Date refreshedAt;
+
+    public Date getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public void setRefreshedAt(Date refreshedAt) {
+        this.refreshedAt = refreshedAt;
+    }
+}
@@ -1,14 +1,19 @@
 package com.czertainly.core.service;
 
+import com.czertainly.api.exception.NotFoundException;
+import com.czertainly.api.exception.ValidationException;
+import com.czertainly.api.model.core.audit.AuditLogDto;
 import com.czertainly.api.model.core.audit.AuditLogFilter;
 import com.czertainly.api.model.core.audit.AuditLogResponseDto;
 import com.czertainly.api.model.core.audit.ExportResultDto;
 import com.czertainly.api.model.core.audit.ObjectType;
 import com.czertainly.api.model.core.audit.OperationStatusEnum;
 import com.czertainly.api.model.core.audit.OperationType;
+import com.czertainly.core.model.auditlog.AuditLogScrollResponseDto;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import java.io.OutputStream;
 import java.util.Map;
 
 
@@ -58,4 +63,41 @@ public interface AuditLogService {
      * @return {@link ExportResultDto}
      */
     ExportResultDto exportAuditLogs(AuditLogFilter filter, Sort sort);
+
+    /**
+     * Get the name of the file of the streamed audit log export
+     * @return Name of the export file
+     */
+    String getAuditLogExportFileName();
+
+    /**
+     * Write the export of the audit logs directly to the output stream with constant memory
+     * @param filter {@link AuditLogFilter}
+     * @param sort {@link Sort}
+     * @param fileName Name of the export file returned by {@link #getAuditLogExportFileName()}
+     * @param outputStream Output stream the export is written to
+     */
+    void exportAuditLogs(AuditLogFilter filter, Sort sort, String fileName, OutputStream outputStream);
+
+    /**
+     * List the audit logs by the cursor ordered by the time of creation and id. Audit logs are listed without their
+     * additional data and the total number of the audit logs is not counted.
+     * @param filter {@link AuditLogFilter}
+     * @param cursor Cursor returned with the previous page or null for the first page
+     * @param size Maximum number of the audit logs in the page
+     * @param ascending True to list the oldest audit logs first
+     *
+     * @return {@link AuditLogScrollResponseDto}
+     * @throws ValidationException when the cursor is not valid
+     */
+    AuditLogScrollResponseDto scrollAuditLogs(AuditLogFilter filter, String cursor, int size, boolean ascending) throws ValidationException;
+
+    /**
+     * Get the audit log with its additional data
+     * @param id Id of the audit log
+     *
+     * @return {@link AuditLogDto}
+     * @throws NotFoundException when the audit log does not exist
+     */
+    AuditLogDto getAuditLog(Long id) throws NotFoundException;
 }
@@ -6,13 +6,14 @@ import com.czertainly.core.dao.entity.Certificate;
 import java.io.IOException;
 import java.security.cert.CertificateException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface CertValidationService {
     List<Certificate> getCertificateChain(Certificate certificate);
 
     void validateAllCertificates();
 
-    void validateCertificates(List<Certificate> certificates);
+    CompletableFuture<Void> validateCertificates(List<Certificate> certificates);
 
     void validate(Certificate certificate) throws NotFoundException, CertificateException, IOException;
 }
@@ -1,23 +1,47 @@
 package com.czertainly.core.service;
 
 import com.czertainly.api.exception.NotFoundException;
-import com.czertainly.api.model.client.certificate.SearchFilterRequestDto;
+import com.czertainly.api.exception.ValidationException;
 import com.czertainly.api.model.core.certificate.CertificateEvent;
 import com.czertainly.api.model.core.certificate.CertificateEventHistoryDto;
 import com.czertainly.api.model.core.certificate.CertificateEventStatus;
-import com.czertainly.api.model.core.search.SearchFieldDataDto;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateEventHistory;
+import com.czertainly.core.model.certificate.CertificateEventHistoryPageResponseDto;
 
 import java.util.HashMap;
 import java.util.List;
 
 public interface CertificateEventHistoryService {
     List<CertificateEventHistoryDto> getCertificateEventHistory(String uuid) throws NotFoundException;
+
+    /**
+     * Method to get the page of the Certificate history ordered from the latest event
+     * @param uuid UUID of the Certificate
+     * @param pageNumber Number of the page starting from 1
+     * @param itemsPerPage Number of the events on the page
+     * @return Page of the events
+     */
+    CertificateEventHistoryPageResponseDto getCertificateEventHistory(String uuid, int pageNumber, int itemsPerPage) throws NotFoundException, ValidationException;
     void addEventHistory(CertificateEvent event, CertificateEventStatus status, String message, String additionalInformation, Certificate certificate);
     CertificateEventHistory getEventHistory(CertificateEvent event, CertificateEventStatus status, String message, String additionalInformation, Certificate certificate);
-    void asyncSaveAllInBatch(List<CertificateEventHistory> certificateEventHistories);
-    void addEventHistoryForRequest(List<SearchFilterRequestDto> filters, String entity, List<SearchFieldDataDto> originalJson, CertificateEvent event, CertificateEventStatus status, String message);
+
+    /**
+     * Method to add the events into the Certificate history. Events are written when the current transaction is committed.
+     * @param certificateEventHistories Events created by {@link #getEventHistory}
+     */
+    void addEventHistories(List<CertificateEventHistory> certificateEventHistories);
+
+    /**
+     * Method to add the event into the history of all the Certificates matching the condition with a single statement.
+     * The event is added in the current transaction, so it has to be called before the matching Certificates are updated.
+     * @param certificateCondition JPQL condition of the Certificates with the alias c, as used by the bulk update
+     * @param event Certificate event
+     * @param status Event result
+     * @param message Short message for the event
+     * @return Number of Certificates that recorded the event
+     */
+    int addEventHistoryForCertificates(String certificateCondition, CertificateEvent event, CertificateEventStatus status, String message);
 
     /**
      * Method to add event into the Certificate history.
@@ -83,4 +83,12 @@ public interface CertificateService {
      * @param certificate Certificate entity to be updated
      */
     void updateCertificateEntity(Certificate certificate);
+
+    /**
+     * Remove the compliance result and status of all the certificates associated with the RA Profile using set based
+     * update statements
+     * @param raProfile RA Profile entity
+     * @return Number of updated certificates
+     */
+    int resetComplianceForRaProfile(RaProfile raProfile);
 }
@@ -0,0 +1,402 @@
+package com.czertainly.core.service.acme.impl;
+
+import com.czertainly.api.exception.AcmeProblemDocumentException;
+import com.czertainly.api.model.core.acme.Problem;
+import com.czertainly.core.dao.entity.acme.AcmeNonce;
+import com.czertainly.core.dao.repository.acme.AcmeNonceRepository;
+import com.czertainly.core.util.AcmeCommonHelper;
+import com.czertainly.core.util.AcmeRandomGeneratorAndValidator;
+import com.nimbusds.jose.util.Base64URL;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues and validates the ACME nonces. The nonces are stored in the database unless the shared secret of the
+ * stateless nonces is configured. Stateless nonces contain the time of their issue, the identifier of the issuing
+ * node, the sequence number and the HMAC of these values computed with the configured secret, so they are validated
+ * without any database access. Each node remembers the nonces it issued and which were used in memory, in buckets by
+ * the time of their issue, and accepts only its own nonces, so the ACME requests have to be routed to the same node
+ * when there are several of them. ACME clients retry the request with the nonce from the badNonce response.
+ * <p>
+ * The nonces remain valid across the restart of the node when its identifier is configured, the used nonces are saved
+ * when the application stops and loaded when it starts. When they could not be loaded, the nonces issued before the
+ * start are rejected. The sequence numbers are reserved in blocks in the sequence file of the node before they are
+ * issued, so the nonces issued before the start are recognized also after a crash, regardless of the clock. Expired
+ * nonces stored in the database are removed by {@link AcmeNonceSweeper}.
+ */
+@Component
+public class AcmeNonceManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AcmeNonceManager.class);
+
+    public static final String STATELESS_STORE = "stateless";
+    public static final String DATABASE_STORE = "database";
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final String NODE_ID_ALGORITHM = "SHA-256";
+    private static final int KEY_SIZE = 32;
+    private static final int MAC_SIZE = 16;
+    // time of issue in seconds, node identifier and sequence number
+    private static final int DATA_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final String STATE_FILE_PREFIX = "acme-nonce-";
+    private static final String STATE_FILE_SUFFIX = ".state";
+    private static final String SEQUENCE_FILE_SUFFIX = ".sequence";
+    // Number of the sequence numbers reserved in the sequence file at once
+    private static final long SEQUENCE_RESERVATION = 100000;
+
+    // Store of the nonces, either stateless or database, stateless when the secret is configured
+    @Value("${acme.nonce.store:}")
+    private String store;
+
+    // Base64 encoded secret of the stateless nonces shared by all nodes, at least 32 bytes
+    @Value("${acme.nonce.secret:}")
+    private String secret;
+
+    // Identifier of the node unique within the deployment and stable across its restarts
+    @Value("${acme.nonce.nodeId:}")
+    private String nodeName;
+
+    // Directory where the used nonces are saved when the application stops and the sequence numbers are reserved
+    @Value("${acme.nonce.stateDirectory:${java.io.tmpdir}/czertainly-acme-nonce}")
+    private String stateDirectory;
+
+    // Validity of the nonce in seconds
+    @Value("${acme.nonce.validity:3600}")
+    private int validity;
+
+    // Number of the buckets of the used nonces within the validity of the nonce
+    @Value("${acme.nonce.buckets:60}")
+    private int bucketCount;
+
+    @Autowired
+    private AcmeNonceRepository acmeNonceRepository;
+
+    private SecretKeySpec key;
+    private int nodeId;
+    private final AtomicLong counter = new AtomicLong();
+    // nonces with lower sequence number were issued before the start and their use is not known
+    private long firstSequenceNumber;
+    // sequence numbers up to this one are reserved in the sequence file and can be issued
+    private volatile long reservedSequenceNumber = Long.MAX_VALUE;
+    private Clock clock = Clock.systemUTC();
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::createMac);
+
+    private long bucketSeconds;
+    // sequence numbers of the used nonces by the bucket of the time of their issue
+    private final Map<Long, Set<Long>> usedNonces = new ConcurrentHashMap<>();
+    private final AtomicLong oldestBucket = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isBlank(store)) {
+            store = StringUtils.isBlank(secret) ? DATABASE_STORE : STATELESS_STORE;
+        }
+        if (!STATELESS_STORE.equals(store) && !DATABASE_STORE.equals(store)) {
+            throw new IllegalArgumentException("Invalid ACME nonce store: " + store);
+        }
+        logger.info("ACME nonces are stored in {} store", store);
+        if (DATABASE_STORE.equals(store)) {
+            return;
+        }
+
+        SecureRandom secureRandom = new SecureRandom();
+        byte[] keyBytes;
+        if (StringUtils.isNotBlank(secret)) {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+            if (keyBytes.length < KEY_SIZE) {
+                throw new IllegalArgumentException("ACME nonce secret must have at least " + KEY_SIZE + " bytes");
+            }
+        } else {
+            logger.warn("ACME nonce secret is not configured, the nonces are valid only until the application is restarted");
+            keyBytes = new byte[KEY_SIZE];
+            secureRandom.nextBytes(keyBytes);
+        }
+        key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+        nodeId = StringUtils.isNotBlank(nodeName) ? getNodeId(nodeName) : secureRandom.nextInt();
+        bucketSeconds = Math.max(1, validity / Math.max(1, bucketCount));
+        oldestBucket.set(getBucket(now()));
+
+        // the sequence numbers grow across the restarts, so the nonces issued before the start can be recognized
+        counter.set(clock.millis() * 1000);
+        if (StringUtils.isNotBlank(nodeName)) {
+            counter.set(Math.max(counter.get(), readReservedSequenceNumber()));
+        }
+        firstSequenceNumber = counter.get() + 1;
+        if (StringUtils.isNotBlank(nodeName)) {
+            loadState();
+            reservedSequenceNumber = counter.get();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (STATELESS_STORE.equals(store) && StringUtils.isNotBlank(nodeName)) {
+            saveState();
+        }
+    }
+
+    /**
+     * Issue the new nonce
+     * @return Nonce
+     */
+    public String generateNonce() {
+        if (DATABASE_STORE.equals(store)) {
+            return generateDatabaseNonce();
+        }
+        ByteBuffer nonce = ByteBuffer.allocate(DATA_SIZE + MAC_SIZE);
+        nonce.putLong(now());
+        nonce.putInt(nodeId);
+        long sequenceNumber = counter.incrementAndGet();
+        if (sequenceNumber > reservedSequenceNumber) {
+            reserveSequenceNumbers(sequenceNumber);
+        }
+        nonce.putLong(sequenceNumber);
+        nonce.put(sign(nonce.array()), 0, MAC_SIZE);
+        return Base64URL.encode(nonce.array()).toString();
+    }
+
+    /**
+     * Validate the nonce and mark it as used, each nonce is valid only once
+     * @param nonce Nonce from the request
+     * @throws AcmeProblemDocumentException when the nonce was not issued by this node, is expired or was already used
+     */
+    public void validateNonce(String nonce) throws AcmeProblemDocumentException {
+        if (DATABASE_STORE.equals(store)) {
+            validateDatabaseNonce(nonce);
+            return;
+        }
+        byte[] decoded = new Base64URL(nonce).decode();
+        if (decoded.length != DATA_SIZE + MAC_SIZE) {
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
+        }
+        byte[] expectedMac = sign(decoded);
+        byte[] nonceMac = new byte[MAC_SIZE];
+        System.arraycopy(decoded, DATA_SIZE, nonceMac, 0, MAC_SIZE);
+        byte[] truncatedMac = new byte[MAC_SIZE];
+        System.arraycopy(expectedMac, 0, truncatedMac, 0, MAC_SIZE);
+        if (!MessageDigest.isEqual(truncatedMac, nonceMac)) {
+            logger.debug("Nonce {} has invalid signature", nonce);
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
+        }
+
+        ByteBuffer data = ByteBuffer.wrap(decoded, 0, DATA_SIZE);
+        long issued = data.getLong();
+        int issuer = data.getInt();
+        long sequenceNumber = data.getLong();
+        // only the issuing node knows whether the nonce was used
+        if (issuer != nodeId || sequenceNumber < firstSequenceNumber) {
+            logger.debug("Nonce {} was not issued by this node since its start", nonce);
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
+        }
+        long now = now();
+        if (issued > now || now - issued > validity) {
+            logger.debug("Nonce {} is expired", nonce);
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
+        }
+
+        removeExpiredBuckets(now);
+        if (!usedNonces.computeIfAbsent(getBucket(issued), bucket -> ConcurrentHashMap.newKeySet()).add(sequenceNumber)) {
+            logger.debug("Nonce {} was already used", nonce);
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
+        }
+    }
+
+    private void removeExpiredBuckets(long now) {
+        // one more bucket is kept for the nonces validated just before they expired
+        long expiredBefore = getBucket(now - validity) - 1;
+        long oldest = oldestBucket.get();
+        if (oldest < expiredBefore && oldestBucket.compareAndSet(oldest, expiredBefore)) {
+            usedNonces.keySet().removeIf(bucket -> bucket < expiredBefore);
+        }
+    }
+
+    private void loadState() {
+        Path stateFile = getStateFile();
+        if (!Files.exists(stateFile)) {
+            logger.info("Used ACME nonces of node {} were not saved, the nonces issued before the start are rejected", nodeName);
+            return;
+        }
+        long expiredBefore = getBucket(now() - validity) - 1;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (input.readInt() != nodeId) {
+                throw new IOException("State file belongs to another node");
+            }
+            long savedFirstSequenceNumber = input.readLong();
+            long lastSequenceNumber = input.readLong();
+            Map<Long, Set<Long>> savedNonces = new ConcurrentHashMap<>();
+            int buckets = input.readInt();
+            for (int i = 0; i < buckets; i++) {
+                long bucket = input.readLong();
+                int size = input.readInt();
+                Set<Long> sequenceNumbers = ConcurrentHashMap.newKeySet(size);
+                for (int j = 0; j < size; j++) {
+                    sequenceNumbers.add(input.readLong());
+                }
+                if (bucket >= expiredBefore) {
+                    savedNonces.put(bucket, sequenceNumbers);
+                }
+            }
+            usedNonces.putAll(savedNonces);
+            firstSequenceNumber = savedFirstSequenceNumber;
+            counter.set(Math.max(counter.get(), lastSequenceNumber));
+            logger.info("Loaded used ACME nonces of node {} from {}", nodeName, stateFile);
+        } catch (IOException e) {
+            logger.warn("Failed to load used ACME nonces from {}, the nonces issued before the start are rejected: {}", stateFile, e.getMessage());
+        }
+        // the state is valid only until the next stop, it must not be used after a crash
+        try {
+            Files.delete(stateFile);
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}, the nonces issued before the start are rejected: {}", stateFile, e.getMessage());
+            usedNonces.clear();
+            firstSequenceNumber = counter.get() + 1;
+        }
+    }
+
+    private void saveState() {
+        Path stateFile = getStateFile();
+        try {
+            Files.createDirectories(stateFile.getParent());
+            Path tempFile = Files.createTempFile(stateFile.getParent(), STATE_FILE_PREFIX, ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(nodeId);
+                output.writeLong(firstSequenceNumber);
+                output.writeLong(counter.get());
+                Map<Long, Set<Long>> snapshot = Map.copyOf(usedNonces);
+                output.writeInt(snapshot.size());
+                for (Map.Entry<Long, Set<Long>> bucket : snapshot.entrySet()) {
+                    Long[] sequenceNumbers = bucket.getValue().toArray(new Long[0]);
+                    output.writeLong(bucket.getKey());
+                    output.writeInt(sequenceNumbers.length);
+                    for (Long sequenceNumber : sequenceNumbers) {
+                        output.writeLong(sequenceNumber);
+                    }
+                }
+            }
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved used ACME nonces of node {} to {}", nodeName, stateFile);
+        } catch (IOException e) {
+            logger.warn("Failed to save used ACME nonces to {}, the nonces issued before the restart will be rejected: {}", stateFile, e.getMessage());
+        }
+    }
+
+    private synchronized void reserveSequenceNumbers(long sequenceNumber) {
+        if (sequenceNumber <= reservedSequenceNumber) {
+            return;
+        }
+        long reserved = sequenceNumber + SEQUENCE_RESERVATION;
+        Path sequenceFile = getSequenceFile();
+        try {
+            Files.createDirectories(sequenceFile.getParent());
+            Path tempFile = Files.createTempFile(sequenceFile.getParent(), STATE_FILE_PREFIX, ".tmp");
+            Files.writeString(tempFile, Long.toString(reserved), StandardCharsets.UTF_8, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            Files.move(tempFile, sequenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to reserve ACME nonce sequence numbers in " + sequenceFile, e);
+        }
+        reservedSequenceNumber = reserved;
+    }
+
+    private long readReservedSequenceNumber() {
+        Path sequenceFile = getSequenceFile();
+        if (!Files.exists(sequenceFile)) {
+            logger.info("ACME nonce sequence numbers of node {} were not reserved before", nodeName);
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(sequenceFile, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Failed to read reserved ACME nonce sequence numbers from " + sequenceFile, e);
+        }
+    }
+
+    private Path getSequenceFile() {
+        return Paths.get(stateDirectory, STATE_FILE_PREFIX + Integer.toHexString(nodeId) + SEQUENCE_FILE_SUFFIX);
+    }
+
+    private Path getStateFile() {
+        return Paths.get(stateDirectory, STATE_FILE_PREFIX + Integer.toHexString(nodeId) + STATE_FILE_SUFFIX);
+    }
+
+    private String generateDatabaseNonce() {
+        String nonceString = AcmeRandomGeneratorAndValidator.generateNonce();
+        AcmeNonce acmeNonce = new AcmeNonce();
+        acmeNonce.setCreated(new Date());
+        acmeNonce.setNonce(nonceString);
+        acmeNonce.setExpires(AcmeCommonHelper.addSeconds(new Date(), validity));
+        acmeNonceRepository.save(acmeNonce);
+        return nonceString;
+    }
+
+    private void validateDatabaseNonce(String nonce) throws AcmeProblemDocumentException {
+        // the nonce is used only once, it is valid when this request removed it
+        if (acmeNonceRepository.deleteValidNonce(nonce, new Date()) == 0) {
+            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
+        }
+    }
+
+    private byte[] sign(byte[] nonce) {
+        Mac nonceMac = mac.get();
+        nonceMac.update(nonce, 0, DATA_SIZE);
+        return nonceMac.doFinal();
+    }
+
+    private Mac createMac() {
+        try {
+            Mac nonceMac = Mac.getInstance(MAC_ALGORITHM);
+            nonceMac.init(key);
+            return nonceMac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize " + MAC_ALGORITHM + " for ACME nonces", e);
+        }
+    }
+
+    private static int getNodeId(String name) {
+        try {
+            byte[] digest = MessageDigest.getInstance(NODE_ID_ALGORITHM).digest(name.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getInt();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to compute the ACME nonce node identifier", e);
+        }
+    }
+
+    private long getBucket(long time) {
+        return Math.floorDiv(time, bucketSeconds);
+    }
+
+    private long now() {
+        return clock.millis() / 1000;
+    }
+}
@@ -0,0 +1,122 @@
+package com.czertainly.core.service.acme.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Removes the expired ACME nonces stored in the database in the background, so the requests validating the nonces do
+ * not remove them. Expired nonces are removed in chunks of limited size until none is left, so each statement holds
+ * its locks only briefly. The number of the removed and the live nonces and the duration of the last sweep are logged
+ * and exposed as the attributes of the managed bean.
+ */
+@Component
+@ManagedResource(objectName = "com.czertainly.core:name=AcmeNonceSweeper", description = "Sweeper of the expired ACME nonces")
+public class AcmeNonceSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(AcmeNonceSweeper.class);
+
+    private static final String TABLE_NAME = "acme_nonce";
+
+    // Interval of the sweep in milliseconds, the sweep is disabled when not positive
+    @Value("${acme.nonce.sweepInterval:60000}")
+    private long sweepInterval;
+
+    // Maximum number of nonces removed by a single statement
+    @Value("${acme.nonce.sweepChunkSize:1000}")
+    private int sweepChunkSize;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private String deleteSql;
+    private String countSql;
+
+    private volatile long liveNonceCount;
+    private volatile long lastSweepDuration;
+    private volatile long lastSweepRemoved;
+
+    @PostConstruct
+    public void init() {
+        String table = StringUtils.isNotBlank(schema) ? schema + "." + TABLE_NAME : TABLE_NAME;
+        // PostgreSQL does not support limit in delete, the removed nonces are limited by the subquery
+        deleteSql = "delete from " + table + " where nonce in (select nonce from " + table + " where expires < ? limit ?)";
+        countSql = "select count(*) from " + table + " where expires >= ?";
+
+        if (sweepInterval > 0) {
+            taskScheduler.scheduleWithFixedDelay(this::sweep, Instant.now().plusMillis(sweepInterval), Duration.ofMillis(sweepInterval));
+        }
+    }
+
+    /**
+     * Remove the expired nonces and count the live nonces
+     * @return Number of removed nonces
+     */
+    public long sweep() {
+        long start = System.currentTimeMillis();
+        Timestamp now = new Timestamp(start);
+        long removed = 0;
+        try {
+            int chunkSize = Math.max(1, sweepChunkSize);
+            int chunkRemoved;
+            do {
+                chunkRemoved = jdbcTemplate.update(deleteSql, now, chunkSize);
+                removed += chunkRemoved;
+            } while (chunkRemoved >= chunkSize);
+
+            Long count = jdbcTemplate.queryForObject(countSql, Long.class, now);
+            liveNonceCount = count != null ? count : 0;
+        } catch (Exception e) {
+            logger.warn("Failed to remove expired ACME nonces: {}", e.getMessage());
+        }
+        lastSweepDuration = System.currentTimeMillis() - start;
+        lastSweepRemoved = removed;
+        if (removed > 0) {
+            logger.info("Removed {} expired ACME nonces in {} ms, {} nonces are live", removed, lastSweepDuration, liveNonceCount);
+        } else {
+            logger.debug("No expired ACME nonces removed in {} ms, {} nonces are live", lastSweepDuration, liveNonceCount);
+        }
+        return removed;
+    }
+
+    /**
+     * @return Number of the live nonces stored in the database at the time of the last sweep
+     */
+    @ManagedAttribute(description = "Number of the live nonces at the time of the last sweep")
+    public long getLiveNonceCount() {
+        return liveNonceCount;
+    }
+
+    /**
+     * @return Duration of the last sweep in milliseconds
+     */
+    @ManagedAttribute(description = "Duration of the last sweep in milliseconds")
+    public long getLastSweepDuration() {
+        return lastSweepDuration;
+    }
+
+    /**
+     * @return Number of the nonces removed by the last sweep
+     */
+    @ManagedAttribute(description = "Number of the nonces removed by the last sweep")
+    public long getLastSweepRemoved() {
+        return lastSweepRemoved;
+    }
+}
@@ -15,7 +15,6 @@ import com.czertainly.core.dao.entity.RaProfile;
 import com.czertainly.core.dao.entity.acme.AcmeAccount;
 import com.czertainly.core.dao.entity.acme.AcmeAuthorization;
 import com.czertainly.core.dao.entity.acme.AcmeChallenge;
-import com.czertainly.core.dao.entity.acme.AcmeNonce;
 import com.czertainly.core.dao.entity.acme.AcmeOrder;
 import com.czertainly.core.dao.entity.acme.AcmeProfile;
 import com.czertainly.core.dao.repository.AcmeProfileRepository;
@@ -23,7 +22,6 @@ import com.czertainly.core.dao.repository.RaProfileRepository;
 import com.czertainly.core.dao.repository.acme.AcmeAccountRepository;
 import com.czertainly.core.dao.repository.acme.AcmeAuthorizationRepository;
 import com.czertainly.core.dao.repository.acme.AcmeChallengeRepository;
-import com.czertainly.core.dao.repository.acme.AcmeNonceRepository;
 import com.czertainly.core.dao.repository.acme.AcmeOrderRepository;
 import com.czertainly.core.service.CertValidationService;
 import com.czertainly.core.service.CertificateService;
@@ -107,7 +105,6 @@ public class ExtendedAcmeHelperService {
     private static final Logger logger = LoggerFactory.getLogger(ExtendedAcmeHelperService.class);
     private static final String NONCE_HEADER_NAME = "Replay-Nonce";
     private static final String RETRY_HEADER_NAME = "Retry-After";
-    private static final Integer NONCE_VALIDITY = 60 * 60; //1 Hour
     private static final Integer MAX_REDIRECT_COUNT = 15;
     private static final String CERTIFICATE_TYPE = "X.509";
     private static final String MESSAGE_DIGEST_ALGORITHM = "SHA-256";
@@ -143,7 +140,7 @@ public class ExtendedAcmeHelperService {
     @Autowired
     private AcmeProfileRepository acmeProfileRepository;
     @Autowired
-    private AcmeNonceRepository acmeNonceRepository;
+    private AcmeNonceManager acmeNonceManager;
 
     public ExtendedAcmeHelperService() {
     }
@@ -969,30 +966,11 @@ public class ExtendedAcmeHelperService {
     }
 
     public String generateNonce() {
-        String nonceString = AcmeRandomGeneratorAndValidator.generateNonce();
-        Date expires = AcmeCommonHelper.addSeconds(new Date(), NONCE_VALIDITY);
-        AcmeNonce acmeNonce = new AcmeNonce();
-        acmeNonce.setCreated(new Date());
-        acmeNonce.setNonce(nonceString);
-        acmeNonce.setExpires(expires);
-        acmeNonceRepository.save(acmeNonce);
-        return nonceString;
-    }
-
-    private void acmeNonceCleanup() {
-        try {
-            acmeNonceRepository.deleteAll(acmeNonceRepository.findAllByExpiresBefore(new Date()));
-        } catch (Exception e) {
-            logger.error(e.getMessage());
-        }
+        return acmeNonceManager.generateNonce();
     }
 
     public void isNonceValid(String nonce) throws AcmeProblemDocumentException {
-        acmeNonceCleanup();
-        AcmeNonce acmeNonce = acmeNonceRepository.findByNonce(nonce).orElseThrow(() -> new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE));
-        if (acmeNonce.getExpires().after(AcmeCommonHelper.addSeconds(new Date(), NONCE_VALIDITY))) {
-            throw new AcmeProblemDocumentException(HttpStatus.BAD_REQUEST, Problem.BAD_NONCE);
-        }
+        acmeNonceManager.validateNonce(nonce);
     }
 
     public void validateCSR(JcaPKCS10CertificationRequest csr, AcmeOrder order) throws AcmeProblemDocumentException {
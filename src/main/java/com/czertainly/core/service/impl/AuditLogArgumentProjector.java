@@ -0,0 +1,285 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.UniquelyIdentified;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.std.BeanSerializerBase;
+import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Projects the arguments of the audited methods to the values written to the audit log. Entities and other known
+ * types are replaced by their summaries with the identifier and name, so their lazy associations are never loaded.
+ * Properties of the other objects are read one by one while they are projected and all values are truncated by the
+ * configured limits, so the size of the audit log and the cost of its serialization are bounded. Only the values
+ * that are not beans, such as dates, are converted by Jackson.
+ */
+@Component
+public class AuditLogArgumentProjector {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogArgumentProjector.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static {
+        MAPPER.findAndRegisterModules();
+        MAPPER.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    }
+
+    private static final String TRUNCATED = "...";
+    private static final Function<Object, Object> NO_SUMMARIZER = value -> value;
+    private static final Method NO_NAME_METHOD;
+    static {
+        try {
+            NO_NAME_METHOD = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Maximum number of characters of the string value
+    @Value("${auditLog.argument.maxStringLength:1024}")
+    private int maxStringLength;
+
+    // Maximum number of the items of the collection, array or map
+    @Value("${auditLog.argument.maxCollectionSize:20}")
+    private int maxCollectionSize;
+
+    // Maximum depth of the nested objects
+    @Value("${auditLog.argument.maxDepth:4}")
+    private int maxDepth;
+
+    private final Map<Class<?>, Function<Object, Object>> summarizers = new LinkedHashMap<>();
+    private final Map<Class<?>, Function<Object, Object>> resolvedSummarizers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Method> nameMethods = new ConcurrentHashMap<>();
+    // readable properties of the types serialized as beans, empty for the other types
+    private final Map<Class<?>, Optional<Map<String, AnnotatedMember>>> beanProperties = new ConcurrentHashMap<>();
+
+    public AuditLogArgumentProjector() {
+        register(Certificate.class, certificate -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("uuid", certificate.getUuid());
+            summary.put("commonName", certificate.getCommonName());
+            summary.put("serialNumber", certificate.getSerialNumber());
+            summary.put("fingerprint", certificate.getFingerprint());
+            return summary;
+        });
+        register(UniquelyIdentified.class, this::summarizeEntity);
+        register(X509Certificate.class, certificate -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("subject", certificate.getSubjectX500Principal().getName());
+            summary.put("issuer", certificate.getIssuerX500Principal().getName());
+            summary.put("serialNumber", certificate.getSerialNumber().toString(16));
+            return summary;
+        });
+        register(Pageable.class, Object::toString);
+        register(Sort.class, Object::toString);
+    }
+
+    /**
+     * Register the summarizer of the type. Summarizer of the most specific registered type of the value is used.
+     * Summarizers are expected to be registered when the application starts.
+     * @param type Type of the summarized values
+     * @param summarizer Function returning the summary of the value
+     */
+    public <T> void register(Class<T> type, Function<T, Object> summarizer) {
+        summarizers.put(type, value -> summarizer.apply(type.cast(value)));
+        resolvedSummarizers.clear();
+    }
+
+    /**
+     * Project the value to the value written to the audit log
+     * @param value Argument of the audited method
+     * @return Projected value consisting of the maps, lists, strings and other scalar values
+     */
+    public Object project(Object value) {
+        try {
+            return project(value, 0);
+        } catch (RuntimeException e) {
+            logger.debug("Unable to project audit log argument: {}", e.getMessage());
+            return truncate(value.getClass().getName());
+        }
+    }
+
+    private Object project(Object value, int depth) {
+        if (value == null || value instanceof Number || value instanceof Boolean || value instanceof Enum || value instanceof Character) {
+            return value;
+        }
+        if (value instanceof CharSequence) {
+            return truncate(value.toString());
+        }
+        if (value instanceof byte[]) {
+            return "<" + ((byte[]) value).length + " bytes>";
+        }
+        if (value instanceof HibernateProxy && ((HibernateProxy) value).getHibernateLazyInitializer().isUninitialized()) {
+            // identifier of the uninitialized entity is known without loading the entity
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("entity", ((HibernateProxy) value).getHibernateLazyInitializer().getEntityName());
+            summary.put("id", ((HibernateProxy) value).getHibernateLazyInitializer().getIdentifier());
+            return summary;
+        }
+        Function<Object, Object> summarizer = getSummarizer(value.getClass());
+        if (summarizer != null) {
+            return project(summarizer.apply(value), depth);
+        }
+        if (depth >= maxDepth) {
+            return TRUNCATED;
+        }
+        if (value instanceof Map) {
+            return projectMap((Map<?, ?>) value, depth);
+        }
+        if (value instanceof Collection) {
+            if (!Hibernate.isInitialized(value)) {
+                return "<not loaded>";
+            }
+            return projectItems(((Collection<?>) value).iterator(), ((Collection<?>) value).size(), depth);
+        }
+        if (value instanceof Optional) {
+            return project(((Optional<?>) value).orElse(null), depth);
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> items = new ArrayList<>();
+            for (int i = 0; i < Math.min(length, maxCollectionSize); i++) {
+                items.add(project(Array.get(value, i), depth + 1));
+            }
+            if (length > maxCollectionSize) {
+                items.add(TRUNCATED + (length - maxCollectionSize) + " more");
+            }
+            return items;
+        }
+        Optional<Map<String, AnnotatedMember>> properties = beanProperties.computeIfAbsent(value.getClass(), this::findBeanProperties);
+        if (properties.isPresent()) {
+            return projectBean(value, properties.get(), depth);
+        }
+        Object converted = MAPPER.convertValue(value, Object.class);
+        if (converted instanceof Map || converted instanceof Collection) {
+            return project(converted, depth);
+        }
+        return converted instanceof String ? truncate((String) converted) : converted;
+    }
+
+    private Map<String, Object> projectBean(Object bean, Map<String, AnnotatedMember> properties, int depth) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (Map.Entry<String, AnnotatedMember> property : properties.entrySet()) {
+            if (projected.size() >= maxCollectionSize) {
+                projected.put(TRUNCATED, (properties.size() - maxCollectionSize) + " more");
+                break;
+            }
+            // value of the property is read only when the limits allow it to be projected
+            projected.put(property.getKey(), project(property.getValue().getValue(bean), depth + 1));
+        }
+        return projected;
+    }
+
+    private Optional<Map<String, AnnotatedMember>> findBeanProperties(Class<?> type) {
+        try {
+            if (!(MAPPER.getSerializerProviderInstance().findValueSerializer(type) instanceof BeanSerializerBase)) {
+                return Optional.empty();
+            }
+        } catch (JsonMappingException e) {
+            return Optional.empty();
+        }
+        BeanDescription description = MAPPER.getSerializationConfig().introspect(MAPPER.constructType(type));
+        Map<String, AnnotatedMember> properties = new LinkedHashMap<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+            if (accessor != null && property.couldSerialize()) {
+                accessor.fixAccess(true);
+                properties.put(property.getName(), accessor);
+            }
+        }
+        return Optional.of(properties);
+    }
+
+    private Map<String, Object> projectMap(Map<?, ?> map, int depth) {
+        Map<String, Object> projected = new LinkedHashMap<>();
+        int count = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (count++ >= maxCollectionSize) {
+                projected.put(TRUNCATED, (map.size() - maxCollectionSize) + " more");
+                break;
+            }
+            projected.put(truncate(String.valueOf(entry.getKey())), project(entry.getValue(), depth + 1));
+        }
+        return projected;
+    }
+
+    private List<Object> projectItems(Iterator<?> iterator, int size, int depth) {
+        List<Object> items = new ArrayList<>();
+        while (iterator.hasNext() && items.size() < maxCollectionSize) {
+            items.add(project(iterator.next(), depth + 1));
+        }
+        if (size > maxCollectionSize) {
+            items.add(TRUNCATED + (size - maxCollectionSize) + " more");
+        }
+        return items;
+    }
+
+    private Function<Object, Object> getSummarizer(Class<?> type) {
+        Function<Object, Object> summarizer = resolvedSummarizers.get(type);
+        if (summarizer == null) {
+            Class<?> best = null;
+            for (Class<?> registered : summarizers.keySet()) {
+                if (registered.isAssignableFrom(type) && (best == null || best.isAssignableFrom(registered))) {
+                    best = registered;
+                }
+            }
+            summarizer = best != null ? summarizers.get(best) : NO_SUMMARIZER;
+            resolvedSummarizers.put(type, summarizer);
+        }
+        return summarizer != NO_SUMMARIZER ? summarizer : null;
+    }
+
+    private Object summarizeEntity(UniquelyIdentified entity) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("uuid", entity.getUuid());
+        Method nameMethod = nameMethods.computeIfAbsent(entity.getClass(), type -> {
+            try {
+                Method method = type.getMethod("getName");
+                return method.getReturnType() == String.class ? method : NO_NAME_METHOD;
+            } catch (NoSuchMethodException e) {
+                return NO_NAME_METHOD;
+            }
+        });
+        if (nameMethod != NO_NAME_METHOD) {
+            try {
+                summary.put("name", nameMethod.invoke(entity));
+            } catch (ReflectiveOperationException e) {
+                logger.debug("Unable to get name of {}: {}", entity.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        return summary;
+    }
+
+    private String truncate(String value) {
+        if (value.length() <= maxStringLength) {
+            return value;
+        }
+        return value.substring(0, maxStringLength) + TRUNCATED + "(" + value.length() + " characters)";
+    }
+}
@@ -0,0 +1,202 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.audit.AuditLogDto;
+import com.czertainly.api.model.core.audit.ObjectType;
+import com.czertainly.api.model.core.audit.OperationStatusEnum;
+import com.czertainly.api.model.core.audit.OperationType;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the monthly partitions of the audit_log table in PostgreSQL. Partitions for the next months are created
+ * in advance and partitions older than the retention period are archived to the compressed CSV files, detached and
+ * dropped. Audit logs of the default partition older than the retention period are archived and deleted. Nothing is
+ * done when the audit_log table is not partitioned.
+ */
+@Component
+public class AuditLogPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogPartitionManager.class);
+
+    private static final String TABLE_NAME = "audit_log";
+
+    private static final String AUDIT_LOG_COLUMNS = "id, uuid, i_author, i_cre, origination, affected, object_identifier, " +
+            "operation, operation_status, additional_data";
+
+    // Interval of the maintenance of the partitions in milliseconds, the maintenance is disabled when not positive
+    @Value("${auditLog.partition.maintenanceInterval:86400000}")
+    private long maintenanceInterval;
+
+    // Number of the next months for which the partitions are created in advance
+    @Value("${auditLog.partition.premakeMonths:2}")
+    private int premakeMonths;
+
+    // Number of months for which the audit logs are kept in the database, the retention is disabled when not positive
+    @Value("${auditLog.retention.months:0}")
+    private int retentionMonths;
+
+    // Directory where the partitions are archived before they are dropped, required when the retention is enabled
+    @Value("${auditLog.retention.archiveDirectory:}")
+    private String archiveDirectory;
+
+    // Number of audit logs fetched from the database at once when the partition is archived
+    @Value("${auditLog.cursor.fetchSize:1000}")
+    private int fetchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ExportProcessor exportProcessor;
+    @Autowired
+    private MonthlyPartitionSupport monthlyPartitionSupport;
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @PostConstruct
+    public void init() {
+        // dropped partitions must be archived to the durable storage, not to the temporary directory
+        if (retentionMonths > 0 && StringUtils.isBlank(archiveDirectory)) {
+            throw new IllegalStateException("auditLog.retention.archiveDirectory must be configured when auditLog.retention.months is set");
+        }
+        if (maintenanceInterval > 0) {
+            taskScheduler.scheduleWithFixedDelay(this::maintain, Instant.now().plus(Duration.ofMinutes(1)), Duration.ofMillis(maintenanceInterval));
+        }
+    }
+
+    /**
+     * Create the partitions for the next months and archive the partitions older than the retention period
+     */
+    public void maintain() {
+        try {
+            if (!monthlyPartitionSupport.isPartitioned(TABLE_NAME)) {
+                logger.debug("Table {} is not partitioned, partitions are not maintained", TABLE_NAME);
+                return;
+            }
+            LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+            for (int i = 0; i <= premakeMonths; i++) {
+                monthlyPartitionSupport.createPartition(TABLE_NAME, currentMonth.plusMonths(i));
+            }
+            if (retentionMonths > 0) {
+                LocalDate oldestKeptMonth = currentMonth.minusMonths(retentionMonths);
+                for (String partition : monthlyPartitionSupport.listPartitions(TABLE_NAME)) {
+                    LocalDate month = monthlyPartitionSupport.getPartitionMonth(TABLE_NAME, partition);
+                    if (month != null && month.isBefore(oldestKeptMonth)) {
+                        archivePartition(partition);
+                    } else if (partition.equals(monthlyPartitionSupport.getDefaultPartition(TABLE_NAME))) {
+                        archiveDefaultPartition(partition, oldestKeptMonth);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to maintain partitions of {}: {}", TABLE_NAME, e.getMessage());
+        }
+    }
+
+    private void archivePartition(String partition) throws IOException {
+        long start = System.currentTimeMillis();
+        Path directory = Paths.get(archiveDirectory);
+        Files.createDirectories(directory);
+        Path archive = directory.resolve(partition + ".csv.gz");
+        if (Files.exists(archive)) {
+            archive = directory.resolve(partition + "_" + System.currentTimeMillis() + ".csv.gz");
+        }
+        long count = archive(partition, "", new Object[0], archive);
+
+        // partition is removed only when it was archived
+        monthlyPartitionSupport.dropPartition(TABLE_NAME, partition);
+        logger.info("Archived {} audit logs of partition {} to {} in {} ms", count, partition, archive, System.currentTimeMillis() - start);
+    }
+
+    private void archiveDefaultPartition(String partition, LocalDate before) throws IOException {
+        String condition = " where i_cre < ?";
+        Object[] arguments = {Timestamp.valueOf(before.atStartOfDay())};
+        Boolean expired = jdbcTemplate.queryForObject("select exists (select 1 from " + monthlyPartitionSupport.qualify(partition) + condition + ")",
+                Boolean.class, arguments);
+        if (!Boolean.TRUE.equals(expired)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Path directory = Paths.get(archiveDirectory);
+        Files.createDirectories(directory);
+        Path archive = directory.resolve(partition + "_before_" + before + "_" + System.currentTimeMillis() + ".csv.gz");
+        long count = archive(partition, condition, arguments, archive);
+
+        // audit logs are removed only when they were archived, no audit log older than the retention period is created
+        int deleted = jdbcTemplate.update("delete from " + monthlyPartitionSupport.qualify(partition) + condition, arguments);
+        logger.info("Archived {} and deleted {} audit logs of partition {} created before {} to {} in {} ms", count, deleted, partition,
+                before, archive, System.currentTimeMillis() - start);
+    }
+
+    private long archive(String partition, String condition, Object[] arguments, Path archive) throws IOException {
+        long[] count = new long[1];
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(archive));
+             ExportProcessor.ExportWriter<AuditLogDto> writer = exportProcessor.openExport(partition + ".csv", AuditLogDto.class, os, false)) {
+            // cursor of the PostgreSQL driver is used only in the transaction
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement("select " + AUDIT_LOG_COLUMNS + " from " +
+                        monthlyPartitionSupport.qualify(partition) + condition + " order by i_cre, id");
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < arguments.length; i++) {
+                    statement.setObject(i + 1, arguments[i]);
+                }
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                writer.write(mapRow(resultSet));
+                count[0]++;
+            }));
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(archive);
+            throw e;
+        }
+        return count[0];
+    }
+
+    private AuditLogDto mapRow(ResultSet resultSet) throws SQLException {
+        AuditLogDto auditLog = new AuditLogDto();
+        auditLog.setId(resultSet.getLong("id"));
+        auditLog.setUuid(resultSet.getString("uuid"));
+        auditLog.setAuthor(resultSet.getString("i_author"));
+        Timestamp created = resultSet.getTimestamp("i_cre");
+        auditLog.setCreated(created != null ? created.toLocalDateTime() : null);
+        auditLog.setOrigination(getEnum(ObjectType.class, resultSet.getString("origination")));
+        auditLog.setAffected(getEnum(ObjectType.class, resultSet.getString("affected")));
+        auditLog.setObjectIdentifier(resultSet.getString("object_identifier"));
+        auditLog.setOperation(getEnum(OperationType.class, resultSet.getString("operation")));
+        auditLog.setOperationStatus(getEnum(OperationStatusEnum.class, resultSet.getString("operation_status")));
+        auditLog.setAdditionalData(resultSet.getString("additional_data"));
+        return auditLog;
+    }
+
+    private <E extends Enum<E>> E getEnum(Class<E> enumClass, String value) {
+        try {
+            return value != null ? Enum.valueOf(enumClass, value) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
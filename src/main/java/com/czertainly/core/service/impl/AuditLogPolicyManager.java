@@ -0,0 +1,244 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.audit.ObjectType;
+import com.czertainly.api.model.core.audit.OperationStatusEnum;
+import com.czertainly.api.model.core.audit.OperationType;
+import com.czertainly.core.aop.AuditLogPolicy;
+import com.czertainly.core.aop.AuditLogged;
+import com.czertainly.core.service.AuditLogService;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resolves the audit log policies of the audited methods and counts the calls audited by the aggregated policy.
+ * Policies are configured by the rules in the form {@code <affected>/<operation>=<policy>}, separated by comma,
+ * where the affected object type or the operation can be {@code *} and the sampled policy can define its rate,
+ * for example {@code CERTIFICATE/REQUEST=SAMPLED(0.1),ACME_ACCOUNT/*=ALWAYS}. The most specific rule is used,
+ * calls not matching any rule use the default policy.
+ */
+@Component
+public class AuditLogPolicyManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogPolicyManager.class);
+
+    private static final String ANY = "*";
+
+    @Value("${auditLog.policy.default:ALWAYS}")
+    private AuditLogPolicy defaultPolicy;
+
+    @Value("${auditLog.policy.rules:}")
+    private String rules;
+
+    // Rate of the audited calls of the sampled policy when the rule does not define it
+    @Value("${auditLog.policy.sampleRate:0.1}")
+    private double defaultSampleRate;
+
+    // Interval in milliseconds in which the counts of the aggregated calls are written to the audit log
+    @Value("${auditLog.policy.aggregationInterval:60000}")
+    private long aggregationInterval;
+
+    @Autowired
+    private AuditLogService auditLogService;
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private final Map<String, Rule> ruleMap = new HashMap<>();
+    private final Map<AggregationKey, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private Rule defaultRule;
+    private LocalDateTime aggregatedFrom;
+    private ScheduledFuture<?> aggregationTask;
+
+    @PostConstruct
+    public void init() {
+        defaultRule = new Rule(defaultPolicy, defaultSampleRate);
+        if (StringUtils.isNotBlank(rules)) {
+            for (String rule : rules.split(",")) {
+                parseRule(rule.trim());
+            }
+        }
+        aggregatedFrom = LocalDateTime.now();
+        aggregationTask = taskScheduler.scheduleWithFixedDelay(this::flushAggregated, Instant.now().plusMillis(aggregationInterval),
+                Duration.ofMillis(aggregationInterval));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aggregationTask.cancel(false);
+        flushAggregated();
+    }
+
+    /**
+     * Get the policy of the audited method
+     * @param auditLogged Audit log annotation of the method
+     * @return Policy with its sample rate
+     */
+    public Rule getRule(AuditLogged auditLogged) {
+        return getRule(auditLogged.affected(), auditLogged.operation());
+    }
+
+    /**
+     * Decide whether the call of the audited method is written to the audit log
+     * @param rule Policy of the method
+     * @param internal True when the method was called by another audited method
+     * @param operationStatus Result of the call
+     * @return True when the call is audited
+     */
+    public boolean isAudited(Rule rule, boolean internal, OperationStatusEnum operationStatus) {
+        switch (rule.getPolicy()) {
+            case OFF:
+                return false;
+            case EXTERNAL_ONLY:
+                return !internal;
+            case SAMPLED:
+                return operationStatus != OperationStatusEnum.SUCCESS || ThreadLocalRandom.current().nextDouble() < rule.getSampleRate();
+            case AGGREGATED:
+                return operationStatus != OperationStatusEnum.SUCCESS;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Count the call of the method audited by the aggregated policy
+     * @param auditLogged Audit log annotation of the method
+     * @param method Name of the method
+     */
+    public void countAggregated(AuditLogged auditLogged, String method) {
+        counters.computeIfAbsent(new AggregationKey(auditLogged.originator(), auditLogged.affected(), auditLogged.operation(), method),
+                k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Get the policy of the operation with the object
+     * @param affected Affected object type
+     * @param operation Operation type
+     * @return Policy with its sample rate
+     */
+    public Rule getRule(ObjectType affected, OperationType operation) {
+        if (ruleMap.isEmpty()) {
+            return defaultRule;
+        }
+        Rule rule = ruleMap.get(affected.name() + "/" + operation.name());
+        if (rule == null) rule = ruleMap.get(affected.name() + "/" + ANY);
+        if (rule == null) rule = ruleMap.get(ANY + "/" + operation.name());
+        if (rule == null) rule = ruleMap.get(ANY + "/" + ANY);
+        return rule != null ? rule : defaultRule;
+    }
+
+    private void parseRule(String rule) {
+        String[] parts = rule.split("=", 2);
+        String[] selector = parts[0].trim().split("/", 2);
+        if (parts.length != 2 || selector.length != 2) {
+            throw new IllegalArgumentException("Invalid audit log policy rule: " + rule);
+        }
+        String affected = selector[0].trim();
+        String operation = selector[1].trim();
+        if (!ANY.equals(affected)) {
+            affected = ObjectType.valueOf(affected).name();
+        }
+        if (!ANY.equals(operation)) {
+            operation = OperationType.valueOf(operation).name();
+        }
+
+        String policy = parts[1].trim();
+        double sampleRate = defaultSampleRate;
+        int rateStart = policy.indexOf('(');
+        if (rateStart > 0 && policy.endsWith(")")) {
+            sampleRate = Double.parseDouble(policy.substring(rateStart + 1, policy.length() - 1));
+            policy = policy.substring(0, rateStart).trim();
+        }
+        ruleMap.put(affected + "/" + operation, new Rule(AuditLogPolicy.valueOf(policy), sampleRate));
+    }
+
+    private synchronized void flushAggregated() {
+        LocalDateTime from = aggregatedFrom;
+        LocalDateTime to = LocalDateTime.now();
+        aggregatedFrom = to;
+        for (Map.Entry<AggregationKey, LongAdder> counter : counters.entrySet()) {
+            long count = counter.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            AggregationKey key = counter.getKey();
+            Map<Object, Object> additionalData = new LinkedHashMap<>();
+            additionalData.put("method", key.method);
+            additionalData.put("count", count);
+            additionalData.put("from", from.toString());
+            additionalData.put("to", to.toString());
+            try {
+                auditLogService.log(key.originator, key.affected, null, key.operation, OperationStatusEnum.SUCCESS, additionalData);
+            } catch (Exception e) {
+                logger.warn("Failed to write aggregated audit log of {}: {}", key.method, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Audit log policy with its sample rate
+     */
+    public static final class Rule {
+        private final AuditLogPolicy policy;
+        private final double sampleRate;
+
+        private Rule(AuditLogPolicy policy, double sampleRate) {
+            this.policy = policy;
+            this.sampleRate = sampleRate;
+        }
+
+        public AuditLogPolicy getPolicy() {
+            return policy;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+    }
+
+    private static final class AggregationKey {
+        private final ObjectType originator;
+        private final ObjectType affected;
+        private final OperationType operation;
+        private final String method;
+
+        private AggregationKey(ObjectType originator, ObjectType affected, OperationType operation, String method) {
+            this.originator = originator;
+            this.affected = affected;
+            this.operation = operation;
+            this.method = method;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            AggregationKey that = (AggregationKey) o;
+            return originator == that.originator && affected == that.affected && operation == that.operation
+                    && Objects.equals(method, that.method);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(originator, affected, operation, method);
+        }
+    }
+}
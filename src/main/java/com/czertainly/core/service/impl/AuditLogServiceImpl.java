@@ -1,5 +1,8 @@
 package com.czertainly.core.service.impl;
 
+import com.czertainly.api.exception.NotFoundException;
+import com.czertainly.api.exception.ValidationError;
+import com.czertainly.api.exception.ValidationException;
 import com.czertainly.api.model.core.audit.AuditLogDto;
 import com.czertainly.api.model.core.audit.AuditLogFilter;
 import com.czertainly.api.model.core.audit.AuditLogResponseDto;
@@ -11,18 +14,20 @@ import com.czertainly.core.aop.AuditLogged;
 import com.czertainly.core.dao.entity.AuditLog;
 import com.czertainly.core.dao.entity.QAuditLog;
 import com.czertainly.core.dao.repository.AuditLogRepository;
+import com.czertainly.core.model.auditlog.AuditLogItemDto;
+import com.czertainly.core.model.auditlog.AuditLogScrollResponseDto;
 import com.czertainly.core.service.AuditLogService;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import org.apache.commons.lang3.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -31,26 +36,43 @@ import org.springframework.stereotype.Service;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class AuditLogServiceImpl implements AuditLogService {
 
-    private static final String LOGGER_NAME = "audit-log";
-    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
-
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter WRITER;
     static {
-        MAPPER.findAndRegisterModules();
-        MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.findAndRegisterModules();
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        WRITER = mapper.writer();
     }
 
+    private static final int MAX_SCROLL_SIZE = 1000;
+    private static final String CURSOR_SEPARATOR = ",";
+
+    // Maximum number of characters of the serialized additional data, longer data is truncated
+    @Value("${auditLog.additionalData.maxLength:65536}")
+    private int additionalDataMaxLength;
+
     @Value("${export.auditLog.fileName.prefix:audit-logs}")
     private String fileNamePrefix;
 
@@ -58,23 +80,26 @@ public class AuditLogServiceImpl implements AuditLogService {
     private AuditLogRepository auditLogRepository;
     @Autowired
     private ExportProcessor exportProcessor;
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+    @Autowired
+    private AuditorAware<String> auditorAware;
 
     @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
     public void log(ObjectType origination,
                     ObjectType affected,
                     String objectIdentifier,
                     OperationType operation,
                     OperationStatusEnum operationStatus,
                     Map<Object, Object> additionalData) {
-        String additionalDataJson = null;
-        try {
-        	MAPPER.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-            additionalDataJson = additionalData != null ? MAPPER.writeValueAsString(additionalData) : null;
-        } catch (JsonProcessingException e) {
-            throw new IllegalArgumentException(e);
-        }
+        String additionalDataJson = serializeAdditionalData(additionalData);
 
-        AuditLog auditLog = new AuditLog();
+        AuditLogDto auditLog = new AuditLogDto();
+        auditLog.setUuid(UUID.randomUUID().toString());
+        // author is resolved in the calling thread, the audit log is written by the writer thread
+        auditLog.setAuthor(auditorAware.getCurrentAuditor().orElse(null));
+        auditLog.setCreated(LocalDateTime.now());
         auditLog.setOrigination(origination);
         auditLog.setAffected(affected);
         auditLog.setObjectIdentifier(objectIdentifier);
@@ -82,12 +107,24 @@ public class AuditLogServiceImpl implements AuditLogService {
         auditLog.setOperationStatus(operationStatus);
         auditLog.setAdditionalData(additionalDataJson);
 
-        auditLog = auditLogRepository.save(auditLog);
+        auditLogWriter.write(auditLog);
+    }
 
+    private String serializeAdditionalData(Map<Object, Object> additionalData) {
+        if (additionalData == null) {
+            return null;
+        }
         try {
-            logger.info(MAPPER.writeValueAsString(auditLog.mapToDto()));
+            String json = WRITER.writeValueAsString(additionalData);
+            if (json.length() <= additionalDataMaxLength) {
+                return json;
+            }
+            Map<Object, Object> truncated = new LinkedHashMap<>();
+            truncated.put("method", additionalData.get("method"));
+            truncated.put("truncated", json.length());
+            truncated.put("data", json.substring(0, Math.max(0, additionalDataMaxLength - 256)));
+            return WRITER.writeValueAsString(truncated);
         } catch (JsonProcessingException e) {
-            logger.info(auditLog.mapToDto().toString());
             throw new IllegalArgumentException(e);
         }
     }
@@ -134,6 +171,74 @@ public class AuditLogServiceImpl implements AuditLogService {
         return exportProcessor.generateExport(fileNamePrefix, dtos);
     }
 
+    @Override
+    @AuditLogged(originator = ObjectType.FE, affected = ObjectType.AUDIT_LOG, operation = OperationType.REQUEST)
+    public AuditLogScrollResponseDto scrollAuditLogs(AuditLogFilter filter, String cursor, int size, boolean ascending) throws ValidationException {
+        int pageSize = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+        BooleanBuilder predicate = new BooleanBuilder(createPredicate(filter));
+        if (StringUtils.isNotBlank(cursor)) {
+            predicate.and(createCursorPredicate(cursor, ascending));
+        }
+
+        // one more audit log is fetched to know whether there is a next page
+        List<AuditLogItemDto> items = auditLogRepository.findAuditLogItems(predicate, ascending, pageSize + 1L);
+        AuditLogScrollResponseDto response = new AuditLogScrollResponseDto();
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            AuditLogItemDto last = items.get(pageSize - 1);
+            response.setNextCursor(Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreated() + CURSOR_SEPARATOR + last.getId()).getBytes(StandardCharsets.UTF_8)));
+        }
+        response.setItems(items);
+        return response;
+    }
+
+    @Override
+    @AuditLogged(originator = ObjectType.FE, affected = ObjectType.AUDIT_LOG, operation = OperationType.REQUEST)
+    public AuditLogDto getAuditLog(Long id) throws NotFoundException {
+        return auditLogRepository.findById(id)
+                .map(AuditLog::mapToDto)
+                .orElseThrow(() -> new NotFoundException(AuditLog.class, String.valueOf(id)));
+    }
+
+    private Predicate createCursorPredicate(String cursor, boolean ascending) throws ValidationException {
+        LocalDateTime created;
+        long id;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, 2);
+            created = LocalDateTime.parse(parts[0]);
+            id = Long.parseLong(parts[1]);
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new ValidationException(ValidationError.create("Invalid audit log cursor"));
+        }
+        QAuditLog auditLog = QAuditLog.auditLog;
+        if (ascending) {
+            return auditLog.created.after(created).or(auditLog.created.eq(created).and(auditLog.id.gt(id)));
+        }
+        return auditLog.created.before(created).or(auditLog.created.eq(created).and(auditLog.id.lt(id)));
+    }
+
+    @Override
+    public String getAuditLogExportFileName() {
+        return exportProcessor.getFileName(fileNamePrefix);
+    }
+
+    @Override
+    @AuditLogged(originator = ObjectType.FE, affected = ObjectType.AUDIT_LOG, operation = OperationType.REQUEST)
+    public void exportAuditLogs(AuditLogFilter filter, Sort sort, String fileName, OutputStream outputStream) {
+        Predicate predicate = createPredicate(filter);
+        try (ExportProcessor.ExportWriter<AuditLogDto> writer = exportProcessor.openExport(fileName, AuditLogDto.class, outputStream)) {
+            try {
+                auditLogRepository.forEachAuditLog(predicate, sort, writer::write);
+            } catch (RuntimeException e) {
+                writer.abort();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private Predicate createPredicate(AuditLogFilter filter) {
         BooleanBuilder predicate = new BooleanBuilder();
 
@@ -0,0 +1,353 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.audit.AuditLogDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the audit logs asynchronously. Audit logs are queued in a bounded queue and inserted by a dedicated thread in
+ * JDBC batches, so the caller does not wait for the insert and its transaction does not contain the audit log.
+ * When the queue is full, the caller is blocked, the audit log is dropped or spilled to a file, depending on the
+ * configured overflow policy. Audit logs that could not be inserted, for example during the database outage, are
+ * spilled to the file whatever the overflow policy. Spilled audit logs are inserted when the writer is idle. Queued
+ * audit logs are written when the application shuts down.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final String LOGGER_NAME = "audit-log";
+    private static final Logger auditLogger = LoggerFactory.getLogger(LOGGER_NAME);
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String SPILL_FILE_NAME = "audit-log-spill.jsonl";
+    private static final String REPLAY_FILE_SUFFIX = ".replay";
+    private static final String POSITION_FILE_SUFFIX = ".position";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static {
+        MAPPER.findAndRegisterModules();
+        MAPPER.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    /**
+     * Behaviour when the queue of the audit logs is full
+     */
+    public enum OverflowPolicy {
+        // caller waits until there is space in the queue
+        BLOCK,
+        // audit log is dropped and counted
+        DROP,
+        // audit log is appended to the spill file and inserted later
+        SPILL
+    }
+
+    @Value("${auditLog.writer.queueCapacity:10000}")
+    private int queueCapacity;
+
+    // Maximum number of audit logs inserted in a single JDBC batch
+    @Value("${auditLog.writer.batchSize:500}")
+    private int batchSize;
+
+    // Interval in milliseconds in which the idle writer checks for the spilled audit logs
+    @Value("${auditLog.writer.flushInterval:1000}")
+    private long flushInterval;
+
+    @Value("${auditLog.writer.overflowPolicy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${auditLog.writer.spillDirectory:${java.io.tmpdir}/czertainly-audit-log}")
+    private String spillDirectory;
+
+    // Time in milliseconds to wait for the writer to write the queued audit logs when the application shuts down
+    @Value("${auditLog.writer.shutdownTimeout:10000}")
+    private long shutdownTimeout;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final Object spillLock = new Object();
+
+    private BlockingQueue<AuditLogDto> queue;
+    private String insertSql;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @PostConstruct
+    public void init() {
+        String prefix = StringUtils.isNotBlank(schema) ? schema + "." : "";
+        String nextId = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSelectSequenceNextValString(prefix + "audit_log_id_seq");
+        insertSql = "insert into " + prefix + "audit_log (id, uuid, i_author, i_cre, i_upd, origination, affected, " +
+                "object_identifier, operation, operation_status, additional_data) " +
+                "values (" + nextId + ", ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        writerThread = new Thread(this::run, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // audit logs not written by the writer in time, or queued after it stopped
+        flush();
+        reportDropped();
+    }
+
+    /**
+     * Queue the audit log to be written
+     * @param auditLog Audit log with the author and time of creation
+     */
+    public void write(AuditLogDto auditLog) {
+        if (!running) {
+            writeOrSpill(List.of(auditLog));
+            return;
+        }
+        if (queue.offer(auditLog)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP:
+                dropped.incrementAndGet();
+                break;
+            case SPILL:
+                spill(auditLog);
+                break;
+            default:
+                try {
+                    queue.put(auditLog);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                }
+        }
+    }
+
+    /**
+     * Write all queued audit logs in the calling thread
+     */
+    public void flush() {
+        List<AuditLogDto> batch = new ArrayList<>();
+        while (queue.drainTo(batch, Math.max(1, batchSize)) > 0) {
+            writeOrSpill(batch);
+            batch.clear();
+        }
+    }
+
+    private void run() {
+        try {
+            replaySpilled();
+        } catch (Exception e) {
+            logger.error("Failed to replay spilled audit logs: {}", e.getMessage());
+        }
+        List<AuditLogDto> batch = new ArrayList<>();
+        while (running) {
+            try {
+                AuditLogDto first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpilled();
+                    reportDropped();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, Math.max(1, batchSize) - 1);
+                writeOrSpill(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Failed to write audit logs: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeOrSpill(List<AuditLogDto> batch) {
+        try {
+            writeBatch(batch);
+        } catch (RuntimeException e) {
+            // audit logs must not be lost, they are inserted later from the spill file
+            logger.error("Failed to write {} audit logs, spilling them: {}", batch.size(), e.getMessage());
+            batch.forEach(this::spill);
+        }
+    }
+
+    private void writeBatch(List<AuditLogDto> batch) {
+        try {
+            jdbcTemplate.batchUpdate(insertSql, batch, batch.size(), (ps, auditLog) -> {
+                Timestamp created = auditLog.getCreated() != null ? Timestamp.valueOf(auditLog.getCreated()) : null;
+                ps.setString(1, auditLog.getUuid());
+                ps.setString(2, auditLog.getAuthor());
+                ps.setTimestamp(3, created);
+                ps.setTimestamp(4, created);
+                ps.setString(5, auditLog.getOrigination() != null ? auditLog.getOrigination().name() : null);
+                ps.setString(6, auditLog.getAffected() != null ? auditLog.getAffected().name() : null);
+                ps.setString(7, auditLog.getObjectIdentifier());
+                ps.setString(8, auditLog.getOperation() != null ? auditLog.getOperation().name() : null);
+                ps.setString(9, auditLog.getOperationStatus() != null ? auditLog.getOperationStatus().name() : null);
+                ps.setString(10, auditLog.getAdditionalData());
+            });
+        } finally {
+            // audit logs are always written to the log, even when they could not be stored
+            for (AuditLogDto auditLog : batch) {
+                auditLogger.info(toJson(auditLog));
+            }
+        }
+    }
+
+    private void spill(AuditLogDto auditLog) {
+        synchronized (spillLock) {
+            try {
+                Path directory = Paths.get(spillDirectory);
+                Files.createDirectories(directory);
+                try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(SPILL_FILE_NAME), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    writer.write(MAPPER.writeValueAsString(auditLog));
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                logger.error("Failed to spill audit log: {}", e.getMessage());
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void replaySpilled() {
+        Path directory = Paths.get(spillDirectory);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            synchronized (spillLock) {
+                Path spillFile = directory.resolve(SPILL_FILE_NAME);
+                if (Files.exists(spillFile)) {
+                    Files.move(spillFile, directory.resolve(SPILL_FILE_NAME + "." + System.currentTimeMillis() + REPLAY_FILE_SUFFIX),
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            try (DirectoryStream<Path> replayFiles = Files.newDirectoryStream(directory, "*" + REPLAY_FILE_SUFFIX)) {
+                for (Path replayFile : replayFiles) {
+                    replay(replayFile);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to replay spilled audit logs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Insert the audit logs of the replay file. Number of the lines already inserted is recorded in the position file
+     * after each batch, so the replay interrupted by a database error continues after the inserted lines.
+     * Lines that cannot be parsed, for example the last line truncated by a crash, are skipped.
+     */
+    private void replay(Path replayFile) throws IOException {
+        Path positionFile = replayFile.resolveSibling(replayFile.getFileName() + POSITION_FILE_SUFFIX);
+        long position = readPosition(positionFile);
+        List<AuditLogDto> batch = new ArrayList<>();
+        long lineNumber = 0;
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= position || line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(MAPPER.readValue(line, AuditLogDto.class));
+                } catch (JsonProcessingException e) {
+                    logger.warn("Skipped unparsable audit log on line {} of {}: {}", lineNumber, replayFile, e.getOriginalMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch);
+                    count += batch.size();
+                    batch.clear();
+                    writePosition(positionFile, lineNumber);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+            count += batch.size();
+        }
+        Files.delete(replayFile);
+        Files.deleteIfExists(positionFile);
+        logger.info("Replayed {} spilled audit logs from {}", count, replayFile);
+    }
+
+    private long readPosition(Path positionFile) {
+        try {
+            return Files.exists(positionFile) ? Long.parseLong(Files.readString(positionFile, StandardCharsets.UTF_8).trim()) : 0;
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Failed to read the replay position {}, replaying from the start: {}", positionFile, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void writePosition(Path positionFile, long position) throws IOException {
+        Files.writeString(positionFile, Long.toString(position), StandardCharsets.UTF_8);
+    }
+
+    private void reportDropped() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            logger.warn("{} audit logs were dropped because the audit log queue was full", count);
+        }
+    }
+
+    private String toJson(AuditLogDto auditLog) {
+        try {
+            return MAPPER.writeValueAsString(auditLog);
+        } catch (JsonProcessingException e) {
+            return auditLog.toString();
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -58,7 +59,7 @@ public class CertValidationServiceImpl implements CertValidationService {
 
     @Override
     @Async("threadPoolTaskExecutor")
-    public void validateCertificates(List<Certificate> certificates) {
+    public CompletableFuture<Void> validateCertificates(List<Certificate> certificates) {
         for (Certificate certificate : certificates) {
             try {
                 validate(certificate);
@@ -66,6 +67,7 @@ public class CertValidationServiceImpl implements CertValidationService {
                 logger.warn("Unable to validate the certificate {}", certificate.toString());
             }
         }
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
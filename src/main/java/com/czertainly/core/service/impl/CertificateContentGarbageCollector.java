@@ -0,0 +1,29 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the certificate contents that are no longer referenced by any certificate or discovered certificate.
+ */
+@Component
+public class CertificateContentGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateContentGarbageCollector.class);
+
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+
+    /**
+     * Remove all the unreferenced certificate contents
+     * @return Number of removed certificate contents
+     */
+    public int collect() {
+        int removed = certificateContentRepository.deleteUnusedCertificateContents();
+        logger.info("Removed {} unused certificate contents", removed);
+        return removed;
+    }
+}
@@ -0,0 +1,250 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.certificate.CertificateEvent;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the certificate event history. Consecutive identical discovery events of a certificate are compacted into
+ * the last of them with their count and the time of the first one, events older than the retention period of their
+ * type are removed and the monthly partitions are created in advance in PostgreSQL. Retention periods are configured
+ * in days by the rules in the form {@code <event>=<days>}, separated by comma, for example {@code DISCOVERY=90},
+ * events of other types use the default retention period.
+ */
+@Component
+public class CertificateEventHistoryMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateEventHistoryMaintenance.class);
+
+    private static final String TABLE_NAME = "certificate_event_history";
+
+
+    // Interval of the maintenance in milliseconds, the maintenance is disabled when not positive
+    @Value("${certificateEventHistory.maintenanceInterval:86400000}")
+    private long maintenanceInterval;
+
+    // Number of the next months for which the partitions are created in advance
+    @Value("${certificateEventHistory.partition.premakeMonths:2}")
+    private int premakeMonths;
+
+    @Value("${certificateEventHistory.compaction.enabled:true}")
+    private boolean compactionEnabled;
+
+    // Number of days for which the events are kept, the events are kept forever when not positive
+    @Value("${certificateEventHistory.retention.days:0}")
+    private int defaultRetentionDays;
+
+    @Value("${certificateEventHistory.retention.rules:}")
+    private String retentionRules;
+
+    // Number of certificates or events processed by a single statement
+    @Value("${certificate.maintenance.chunkSize:10000}")
+    private long chunkSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MonthlyPartitionSupport monthlyPartitionSupport;
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private final Map<CertificateEvent, Integer> retentionDays = new EnumMap<>(CertificateEvent.class);
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isNotBlank(retentionRules)) {
+            for (String rule : retentionRules.split(",")) {
+                String[] parts = rule.trim().split("=", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Invalid certificate event history retention rule: " + rule);
+                }
+                retentionDays.put(CertificateEvent.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            }
+        }
+        if (maintenanceInterval > 0) {
+            taskScheduler.scheduleWithFixedDelay(this::maintain, Instant.now().plus(Duration.ofMinutes(5)), Duration.ofMillis(maintenanceInterval));
+        }
+    }
+
+    /**
+     * Compact the repeated discovery events, remove the events older than their retention period and create the
+     * partitions for the next months
+     */
+    public void maintain() {
+        try {
+            if (monthlyPartitionSupport.isPartitioned(TABLE_NAME)) {
+                maintainPartitions();
+            }
+            if (compactionEnabled) {
+                compact(CertificateEvent.DISCOVERY);
+            }
+            removeExpired();
+        } catch (Exception e) {
+            logger.warn("Failed to maintain certificate event history: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Compact the runs of the consecutive identical events of the certificates into the last event of the run. Events
+     * separated by a different event of the same type, for example a discovery failure, are kept apart.
+     * @param event Type of the compacted events
+     * @return Number of removed events
+     */
+    public int compact(CertificateEvent event) {
+        String table = monthlyPartitionSupport.qualify(TABLE_NAME);
+        // events in the same run are identical and there is no other event of their type between them
+        String inRunUpTo = identical("s", "t") + " and not " + later("s", "t") + " and " + noOtherBetween(table, "s", "t");
+        String laterInRun = "exists (select 1 from " + table + " s where " + identical("s", "t") + " and " + later("s", "t") +
+                " and " + noOtherBetween(table, "t", "s") + ")";
+        String updateQuery = "update " + table + " t set " +
+                "repeat_count = (select sum(coalesce(s.repeat_count, 1)) from " + table + " s where " + inRunUpTo + "), " +
+                "first_seen = (select min(coalesce(s.first_seen, s.i_cre)) from " + table + " s where " + inRunUpTo + ") " +
+                "where t.event = ? and t.certificate_id >= ? and t.certificate_id < ? " +
+                "and exists (select 1 from " + table + " s where s.id <> t.id and " + inRunUpTo + ") and not " + laterInRun;
+        String deleteQuery = "delete from " + table + " t where t.event = ? and t.certificate_id >= ? and t.certificate_id < ? " +
+                "and " + laterInRun;
+
+        Long[] range = getRange("certificate_id", "event = ?", event.name());
+        if (range == null) {
+            return 0;
+        }
+        int removed = 0;
+        long step = chunkSize > 0 ? chunkSize : range[1] - range[0] + 1;
+        for (long from = range[0]; from <= range[1]; from += step) {
+            long chunkFrom = from;
+            long chunkTo = from + step;
+            // last event has to be updated with the counts before the other events are removed
+            Integer chunkRemoved = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(updateQuery, event.name(), chunkFrom, chunkTo);
+                return jdbcTemplate.update(deleteQuery, event.name(), chunkFrom, chunkTo);
+            });
+            removed += chunkRemoved != null ? chunkRemoved : 0;
+        }
+        logger.debug("Compacted {} repeated {} events", removed, event);
+        return removed;
+    }
+
+    /**
+     * Remove the events older than the retention period of their type
+     * @return Number of removed events
+     */
+    public int removeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        for (Map.Entry<CertificateEvent, Integer> retention : retentionDays.entrySet()) {
+            if (retention.getValue() > 0) {
+                removed += removeBefore("event = ?", now.minusDays(retention.getValue()), retention.getKey().name());
+            }
+        }
+        if (defaultRetentionDays > 0) {
+            if (retentionDays.isEmpty()) {
+                removed += removeBefore("1 = 1", now.minusDays(defaultRetentionDays));
+            } else {
+                List<String> configured = retentionDays.keySet().stream().map(Enum::name).collect(Collectors.toList());
+                String condition = "event not in (" + configured.stream().map(e -> "?").collect(Collectors.joining(", ")) + ")";
+                removed += removeBefore(condition, now.minusDays(defaultRetentionDays), configured.toArray());
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed {} certificate events older than their retention period", removed);
+        }
+        return removed;
+    }
+
+    private static String sameType(String event, String other) {
+        return event + ".certificate_id = " + other + ".certificate_id and " + event + ".event = " + other + ".event";
+    }
+
+    // events differing only in the time of creation and the compaction are identical
+    private static String sameContent(String event, String other) {
+        return event + ".status = " + other + ".status and coalesce(" + event + ".message, '') = coalesce(" + other + ".message, '') " +
+                "and coalesce(" + event + ".additional_information, '') = coalesce(" + other + ".additional_information, '')";
+    }
+
+    private static String identical(String event, String other) {
+        return sameType(event, other) + " and " + sameContent(event, other);
+    }
+
+    private static String noOtherBetween(String table, String earlier, String later) {
+        return "not exists (select 1 from " + table + " x where " + sameType("x", later) + " and not (" + sameContent("x", later) + ") " +
+                "and " + later("x", earlier) + " and " + later(later, "x") + ")";
+    }
+
+    private static String later(String event, String other) {
+        return "(" + event + ".i_cre > " + other + ".i_cre or (" + event + ".i_cre = " + other + ".i_cre and " + event + ".id > " + other + ".id))";
+    }
+
+    private void maintainPartitions() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= premakeMonths; i++) {
+            monthlyPartitionSupport.createPartition(TABLE_NAME, currentMonth.plusMonths(i));
+        }
+
+        // whole partitions are dropped only when the events of all types expire
+        int longestRetention = retentionDays.values().stream().mapToInt(Integer::intValue).reduce(defaultRetentionDays, Math::max);
+        boolean allExpire = defaultRetentionDays > 0 && retentionDays.values().stream().allMatch(days -> days > 0);
+        if (!allExpire) {
+            return;
+        }
+        LocalDate oldestKept = LocalDate.now().minusDays(longestRetention);
+        for (String partition : monthlyPartitionSupport.listPartitions(TABLE_NAME)) {
+            LocalDate month = monthlyPartitionSupport.getPartitionMonth(TABLE_NAME, partition);
+            if (month != null && !month.plusMonths(1).isAfter(oldestKept)) {
+                monthlyPartitionSupport.dropPartition(TABLE_NAME, partition);
+                logger.info("Dropped partition {} with expired certificate events", partition);
+            }
+        }
+    }
+
+    private int removeBefore(String condition, LocalDateTime before, Object... arguments) {
+        String table = monthlyPartitionSupport.qualify(TABLE_NAME);
+        List<Object> conditionArguments = new ArrayList<>(List.of(arguments));
+        conditionArguments.add(Timestamp.valueOf(before));
+        Long[] range = getRange("id", condition + " and i_cre < ?", conditionArguments.toArray());
+        if (range == null) {
+            return 0;
+        }
+        int removed = 0;
+        long step = chunkSize > 0 ? chunkSize : range[1] - range[0] + 1;
+        for (long from = range[0]; from <= range[1]; from += step) {
+            List<Object> chunkArguments = new ArrayList<>(conditionArguments);
+            chunkArguments.add(from);
+            chunkArguments.add(from + step);
+            removed += jdbcTemplate.update("delete from " + table + " where " + condition + " and i_cre < ? and id >= ? and id < ?",
+                    chunkArguments.toArray());
+        }
+        return removed;
+    }
+
+    private Long[] getRange(String column, String condition, Object... arguments) {
+        return jdbcTemplate.queryForObject("select min(" + column + "), max(" + column + ") from " +
+                monthlyPartitionSupport.qualify(TABLE_NAME) + " where " + condition, (resultSet, rowNum) -> {
+            long min = resultSet.getLong(1);
+            if (resultSet.wasNull()) {
+                return null;
+            }
+            return new Long[]{min, resultSet.getLong(2)};
+        }, arguments);
+    }
+}
@@ -1,26 +1,29 @@
 package com.czertainly.core.service.impl;
 
 import com.czertainly.api.exception.NotFoundException;
-import com.czertainly.api.model.client.certificate.SearchFilterRequestDto;
+import com.czertainly.api.exception.ValidationError;
+import com.czertainly.api.exception.ValidationException;
 import com.czertainly.api.model.core.certificate.CertificateEvent;
 import com.czertainly.api.model.core.certificate.CertificateEventHistoryDto;
 import com.czertainly.api.model.core.certificate.CertificateEventStatus;
-import com.czertainly.api.model.core.search.SearchFieldDataDto;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateEventHistory;
 import com.czertainly.core.dao.repository.CertificateEventHistoryRepository;
 import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.model.certificate.CertificateEventHistoryPageResponseDto;
 import com.czertainly.core.service.CertificateEventHistoryService;
-import com.czertainly.core.service.SearchService;
 import com.czertainly.core.util.MetaDefinitions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -30,12 +33,17 @@ import java.util.stream.Collectors;
 public class CertificateEventHistoryServiceImpl implements CertificateEventHistoryService {
 
     private static final Logger logger = LoggerFactory.getLogger(CertificateEventHistoryServiceImpl.class);
+
+    private static final int MAX_ITEMS_PER_PAGE = 1000;
+
     @Autowired
     private CertificateRepository certificateRepository;
     @Autowired
     private CertificateEventHistoryRepository certificateEventHistoryRepository;
     @Autowired
-    private SearchService searchService;
+    private AuditorAware<String> auditorAware;
+    @Autowired
+    private CertificateEventHistoryWriter certificateEventHistoryWriter;
 
     @Override
     public void addEventHistory(CertificateEvent event, CertificateEventStatus status, String message, HashMap<String, Object> additionalInformation, Certificate certificate) {
@@ -50,7 +58,7 @@ public class CertificateEventHistoryServiceImpl implements CertificateEventHisto
         history.setStatus(status);
         history.setAdditionalInformation(additionalInformation);
         history.setMessage(message);
-        certificateEventHistoryRepository.save(history);
+        certificateEventHistoryWriter.write(List.of(history));
     }
 
     @Override
@@ -71,20 +79,35 @@ public class CertificateEventHistoryServiceImpl implements CertificateEventHisto
     }
 
     @Override
-    @Async("threadPoolTaskExecutor")
-    public void asyncSaveAllInBatch(List<CertificateEventHistory> certificateEventHistories) {
-        certificateEventHistoryRepository.saveAll(certificateEventHistories);
-        logger.info("Inserted {} record into the database", certificateEventHistories.size());
+    public CertificateEventHistoryPageResponseDto getCertificateEventHistory(String uuid, int pageNumber, int itemsPerPage) throws NotFoundException, ValidationException {
+        if (pageNumber < 1 || itemsPerPage < 1 || itemsPerPage > MAX_ITEMS_PER_PAGE) {
+            throw new ValidationException(ValidationError.create("Page number has to be positive and items per page between 1 and " + MAX_ITEMS_PER_PAGE));
+        }
+        Certificate certificate = certificateRepository.findByUuid(uuid).orElseThrow(() -> new NotFoundException(Certificate.class, uuid));
+        Page<CertificateEventHistory> page = certificateEventHistoryRepository.findByCertificate(certificate,
+                PageRequest.of(pageNumber - 1, itemsPerPage, Sort.by(Sort.Order.desc("created"), Sort.Order.desc("id"))));
+
+        CertificateEventHistoryPageResponseDto response = new CertificateEventHistoryPageResponseDto();
+        response.setItems(page.getContent().stream().map(CertificateEventHistory::mapToDto).collect(Collectors.toList()));
+        response.setItemsPerPage(itemsPerPage);
+        response.setPageNumber(pageNumber);
+        response.setTotalPages(Math.max(1, page.getTotalPages()));
+        response.setTotalItems(page.getTotalElements());
+        return response;
+    }
+
+    @Override
+    public void addEventHistories(List<CertificateEventHistory> certificateEventHistories) {
+        certificateEventHistoryWriter.write(certificateEventHistories);
+        logger.debug("Recorded {} certificate events", certificateEventHistories.size());
     }
 
     @Override
-    @Async("threadPoolTaskExecutor")
-    public void addEventHistoryForRequest(List<SearchFilterRequestDto> filters, String entity, List<SearchFieldDataDto> originalJson, CertificateEvent event, CertificateEventStatus status, String message) {
-        List<CertificateEventHistory> batchHistoryOperationList = new ArrayList<>();
-        for (Certificate certificate : (List<Certificate>) searchService.completeSearchQueryExecutor(filters, "Certificate", originalJson)) {
-            batchHistoryOperationList.add(getEventHistory(event, status, message, "", certificate));
-        }
-        asyncSaveAllInBatch(batchHistoryOperationList);
+    public int addEventHistoryForCertificates(String certificateCondition, CertificateEvent event, CertificateEventStatus status, String message) {
+        CertificateEventHistory history = getEventHistory(event, status, message, "", null);
+        history.setAuthor(auditorAware.getCurrentAuditor().orElse(null));
+        history.setCreated(LocalDateTime.now());
+        return certificateEventHistoryRepository.insertForCertificates(certificateCondition, history);
     }
 
 }
@@ -0,0 +1,307 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.core.dao.entity.CertificateEventHistory;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the certificate event history asynchronously. Events recorded in a transaction are kept until the transaction
+ * is committed, so the certificates they refer to are already stored, and are discarded when it is rolled back.
+ * Committed events are queued in a bounded queue and inserted by a dedicated thread in JDBC batches, which are written
+ * when the batch is full or when the flush interval elapsed. When the queue stays full, the committing thread writes
+ * its events itself, so the callers are slowed down instead of the events being lost.
+ */
+@Component
+public class CertificateEventHistoryWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateEventHistoryWriter.class);
+
+    private static final String TABLE_NAME = "certificate_event_history";
+
+    @Value("${certificateEventHistory.writer.queueCapacity:10000}")
+    private int queueCapacity;
+
+    // Maximum number of events inserted in a single JDBC batch
+    @Value("${certificateEventHistory.writer.batchSize:500}")
+    private int batchSize;
+
+    // Maximum time in milliseconds for which the queued events wait for the batch to be filled
+    @Value("${certificateEventHistory.writer.flushInterval:200}")
+    private long flushInterval;
+
+    // Time in milliseconds for which the committing thread waits for a space in the full queue for all its events before it writes
+    // the remaining events itself
+    @Value("${certificateEventHistory.writer.offerTimeout:100}")
+    private long offerTimeout;
+
+    // Time in milliseconds to wait for the writer to write the queued events when the application shuts down
+    @Value("${certificateEventHistory.writer.shutdownTimeout:10000}")
+    private long shutdownTimeout;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private AuditorAware<String> auditorAware;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BlockingQueue<EventHistoryRow> queue;
+    private String insertSql;
+    private TransactionTemplate insertTransaction;
+    // held by the writer thread while it collects and writes a batch, so the flush waits for the batch to be written
+    private final Lock batchLock = new ReentrantLock(true);
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @PostConstruct
+    public void init() {
+        String prefix = StringUtils.isNotBlank(schema) ? schema + "." : "";
+        // identifiers are taken from the sequence by the batched insert itself, without a round trip for each event
+        String nextId = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSelectSequenceNextValString(prefix + TABLE_NAME + "_id_seq");
+        insertSql = "insert into " + prefix + TABLE_NAME + " (id, uuid, i_author, i_cre, i_upd, event, status, message, " +
+                "additional_information, certificate_id) values (" + nextId + ", ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        // events are written after the commit of the transaction that recorded them, so they need their own transaction
+        insertTransaction = new TransactionTemplate(transactionManager);
+        insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        batchSize = Math.max(1, batchSize);
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        running = true;
+        writerThread = new Thread(this::run, "certificate-event-history-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // events not written by the writer in time, or queued after it stopped
+        flush();
+    }
+
+    /**
+     * Write the events when the current transaction is committed, or immediately when there is no transaction
+     * @param histories Events with the certificates, the certificates must be stored when the transaction is committed
+     */
+    public void write(Collection<CertificateEventHistory> histories) {
+        if (histories.isEmpty()) {
+            return;
+        }
+        String author = auditorAware.getCurrentAuditor().orElse(null);
+        LocalDateTime created = LocalDateTime.now();
+        for (CertificateEventHistory history : histories) {
+            if (history.getAuthor() == null) {
+                history.setAuthor(author);
+            }
+            if (history.getCreated() == null) {
+                history.setCreated(created);
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            getTransactionHistories().addAll(histories);
+        } else {
+            enqueue(histories);
+        }
+    }
+
+    /**
+     * Write all queued events in the calling thread, the batch being written by the writer thread is written first
+     */
+    public void flush() {
+        List<EventHistoryRow> batch = new ArrayList<>();
+        batchLock.lock();
+        try {
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    private List<CertificateEventHistory> getTransactionHistories() {
+        @SuppressWarnings("unchecked")
+        List<CertificateEventHistory> histories = (List<CertificateEventHistory>) TransactionSynchronizationManager.getResource(this);
+        if (histories == null) {
+            List<CertificateEventHistory> transactionHistories = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionHistories);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(transactionHistories);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CertificateEventHistoryWriter.this);
+                }
+            });
+            histories = transactionHistories;
+        }
+        return histories;
+    }
+
+    private void enqueue(Collection<CertificateEventHistory> histories) {
+        List<EventHistoryRow> overflow = new ArrayList<>();
+        // single deadline for all the events, so the committing thread waits at most the offer timeout
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeout);
+        for (CertificateEventHistory history : histories) {
+            if (history.getCertificate() == null || history.getCertificate().getId() == null) {
+                logger.warn("Event {} is not written, its certificate is not stored", history);
+                continue;
+            }
+            EventHistoryRow row = new EventHistoryRow(history);
+            if (!running || !overflow.isEmpty()) {
+                // once the queue stayed full, the remaining events are written by the committing thread without waiting
+                overflow.add(row);
+                continue;
+            }
+            try {
+                if (!queue.offer(row, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    overflow.add(row);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                overflow.add(row);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            logger.debug("Writing {} certificate events in the calling thread", overflow.size());
+            writeBatch(overflow);
+        }
+    }
+
+    private void run() {
+        List<EventHistoryRow> batch = new ArrayList<>();
+        while (running) {
+            batchLock.lock();
+            try {
+                EventHistoryRow first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushInterval;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    EventHistoryRow next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writeBatch(batch);
+                return;
+            } catch (Exception e) {
+                logger.error("Failed to write certificate events: {}", e.getMessage());
+            } finally {
+                batch.clear();
+                batchLock.unlock();
+            }
+        }
+    }
+
+    private void writeBatch(List<EventHistoryRow> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(batch);
+        } catch (RuntimeException e) {
+            // certificate of an event could be deleted meanwhile, the other events of the batch are still written
+            logger.warn("Failed to write batch of {} certificate events, writing them one by one: {}", batch.size(), e.getMessage());
+            for (EventHistoryRow row : batch) {
+                try {
+                    insert(List.of(row));
+                } catch (RuntimeException rowException) {
+                    logger.warn("Failed to write event {} of certificate {}: {}", row.event, row.certificateId, rowException.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insert(List<EventHistoryRow> rows) {
+        insertTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(insertSql, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.uuid);
+            ps.setString(2, row.author);
+            ps.setTimestamp(3, row.created);
+            ps.setTimestamp(4, row.created);
+            ps.setString(5, row.event);
+            ps.setString(6, row.status);
+            ps.setString(7, row.message);
+            ps.setString(8, row.additionalInformation);
+            ps.setLong(9, row.certificateId);
+        }));
+    }
+
+    /**
+     * Values of the queued event, the event does not keep its certificate entity in the queue
+     */
+    private static final class EventHistoryRow {
+        private final String uuid;
+        private final String author;
+        private final Timestamp created;
+        private final String event;
+        private final String status;
+        private final String message;
+        private final String additionalInformation;
+        private final long certificateId;
+
+        private EventHistoryRow(CertificateEventHistory history) {
+            this.uuid = history.getUuid();
+            this.author = history.getAuthor();
+            this.created = Timestamp.valueOf(history.getCreated());
+            this.event = history.getEvent() != null ? history.getEvent().name() : null;
+            this.status = history.getStatus() != null ? history.getStatus().name() : null;
+            this.message = history.getMessage();
+            this.additionalInformation = history.getAdditionalInformation();
+            this.certificateId = history.getCertificate().getId();
+        }
+    }
+}
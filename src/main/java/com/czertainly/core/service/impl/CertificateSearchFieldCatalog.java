@@ -0,0 +1,186 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.search.SearchFieldDataDto;
+import com.czertainly.api.model.core.search.SearchLabelConstants;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateGroup;
+import com.czertainly.core.dao.entity.RaProfile;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.dao.repository.GroupRepository;
+import com.czertainly.core.dao.repository.RaProfileRepository;
+import com.czertainly.core.util.MetaDefinitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Cached catalog of the searchable fields of the certificates with the values offered for the filters. The catalog
+ * is built once and replaced when it is invalidated by the change of the groups, RA profiles or by the certificate
+ * with the value of the filter that is not in the catalog. Fields of the catalog are copies of the search label
+ * constants, so the shared constants are never modified, and the catalog must not be modified by its users.
+ */
+@Component
+public class CertificateSearchFieldCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateSearchFieldCatalog.class);
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private RaProfileRepository raProfileRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+
+    // incremented on every invalidation, the catalog built while the catalog was invalidated is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Catalog catalog;
+
+    /**
+     * @return Searchable fields of the certificates
+     */
+    public List<SearchFieldDataDto> getSearchableFields() {
+        Catalog current = catalog;
+        if (current != null) {
+            return current.fields;
+        }
+        long buildGeneration = generation.get();
+        current = build();
+        synchronized (this) {
+            if (generation.get() == buildGeneration) {
+                catalog = current;
+            }
+        }
+        return current.fields;
+    }
+
+    /**
+     * Invalidate the catalog. When called in a transaction, the catalog is invalidated again when the transaction
+     * completes, so the catalog built from the uncommitted data is not kept.
+     */
+    public void invalidate() {
+        invalidateNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow();
+                }
+            });
+        }
+    }
+
+    /**
+     * Invalidate the catalog when the certificate has a value of the filter that is not in the catalog
+     * @param certificate Created or updated certificate
+     */
+    public void onCertificateChanged(Certificate certificate) {
+        Catalog current = catalog;
+        if (current == null) {
+            return;
+        }
+        if (isUnknown(current.signatureAlgorithms, certificate.getSignatureAlgorithm())
+                || isUnknown(current.publicKeyAlgorithms, certificate.getPublicKeyAlgorithm())
+                || isUnknown(current.keySizes, certificate.getKeySize())
+                || isUnknown(current.keyUsages, certificate.getKeyUsage())) {
+            invalidate();
+        }
+    }
+
+    private boolean isUnknown(Set<?> values, Object value) {
+        return value != null && !values.contains(value);
+    }
+
+    private synchronized void invalidateNow() {
+        generation.incrementAndGet();
+        catalog = null;
+    }
+
+    private Catalog build() {
+        List<String> signatureAlgorithms = certificateRepository.findDistinctSignatureAlgorithm();
+        List<String> publicKeyAlgorithms = certificateRepository.findDistinctPublicKeyAlgorithm();
+        List<Integer> keySizes = certificateRepository.findDistinctKeySize();
+        List<String> keyUsages = certificateRepository.findDistinctKeyUsage();
+
+        List<SearchFieldDataDto> fields = List.of(
+                copy(SearchLabelConstants.COMMON_NAME_FILTER),
+                copy(SearchLabelConstants.SERIAL_NUMBER_FILTER),
+                copy(SearchLabelConstants.ISSUER_SERIAL_NUMBER_FILTER),
+                copy(SearchLabelConstants.RA_PROFILE_NAME_FILTER, raProfileRepository.findAll().stream().map(RaProfile::getName).collect(Collectors.toList())),
+                copy(SearchLabelConstants.GROUP_NAME_FILTER, groupRepository.findAll().stream().map(CertificateGroup::getName).collect(Collectors.toList())),
+                copy(SearchLabelConstants.OWNER_FILTER),
+                copy(SearchLabelConstants.STATUS_FILTER),
+                copy(SearchLabelConstants.COMPLIANCE_STATUS_FILTER),
+                copy(SearchLabelConstants.ISSUER_COMMON_NAME_FILTER),
+                copy(SearchLabelConstants.FINGERPRINT_FILTER),
+                copy(SearchLabelConstants.SIGNATURE_ALGORITHM_FILTER, new ArrayList<>(signatureAlgorithms)),
+                copy(SearchLabelConstants.NOT_AFTER_FILTER),
+                copy(SearchLabelConstants.NOT_BEFORE_FILTER),
+                copy(SearchLabelConstants.SUBJECTDN_FILTER),
+                copy(SearchLabelConstants.ISSUERDN_FILTER),
+                copy(SearchLabelConstants.META_FILTER),
+                copy(SearchLabelConstants.SUBJECT_ALTERNATIVE_NAMES_FILTER),
+                copy(SearchLabelConstants.OCSP_VALIDATION_FILTER),
+                copy(SearchLabelConstants.CRL_VALIDATION_FILTER),
+                copy(SearchLabelConstants.SIGNATURE_VALIDATION_FILTER),
+                copy(SearchLabelConstants.PUBLIC_KEY_ALGORITHM_FILTER, new ArrayList<>(publicKeyAlgorithms)),
+                copy(SearchLabelConstants.KEY_SIZE_FILTER, new ArrayList<>(keySizes)),
+                copy(SearchLabelConstants.KEY_USAGE_FILTER, serializedListOfStringToListOfObject(keyUsages))
+        );
+        logger.debug("Searchable Fields: {}", fields);
+        return new Catalog(fields, new HashSet<>(signatureAlgorithms), new HashSet<>(publicKeyAlgorithms),
+                new HashSet<>(keySizes), new HashSet<>(keyUsages));
+    }
+
+    private SearchFieldDataDto copy(SearchFieldDataDto field) {
+        return copy(field, field.getValue());
+    }
+
+    private SearchFieldDataDto copy(SearchFieldDataDto field, List<Object> values) {
+        SearchFieldDataDto dto = new SearchFieldDataDto();
+        dto.setField(field.getField());
+        dto.setLabel(field.getLabel());
+        dto.setMultiValue(field.isMultiValue());
+        dto.setValue(values != null ? Collections.unmodifiableList(new ArrayList<>(values)) : null);
+        dto.setType(field.getType());
+        dto.setConditions(field.getConditions() != null ? Collections.unmodifiableList(new ArrayList<>(field.getConditions())) : null);
+        return dto;
+    }
+
+    private List<Object> serializedListOfStringToListOfObject(List<String> serializedData) {
+        Set<String> serSet = new LinkedHashSet<>();
+        for (String obj : serializedData) {
+            serSet.addAll(MetaDefinitions.deserializeArrayString(obj));
+        }
+        return new ArrayList<>(serSet);
+    }
+
+    private static final class Catalog {
+        private final List<SearchFieldDataDto> fields;
+        private final Set<String> signatureAlgorithms;
+        private final Set<String> publicKeyAlgorithms;
+        private final Set<Integer> keySizes;
+        private final Set<String> keyUsages;
+
+        private Catalog(List<SearchFieldDataDto> fields, Set<String> signatureAlgorithms, Set<String> publicKeyAlgorithms,
+                        Set<Integer> keySizes, Set<String> keyUsages) {
+            this.fields = fields;
+            this.signatureAlgorithms = signatureAlgorithms;
+            this.publicKeyAlgorithms = publicKeyAlgorithms;
+            this.keySizes = keySizes;
+            this.keyUsages = keyUsages;
+        }
+    }
+}
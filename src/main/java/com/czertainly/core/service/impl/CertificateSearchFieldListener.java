@@ -0,0 +1,52 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateGroup;
+import com.czertainly.core.dao.entity.RaProfile;
+import com.czertainly.core.dao.listener.EntityChangeObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates the catalog of the searchable fields of the certificates when the values offered for the filters change.
+ * Removed certificates do not invalidate the catalog, value of the filter without certificates does not break
+ * the search.
+ */
+@Component
+public class CertificateSearchFieldListener implements EntityChangeObserver {
+
+    @Lazy
+    @Autowired
+    private CertificateSearchFieldCatalog certificateSearchFieldCatalog;
+
+    @Override
+    public void onPersist(Object entity) {
+        onChange(entity);
+    }
+
+    @Override
+    public void onUpdate(Object entity) {
+        onChange(entity);
+    }
+
+    @Override
+    public void onRemove(Object entity) {
+        if (isFilterSource(entity)) {
+            certificateSearchFieldCatalog.invalidate();
+        }
+    }
+
+    private void onChange(Object entity) {
+        if (entity instanceof Certificate) {
+            certificateSearchFieldCatalog.onCertificateChanged((Certificate) entity);
+        } else if (isFilterSource(entity)) {
+            certificateSearchFieldCatalog.invalidate();
+        }
+    }
+
+    // entities offering the values of the filters besides the certificates
+    private static boolean isFilterSource(Object entity) {
+        return entity instanceof RaProfile || entity instanceof CertificateGroup;
+    }
+}
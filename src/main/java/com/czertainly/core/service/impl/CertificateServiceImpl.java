@@ -22,7 +22,6 @@ import com.czertainly.api.model.core.compliance.ComplianceStatus;
 import com.czertainly.api.model.core.location.LocationDto;
 import com.czertainly.api.model.core.search.DynamicSearchInternalResponse;
 import com.czertainly.api.model.core.search.SearchFieldDataDto;
-import com.czertainly.api.model.core.search.SearchLabelConstants;
 import com.czertainly.core.aop.AuditLogged;
 import com.czertainly.core.dao.entity.*;
 import com.czertainly.core.dao.repository.AdminRepository;
@@ -39,7 +38,6 @@ import com.czertainly.core.service.ComplianceService;
 import com.czertainly.core.service.LocationService;
 import com.czertainly.core.service.SearchService;
 import com.czertainly.core.util.CertificateUtil;
-import com.czertainly.core.util.MetaDefinitions;
 import com.czertainly.core.util.OcspUtil;
 import com.czertainly.core.util.X509ObjectToString;
 import com.google.common.collect.Lists;
@@ -73,10 +71,8 @@ import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -129,6 +125,15 @@ public class CertificateServiceImpl implements CertificateService {
     @Autowired
     private LocationService locationService;
 
+    @Autowired
+    private CertificateContentGarbageCollector certificateContentGarbageCollector;
+
+    @Autowired
+    private CertificateStatisticsRefresher certificateStatisticsRefresher;
+
+    @Autowired
+    private CertificateSearchFieldCatalog certificateSearchFieldCatalog;
+
 
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.CERTIFICATE, operation = OperationType.REQUEST)
@@ -281,13 +286,15 @@ public class CertificateServiceImpl implements CertificateService {
                 batchOperationList.add(certificate);
             }
             certificateRepository.saveAll(batchOperationList);
-            certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
+            certificateEventHistoryService.addEventHistories(batchHistoryOperationList);
         } else {
-            String profileUpdateQuery = "UPDATE Certificate c SET c.raProfile = " + raProfile.getId() + searchService.getCompleteSearchQuery(request.getFilters(), "certificate", "", getSearchableFieldInformation(), true, false).replace("GROUP BY c.id ORDER BY c.id DESC", "");
+            String condition = getBulkUpdateCondition(request.getFilters());
+            certificateEventHistoryService.addEventHistoryForCertificates(condition, CertificateEvent.UPDATE_RA_PROFILE, CertificateEventStatus.SUCCESS, "RA Profile Name: " + raProfile.getName());
+            String profileUpdateQuery = "UPDATE Certificate c SET c.raProfile = " + raProfile.getId() + condition;
             certificateRepository.bulkUpdateQuery(profileUpdateQuery);
-            certificateEventHistoryService.addEventHistoryForRequest(request.getFilters(), "Certificate", getSearchableFieldInformation(), CertificateEvent.UPDATE_RA_PROFILE, CertificateEventStatus.SUCCESS, "RA Profile Name: " + raProfile.getName());
             bulkUpdateRaProfileComplianceCheck(request.getFilters());
         }
+        certificateStatisticsRefresher.requestRefresh();
     }
 
     @Override
@@ -307,12 +314,14 @@ public class CertificateServiceImpl implements CertificateService {
                 batchOperationList.add(certificate);
             }
             certificateRepository.saveAll(batchOperationList);
-            certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
+            certificateEventHistoryService.addEventHistories(batchHistoryOperationList);
         } else {
-            String groupUpdateQuery = "UPDATE Certificate c SET c.group = " + certificateGroup.getId() + searchService.getCompleteSearchQuery(request.getFilters(), "certificate", "", getSearchableFieldInformation(), true, false).replace("GROUP BY c.id ORDER BY c.id DESC", "");
+            String condition = getBulkUpdateCondition(request.getFilters());
+            certificateEventHistoryService.addEventHistoryForCertificates(condition, CertificateEvent.UPDATE_GROUP, CertificateEventStatus.SUCCESS, "Group Name: " + certificateGroup.getName());
+            String groupUpdateQuery = "UPDATE Certificate c SET c.group = " + certificateGroup.getId() + condition;
             certificateRepository.bulkUpdateQuery(groupUpdateQuery);
-            certificateEventHistoryService.addEventHistoryForRequest(request.getFilters(), "Certificate", getSearchableFieldInformation(), CertificateEvent.UPDATE_GROUP, CertificateEventStatus.SUCCESS, "Group Name: " + certificateGroup.getName());
         }
+        certificateStatisticsRefresher.requestRefresh();
     }
 
     @Override
@@ -329,11 +338,12 @@ public class CertificateServiceImpl implements CertificateService {
                 batchOperationList.add(certificate);
             }
             certificateRepository.saveAll(batchOperationList);
-            certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
+            certificateEventHistoryService.addEventHistories(batchHistoryOperationList);
         } else {
-            String ownerUpdateQuery = "UPDATE Certificate c SET c.owner = '" + request.getOwner() + "' " + searchService.getCompleteSearchQuery(request.getFilters(), "certificate", "", getSearchableFieldInformation(), true, false).replace("GROUP BY c.id ORDER BY c.id DESC", "");
+            String condition = getBulkUpdateCondition(request.getFilters());
+            certificateEventHistoryService.addEventHistoryForCertificates(condition, CertificateEvent.UPDATE_OWNER, CertificateEventStatus.SUCCESS, "Owner: " + request.getOwner());
+            String ownerUpdateQuery = "UPDATE Certificate c SET c.owner = '" + request.getOwner() + "' " + condition;
             certificateRepository.bulkUpdateQuery(ownerUpdateQuery);
-            certificateEventHistoryService.addEventHistoryForRequest(request.getFilters(), "Certificate", getSearchableFieldInformation(), CertificateEvent.UPDATE_OWNER, CertificateEventStatus.SUCCESS, "Owner: " + request.getOwner());
         }
 
     }
@@ -392,16 +402,15 @@ public class CertificateServiceImpl implements CertificateService {
             for (List<Certificate> certificates : Lists.partition(certListDyn, DELETE_BATCH_SIZE)) {
                 certificateRepository.deleteAll(certificates);
             }
-            for (List<CertificateContent> certificateContents : Lists.partition(certificateContentRepository.findCertificateContentNotUsed(), DELETE_BATCH_SIZE)) {
-                certificateContentRepository.deleteAll(certificateContents);
-            }
+            certificateContentGarbageCollector.collect();
         }
-        certificateEventHistoryService.asyncSaveAllInBatch(batchHistoryOperationList);
+        certificateEventHistoryService.addEventHistories(batchHistoryOperationList);
+        certificateStatisticsRefresher.requestRefresh();
     }
 
     @Override
     public List<SearchFieldDataDto> getSearchableFieldInformation() {
-        return getSearchableFieldsMap();
+        return certificateSearchFieldCatalog.getSearchableFields();
     }
 
     @Override
@@ -643,62 +652,11 @@ public class CertificateServiceImpl implements CertificateService {
         certificateRepository.save(certificate);
     }
 
-
-    private List<SearchFieldDataDto> getSearchableFieldsMap() {
-
-        SearchFieldDataDto raProfileFilter = SearchLabelConstants.RA_PROFILE_NAME_FILTER;
-        raProfileFilter.setValue(raProfileRepository.findAll().stream().map(RaProfile::getName).collect(Collectors.toList()));
-
-        SearchFieldDataDto groupFilter = SearchLabelConstants.GROUP_NAME_FILTER;
-        groupFilter.setValue(groupRepository.findAll().stream().map(CertificateGroup::getName).collect(Collectors.toList()));
-
-        SearchFieldDataDto signatureAlgorithmFilter = SearchLabelConstants.SIGNATURE_ALGORITHM_FILTER;
-        signatureAlgorithmFilter.setValue(new ArrayList<>(certificateRepository.findDistinctSignatureAlgorithm()));
-
-        SearchFieldDataDto publicKeyFilter = SearchLabelConstants.PUBLIC_KEY_ALGORITHM_FILTER;
-        publicKeyFilter.setValue(new ArrayList<>(certificateRepository.findDistinctPublicKeyAlgorithm()));
-
-        SearchFieldDataDto keySizeFilter = SearchLabelConstants.KEY_SIZE_FILTER;
-        keySizeFilter.setValue(new ArrayList<>(certificateRepository.findDistinctKeySize()));
-
-        SearchFieldDataDto keyUsageFilter = SearchLabelConstants.KEY_USAGE_FILTER;
-        keyUsageFilter.setValue(serializedListOfStringToListOfObject(certificateRepository.findDistinctKeyUsage()));
-
-        List<SearchFieldDataDto> fields = List.of(
-                SearchLabelConstants.COMMON_NAME_FILTER,
-                SearchLabelConstants.SERIAL_NUMBER_FILTER,
-                SearchLabelConstants.ISSUER_SERIAL_NUMBER_FILTER,
-                raProfileFilter,
-                groupFilter,
-                SearchLabelConstants.OWNER_FILTER,
-                SearchLabelConstants.STATUS_FILTER,
-                SearchLabelConstants.COMPLIANCE_STATUS_FILTER,
-                SearchLabelConstants.ISSUER_COMMON_NAME_FILTER,
-                SearchLabelConstants.FINGERPRINT_FILTER,
-                signatureAlgorithmFilter,
-                SearchLabelConstants.NOT_AFTER_FILTER,
-                SearchLabelConstants.NOT_BEFORE_FILTER,
-                SearchLabelConstants.SUBJECTDN_FILTER,
-                SearchLabelConstants.ISSUERDN_FILTER,
-                SearchLabelConstants.META_FILTER,
-                SearchLabelConstants.SUBJECT_ALTERNATIVE_NAMES_FILTER,
-                SearchLabelConstants.OCSP_VALIDATION_FILTER,
-                SearchLabelConstants.CRL_VALIDATION_FILTER,
-                SearchLabelConstants.SIGNATURE_VALIDATION_FILTER,
-                publicKeyFilter,
-                keySizeFilter,
-                keyUsageFilter
-        );
-        logger.debug("Searchable Fields: {}", fields);
-        return fields;
-    }
-
-    private List<Object> serializedListOfStringToListOfObject(List<String> serializedData) {
-        Set<String> serSet = new LinkedHashSet<>();
-        for (String obj : serializedData) {
-            serSet.addAll(MetaDefinitions.deserializeArrayString(obj));
-        }
-        return new ArrayList<>(serSet);
+    @Override
+    public int resetComplianceForRaProfile(RaProfile raProfile) {
+        int updated = certificateRepository.resetComplianceForRaProfile(raProfile);
+        certificateStatisticsRefresher.requestRefresh();
+        return updated;
     }
 
     private CertificateResponseDto getCertificatesWithFilter(SearchRequestDto request) {
@@ -751,6 +709,10 @@ public class CertificateServiceImpl implements CertificateService {
         return dto;
     }
 
+    private String getBulkUpdateCondition(List<SearchFilterRequestDto> filters) {
+        return searchService.getCompleteSearchQuery(filters, "certificate", "", getSearchableFieldInformation(), true, false).replace("GROUP BY c.id ORDER BY c.id DESC", "");
+    }
+
     @Async
     private void bulkUpdateRaProfileComplianceCheck(List<SearchFilterRequestDto> searchFilter) {
         List<Certificate> certificates = (List<Certificate>) searchService.completeSearchQueryExecutor(searchFilter, "Certificate", getSearchableFieldInformation());
@@ -0,0 +1,67 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.listener.EntityChangeObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Counts the changes of the certificates for the incremental mode of the certificate statistics. Values of
+ * the statistics dimensions are remembered when the certificate is loaded, so the update can be counted as a move
+ * between the values. Bulk updates and deletes are not counted and are covered by the refresh of the statistics.
+ */
+@Component
+public class CertificateStatisticsListener implements EntityChangeObserver {
+
+    @Lazy
+    @Autowired
+    private CertificateStatisticsRefresher certificateStatisticsRefresher;
+
+    @Override
+    public void onLoad(Object entity) {
+        if (entity instanceof Certificate && isIncremental()) {
+            Certificate certificate = (Certificate) entity;
+            certificate.setStatisticsLabels(CertificateStatisticsStore.getLabels(certificate));
+        }
+    }
+
+    @Override
+    public void onPersist(Object entity) {
+        if (entity instanceof Certificate && isIncremental()) {
+            Certificate certificate = (Certificate) entity;
+            Map<String, String> labels = CertificateStatisticsStore.getLabels(certificate);
+            certificateStatisticsRefresher.recordChange(null, labels);
+            certificate.setStatisticsLabels(labels);
+        }
+    }
+
+    @Override
+    public void onUpdate(Object entity) {
+        if (!(entity instanceof Certificate)) {
+            return;
+        }
+        Certificate certificate = (Certificate) entity;
+        if (isIncremental() && certificate.getStatisticsLabels() != null) {
+            Map<String, String> labels = CertificateStatisticsStore.getLabels(certificate);
+            certificateStatisticsRefresher.recordChange(certificate.getStatisticsLabels(), labels);
+            certificate.setStatisticsLabels(labels);
+        }
+    }
+
+    @Override
+    public void onRemove(Object entity) {
+        if (entity instanceof Certificate && isIncremental()) {
+            Certificate certificate = (Certificate) entity;
+            Map<String, String> labels = certificate.getStatisticsLabels() != null
+                    ? certificate.getStatisticsLabels() : CertificateStatisticsStore.getLabels(certificate);
+            certificateStatisticsRefresher.recordChange(labels, null);
+        }
+    }
+
+    private boolean isIncremental() {
+        return certificateStatisticsRefresher != null && certificateStatisticsRefresher.isIncremental();
+    }
+}
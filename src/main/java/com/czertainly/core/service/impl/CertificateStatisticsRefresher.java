@@ -0,0 +1,202 @@
+package com.czertainly.core.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the materialized certificate statistics up to date. Statistics are refreshed on a configurable schedule and
+ * after the bulk operations with certificates. In the incremental mode, changes of the certificates are counted when
+ * their transaction commits and applied to the statistics periodically.
+ * All changes of the materialized statistics are serialized.
+ */
+@Component
+public class CertificateStatisticsRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateStatisticsRefresher.class);
+
+    // Interval of the full refresh of the statistics in milliseconds, the scheduled refresh is disabled when not positive
+    @Value("${statistics.refreshInterval:300000}")
+    private long refreshInterval;
+
+    @Value("${statistics.incremental.enabled:false}")
+    private boolean incremental;
+
+    // Interval in milliseconds in which the counted changes of the certificates are applied to the statistics
+    @Value("${statistics.incremental.flushInterval:5000}")
+    private long flushInterval;
+
+    @Autowired
+    private CertificateStatisticsStore certificateStatisticsStore;
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    private final Object deltasLock = new Object();
+    private Map<String, Map<String, Long>> pendingDeltas = new HashMap<>();
+
+    // refresh and application of the counted changes run on the shared scheduler and must not overlap
+    private final Object storeLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        if (refreshInterval > 0) {
+            taskScheduler.scheduleWithFixedDelay(this::refresh, Instant.now().plusMillis(refreshInterval), Duration.ofMillis(refreshInterval));
+        }
+        if (incremental) {
+            taskScheduler.scheduleWithFixedDelay(this::flushDeltas, Instant.now().plusMillis(flushInterval), Duration.ofMillis(flushInterval));
+        }
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Request the refresh of the statistics. When called in a transaction, the statistics are refreshed after the
+     * transaction commits. Requests are coalesced while the refresh is waiting to be executed.
+     */
+    public void requestRefresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queueRefresh();
+                }
+            });
+        } else {
+            queueRefresh();
+        }
+    }
+
+    /**
+     * Count the change of the certificate in the incremental mode
+     * @param oldLabels Values of the statistics dimensions before the change or null when the certificate was created
+     * @param newLabels Values of the statistics dimensions after the change or null when the certificate was removed
+     */
+    public void recordChange(Map<String, String> oldLabels, Map<String, String> newLabels) {
+        if (!incremental) {
+            return;
+        }
+        Map<String, Map<String, Long>> deltas = getTransactionDeltas();
+        Set<String> dimensions = new HashSet<>();
+        if (oldLabels != null) dimensions.addAll(oldLabels.keySet());
+        if (newLabels != null) dimensions.addAll(newLabels.keySet());
+        for (String dimension : dimensions) {
+            String oldLabel = oldLabels != null ? oldLabels.get(dimension) : null;
+            String newLabel = newLabels != null ? newLabels.get(dimension) : null;
+            if (Objects.equals(oldLabel, newLabel)) {
+                continue;
+            }
+            if (oldLabel != null) {
+                addDelta(deltas, dimension, oldLabel, -1);
+            }
+            if (newLabel != null) {
+                addDelta(deltas, dimension, newLabel, 1);
+            }
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addPendingDeltas(deltas);
+        }
+    }
+
+    private Map<String, Map<String, Long>> getTransactionDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new HashMap<>();
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Long>> deltas = (Map<String, Map<String, Long>>) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            Map<String, Map<String, Long>> transactionDeltas = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, transactionDeltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addPendingDeltas(transactionDeltas);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CertificateStatisticsRefresher.this);
+                }
+            });
+            deltas = transactionDeltas;
+        }
+        return deltas;
+    }
+
+    private void addPendingDeltas(Map<String, Map<String, Long>> deltas) {
+        synchronized (deltasLock) {
+            for (Map.Entry<String, Map<String, Long>> dimension : deltas.entrySet()) {
+                for (Map.Entry<String, Long> delta : dimension.getValue().entrySet()) {
+                    addDelta(pendingDeltas, dimension.getKey(), delta.getKey(), delta.getValue());
+                }
+            }
+        }
+    }
+
+    private void addDelta(Map<String, Map<String, Long>> deltas, String dimension, String label, long delta) {
+        deltas.computeIfAbsent(dimension, k -> new HashMap<>()).merge(label, delta, Long::sum);
+    }
+
+    private void queueRefresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            taskScheduler.execute(this::refresh);
+        }
+    }
+
+    private void refresh() {
+        synchronized (storeLock) {
+            refreshQueued.set(false);
+            try {
+                // changes counted so far are included in the refreshed statistics
+                synchronized (deltasLock) {
+                    pendingDeltas = new HashMap<>();
+                }
+                certificateStatisticsStore.refresh();
+            } catch (Exception e) {
+                logger.warn("Failed to refresh certificate statistics: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void flushDeltas() {
+        synchronized (storeLock) {
+            Map<String, Map<String, Long>> deltas;
+            synchronized (deltasLock) {
+                if (pendingDeltas.isEmpty()) {
+                    return;
+                }
+                deltas = pendingDeltas;
+                pendingDeltas = new HashMap<>();
+            }
+            try {
+                if (certificateStatisticsStore.load() == null) {
+                    // statistics were not materialized yet, the refresh includes the changes
+                    certificateStatisticsStore.refresh();
+                } else {
+                    certificateStatisticsStore.apply(deltas);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to update certificate statistics, statistics will be refreshed: {}", e.getMessage());
+                queueRefresh();
+            }
+        }
+    }
+}
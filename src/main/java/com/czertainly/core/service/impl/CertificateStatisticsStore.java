@@ -0,0 +1,255 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.certificate.CertificateStatus;
+import com.czertainly.api.model.core.certificate.CertificateType;
+import com.czertainly.api.model.core.compliance.ComplianceStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateStatistic;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.dao.repository.CertificateStatisticRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materialized statistics of the certificates used by the dashboard. Number of certificates for each value of every
+ * statistics dimension is stored in the certificate_statistic table, so reading the statistics does not depend on
+ * the number of certificates in the inventory.
+ */
+@Component
+@Transactional
+public class CertificateStatisticsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateStatisticsStore.class);
+
+    public static final String TOTAL = "total";
+    public static final String GROUP = "group";
+    public static final String RA_PROFILE = "raProfile";
+    public static final String TYPE = "type";
+    public static final String KEY_SIZE = "keySize";
+    public static final String BASIC_CONSTRAINTS = "basicConstraints";
+    public static final String STATUS = "status";
+    public static final String COMPLIANCE_STATUS = "complianceStatus";
+    public static final String EXPIRY = "expiry";
+
+    public static final int[] EXPIRY_IN_DAYS = {10, 20, 30, 60, 90};
+
+    private static final String COMPLIANCE_NOT_CHECKED = "NA";
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertificateStatisticRepository certificateStatisticRepository;
+
+    /**
+     * Load the materialized statistics
+     * @return Statistics or null when the statistics were not materialized yet
+     */
+    public StatisticsSnapshot load() {
+        List<CertificateStatistic> statistics = certificateStatisticRepository.findAll();
+        if (statistics.isEmpty()) {
+            return null;
+        }
+        return toSnapshot(statistics);
+    }
+
+    /**
+     * Compute the statistics from the certificates without storing them
+     * @return Current statistics
+     */
+    public StatisticsSnapshot compute() {
+        return toSnapshot(computeStatistics(new Date()));
+    }
+
+    /**
+     * Compute the statistics from the certificates and replace the materialized statistics
+     * @return Current statistics
+     */
+    public StatisticsSnapshot refresh() {
+        long start = System.currentTimeMillis();
+        List<CertificateStatistic> statistics = computeStatistics(new Date());
+        certificateStatisticRepository.deleteAllInBatch();
+        certificateStatisticRepository.saveAll(statistics);
+        logger.debug("Certificate statistics refreshed in {} ms", System.currentTimeMillis() - start);
+        return toSnapshot(statistics);
+    }
+
+    /**
+     * Apply the changes of the number of certificates to the materialized statistics
+     * @param deltas Changes of the number of certificates by the dimension and its value
+     */
+    public void apply(Map<String, Map<String, Long>> deltas) {
+        Date now = new Date();
+        for (Map.Entry<String, Map<String, Long>> dimension : deltas.entrySet()) {
+            for (Map.Entry<String, Long> delta : dimension.getValue().entrySet()) {
+                if (delta.getValue() == 0) {
+                    continue;
+                }
+                if (certificateStatisticRepository.incrementCertificateCount(dimension.getKey(), delta.getKey(), delta.getValue(), now) == 0) {
+                    certificateStatisticRepository.save(createStatistic(dimension.getKey(), delta.getKey(), delta.getValue(), now));
+                }
+            }
+        }
+        // total is always touched, so its time says when the statistics were last updated
+        certificateStatisticRepository.incrementCertificateCount(TOTAL, TOTAL, 0, now);
+        certificateStatisticRepository.deleteEmptyExceptDimension(TOTAL);
+    }
+
+    /**
+     * Get the values of the statistics dimensions of the certificate
+     * @param certificate Certificate
+     * @return Values of the dimensions by the dimension, dimensions without value are not included
+     */
+    public static Map<String, String> getLabels(Certificate certificate) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(TOTAL, TOTAL);
+        if (certificate.getGroup() != null) {
+            labels.put(GROUP, String.valueOf(certificate.getGroup().getId()));
+        }
+        if (certificate.getRaProfile() != null) {
+            labels.put(RA_PROFILE, String.valueOf(certificate.getRaProfile().getId()));
+        }
+        if (certificate.getCertificateType() != null) {
+            labels.put(TYPE, certificate.getCertificateType().toString());
+        }
+        if (certificate.getKeySize() != null) {
+            labels.put(KEY_SIZE, certificate.getKeySize().toString());
+        }
+        if (certificate.getBasicConstraints() != null) {
+            labels.put(BASIC_CONSTRAINTS, certificate.getBasicConstraints());
+        }
+        if (certificate.getStatus() != null) {
+            labels.put(STATUS, certificate.getStatus().toString());
+        }
+        labels.put(COMPLIANCE_STATUS, certificate.getComplianceStatus() != null
+                ? certificate.getComplianceStatus().toString() : COMPLIANCE_NOT_CHECKED);
+        if (certificate.getNotAfter() != null) {
+            LocalDateTime today = LocalDateTime.now();
+            Date notAfterFrom = java.sql.Timestamp.valueOf(today);
+            for (int days : EXPIRY_IN_DAYS) {
+                Date notAfterTo = java.sql.Timestamp.valueOf(today.plusDays(days));
+                if (certificate.getNotAfter().after(notAfterFrom) && !certificate.getNotAfter().after(notAfterTo)) {
+                    labels.put(EXPIRY, Integer.toString(days));
+                    break;
+                }
+                notAfterFrom = notAfterTo;
+            }
+        }
+        return labels;
+    }
+
+    private List<CertificateStatistic> computeStatistics(Date now) {
+        LocalDateTime today = LocalDateTime.now();
+        Date[] expiryBounds = new Date[EXPIRY_IN_DAYS.length];
+        for (int i = 0; i < EXPIRY_IN_DAYS.length; i++) {
+            expiryBounds[i] = java.sql.Timestamp.valueOf(today.plusDays(EXPIRY_IN_DAYS[i]));
+        }
+        List<Object[]> result = certificateRepository.getCertificatesCountByStatisticsDimensions(java.sql.Timestamp.valueOf(today),
+                expiryBounds[0], expiryBounds[1], expiryBounds[2], expiryBounds[3], expiryBounds[4]);
+
+        // counts of the combinations of the dimensions are summed up for each dimension
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        long total = 0;
+        for (Object[] item : result) {
+            long count = ((Number) item[8]).longValue();
+            total += count;
+            addCount(counts, GROUP, item[0] != null ? Long.toString(((Number) item[0]).longValue()) : null, count);
+            addCount(counts, RA_PROFILE, item[1] != null ? Long.toString(((Number) item[1]).longValue()) : null, count);
+            addCount(counts, TYPE, getEnumLabel(CertificateType.class, item[2]), count);
+            addCount(counts, KEY_SIZE, item[3] != null ? Integer.toString(((Number) item[3]).intValue()) : null, count);
+            addCount(counts, BASIC_CONSTRAINTS, (String) item[4], count);
+            addCount(counts, STATUS, getEnumLabel(CertificateStatus.class, item[5]), count);
+            addCount(counts, COMPLIANCE_STATUS, item[6] != null ? getEnumLabel(ComplianceStatus.class, item[6]) : COMPLIANCE_NOT_CHECKED, count);
+            int expiryBucket = ((Number) item[7]).intValue();
+            addCount(counts, EXPIRY, expiryBucket > 0 ? Integer.toString(EXPIRY_IN_DAYS[expiryBucket - 1]) : null, count);
+        }
+
+        List<CertificateStatistic> statistics = new ArrayList<>();
+        statistics.add(createStatistic(TOTAL, TOTAL, total, now));
+        for (Map.Entry<String, Map<String, Long>> dimension : counts.entrySet()) {
+            for (Map.Entry<String, Long> count : dimension.getValue().entrySet()) {
+                statistics.add(createStatistic(dimension.getKey(), count.getKey(), count.getValue(), now));
+            }
+        }
+        for (int days : EXPIRY_IN_DAYS) {
+            if (!counts.getOrDefault(EXPIRY, Collections.emptyMap()).containsKey(Integer.toString(days))) {
+                statistics.add(createStatistic(EXPIRY, Integer.toString(days), 0, now));
+            }
+        }
+        return statistics;
+    }
+
+    private void addCount(Map<String, Map<String, Long>> counts, String dimension, String label, long count) {
+        if (label != null) {
+            counts.computeIfAbsent(dimension, k -> new HashMap<>()).merge(label, count, Long::sum);
+        }
+    }
+
+    private <E extends Enum<E>> String getEnumLabel(Class<E> enumClass, Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(enumClass, value.toString()).toString();
+        } catch (IllegalArgumentException e) {
+            return value.toString();
+        }
+    }
+
+    private CertificateStatistic createStatistic(String dimension, String label, long count, Date now) {
+        CertificateStatistic statistic = new CertificateStatistic();
+        statistic.setDimension(dimension);
+        statistic.setLabel(label);
+        statistic.setCertificateCount(count);
+        statistic.setRefreshedAt(now);
+        return statistic;
+    }
+
+    private StatisticsSnapshot toSnapshot(List<CertificateStatistic> statistics) {
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        Date refreshedAt = null;
+        for (CertificateStatistic statistic : statistics) {
+            counts.computeIfAbsent(statistic.getDimension(), k -> new HashMap<>())
+                    .merge(statistic.getLabel(), statistic.getCertificateCount(), Long::sum);
+            if (TOTAL.equals(statistic.getDimension())) {
+                refreshedAt = statistic.getRefreshedAt();
+            }
+        }
+        return new StatisticsSnapshot(counts, refreshedAt);
+    }
+
+    /**
+     * Number of certificates by the statistics dimension and its value
+     */
+    public static final class StatisticsSnapshot {
+        private final Map<String, Map<String, Long>> counts;
+        private final Date refreshedAt;
+
+        private StatisticsSnapshot(Map<String, Map<String, Long>> counts, Date refreshedAt) {
+            this.counts = counts;
+            this.refreshedAt = refreshedAt;
+        }
+
+        public long getTotal() {
+            return getCounts(TOTAL).getOrDefault(TOTAL, 0L);
+        }
+
+        public Map<String, Long> getCounts(String dimension) {
+            return counts.getOrDefault(dimension, Collections.emptyMap());
+        }
+
+        public Date getRefreshedAt() {
+            return refreshedAt;
+        }
+    }
+}
@@ -20,7 +20,6 @@ import com.czertainly.api.model.core.connector.ConnectorStatus;
 import com.czertainly.api.model.core.connector.FunctionGroupCode;
 import com.czertainly.api.model.core.connector.FunctionGroupDto;
 import com.czertainly.core.aop.AuditLogged;
-import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.ComplianceGroup;
 import com.czertainly.core.dao.entity.ComplianceProfile;
 import com.czertainly.core.dao.entity.ComplianceProfileRule;
@@ -396,13 +395,9 @@ public class ComplianceProfileServiceImpl implements ComplianceProfileService {
                     raProfile.getComplianceProfiles().remove(complianceProfile);
                 }
             }
-            if (raProfile.getComplianceProfiles() != null || raProfile.getComplianceProfiles().isEmpty()) {
-                List<Certificate> certificates = certificateService.listCertificatesForRaProfile(raProfile);
-                for (Certificate certificate : certificates) {
-                    certificate.setComplianceResult(null);
-                    certificate.setComplianceStatus(null);
-                    certificateService.updateCertificateEntity(certificate);
-                }
+            if (raProfile.getComplianceProfiles() == null || raProfile.getComplianceProfiles().isEmpty()) {
+                int updated = certificateService.resetComplianceForRaProfile(raProfile);
+                logger.debug("Compliance result removed for {} certificates of RA Profile: {}", updated, raProfile.getName());
             } else {
                 try {
                     complianceService.complianceCheckForRaProfile(raProfileUuid);
@@ -418,34 +413,21 @@ public class ComplianceProfileServiceImpl implements ComplianceProfileService {
     public Set<String> isComplianceProviderAssociated(Connector connector) {
         Set<String> errors = new HashSet<>();
         //Check if the connector is being used in any of the compliance profile groups
-        for (ComplianceProfile complianceProfile : complianceProfileRepository.findAll()) {
-            if (complianceProfile.getGroups().stream().map(ComplianceGroup::getConnector).collect(Collectors.toList()).contains(connector)) {
-                errors.add(complianceProfile.getName());
-            }
-        }
-        //Check if the connector is being used in any of the compliance group association
-        for (ComplianceProfileRule complianceProfileRule : complianceProfileRuleRepository.findAll()) {
-            if (complianceProfileRule.getComplianceRule().getConnector().getUuid().equals(connector.getUuid())) {
-                errors.add(complianceProfileRule.getComplianceProfile().getName());
-            }
-        }
+        errors.addAll(complianceProfileRepository.findNamesByGroupConnector(connector));
+        //Check if the connector is being used in any of the compliance profile rules
+        errors.addAll(complianceProfileRuleRepository.findComplianceProfileNamesByConnector(connector));
         return errors;
     }
 
     @Override
     public void nullifyComplianceProviderAssociation(Connector connector) {
         //Delete all the group association for a connector
-        for (ComplianceProfile complianceProfile : complianceProfileRepository.findAll()) {
-            if (complianceProfile.getGroups().stream().map(ComplianceGroup::getConnector).collect(Collectors.toList()).contains(connector)) {
-                complianceProfile.getGroups().removeAll(complianceProfile.getGroups().stream().filter(r -> r.getConnector().getUuid().equals(connector.getUuid())).collect(Collectors.toSet()));
-            }
+        for (ComplianceProfile complianceProfile : complianceProfileRepository.findByGroupConnector(connector)) {
+            complianceProfile.getGroups().removeIf(r -> r.getConnector().getUuid().equals(connector.getUuid()));
         }
         //delete all the rule association for the connector
-        for (ComplianceProfileRule complianceProfileRule : complianceProfileRuleRepository.findAll()) {
-            if (complianceProfileRule.getComplianceRule().getConnector().getUuid().equals(connector.getUuid())) {
-                complianceProfileRuleRepository.delete(complianceProfileRule);
-            }
-        }
+        int deleted = complianceProfileRuleRepository.deleteByConnector(connector);
+        logger.debug("Removed {} rule associations of the Connector: {}", deleted, connector.getName());
         //Delete all rules and Groups of the connector
         complianceRuleRepository.deleteAll(complianceRuleRepository.findByConnector(connector));
         complianceGroupRepository.deleteAll(complianceGroupRepository.findByConnector(connector));
@@ -0,0 +1,187 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.connector.compliance.ComplianceRequestRulesDto;
+import com.czertainly.api.model.connector.compliance.ComplianceResponseDto;
+import com.czertainly.core.util.SerializationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of the compliance results returned by the compliance providers. Result of the compliance check depends only on
+ * the certificate and the exact set of rules with their attributes sent to the provider, so the entries are keyed by
+ * the certificate fingerprint, connector, kind and hash of the canonical form of the rules. Responses are stored
+ * serialized, every hit returns a new copy, so the callers cannot change the cached result. When the cache is full,
+ * the oldest entries are evicted.
+ */
+@Component
+public class ComplianceResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComplianceResultCache.class);
+
+    // entries in the order of their insertion, guarded by the cache itself
+    private final Map<CacheKey, CacheEntry> cache = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // Time to live of the cached result in seconds. Value 0 disables the cache
+    @Value("${compliance.cache.ttl:3600}")
+    private long ttl;
+
+    @Value("${compliance.cache.maxEntries:10000}")
+    private int maxEntries;
+
+    /**
+     * Get the cached compliance response
+     * @param fingerprint Fingerprint of the certificate
+     * @param connectorUuid Uuid of the compliance provider
+     * @param kind Kind of the compliance provider
+     * @param rules Rules sent to the compliance provider
+     * @return Cached response or null when there is no valid entry
+     */
+    public ComplianceResponseDto get(String fingerprint, String connectorUuid, String kind, List<ComplianceRequestRulesDto> rules) {
+        if (!isEnabled() || fingerprint == null) {
+            return null;
+        }
+        CacheKey key = new CacheKey(fingerprint, connectorUuid, kind, computeRuleSetHash(rules));
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired()) {
+                cache.remove(key);
+                return null;
+            }
+        }
+        logger.debug("Using cached compliance result for certificate: {}, connector: {}", fingerprint, connectorUuid);
+        return (ComplianceResponseDto) SerializationUtil.deserialize(entry.response, ComplianceResponseDto.class);
+    }
+
+    /**
+     * Store the compliance response from the compliance provider
+     * @param fingerprint Fingerprint of the certificate
+     * @param connectorUuid Uuid of the compliance provider
+     * @param kind Kind of the compliance provider
+     * @param rules Rules sent to the compliance provider
+     * @param response Response from the compliance provider
+     */
+    public void put(String fingerprint, String connectorUuid, String kind, List<ComplianceRequestRulesDto> rules, ComplianceResponseDto response) {
+        if (!isEnabled() || fingerprint == null || response == null) {
+            return;
+        }
+        CacheKey key = new CacheKey(fingerprint, connectorUuid, kind, computeRuleSetHash(rules));
+        CacheEntry entry = new CacheEntry(SerializationUtil.serialize(response), System.currentTimeMillis() + ttl * 1000);
+        synchronized (cache) {
+            // replaced entry is moved to the end, so it is evicted as the newest one
+            cache.remove(key);
+            cache.put(key, entry);
+        }
+    }
+
+    /**
+     * Remove all the cached results of the compliance provider
+     * @param connectorUuid Uuid of the compliance provider
+     */
+    public void invalidateConnector(String connectorUuid) {
+        logger.debug("Invalidating cached compliance results for connector: {}", connectorUuid);
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.connectorUuid.equals(connectorUuid));
+        }
+    }
+
+    /**
+     * Remove all the cached results
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private boolean isEnabled() {
+        return ttl > 0 && maxEntries > 0;
+    }
+
+    private String computeRuleSetHash(List<ComplianceRequestRulesDto> rules) {
+        List<String> canonicalRules = new ArrayList<>();
+        for (ComplianceRequestRulesDto rule : rules) {
+            List<String> attributes = new ArrayList<>();
+            if (rule.getAttributes() != null) {
+                rule.getAttributes().forEach(attribute -> attributes.add(SerializationUtil.serialize(attribute)));
+                attributes.sort(String::compareTo);
+            }
+            canonicalRules.add(rule.getUuid() + ":" + String.join(",", attributes));
+        }
+        canonicalRules.sort(String::compareTo);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(String.join(";", canonicalRules).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CacheKey {
+        private final String fingerprint;
+        private final String connectorUuid;
+        private final String kind;
+        private final String ruleSetHash;
+
+        private CacheKey(String fingerprint, String connectorUuid, String kind, String ruleSetHash) {
+            this.fingerprint = fingerprint;
+            this.connectorUuid = connectorUuid;
+            this.kind = kind;
+            this.ruleSetHash = ruleSetHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return fingerprint.equals(cacheKey.fingerprint)
+                    && connectorUuid.equals(cacheKey.connectorUuid)
+                    && Objects.equals(kind, cacheKey.kind)
+                    && ruleSetHash.equals(cacheKey.ruleSetHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fingerprint, connectorUuid, kind, ruleSetHash);
+        }
+    }
+
+    private static final class CacheEntry {
+        private final String response;
+        private final long expiresAt;
+
+        private CacheEntry(String response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
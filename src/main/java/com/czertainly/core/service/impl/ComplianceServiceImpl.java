@@ -72,6 +72,9 @@ public class ComplianceServiceImpl implements ComplianceService {
     @Autowired
     private ComplianceRuleRepository complianceRuleRepository;
 
+    @Autowired
+    private ComplianceResultCache complianceResultCache;
+
     @Override
     public void addFetchGroupsAndRules(Connector connector) throws ConnectorException {
         logger.info("Fetching rules and groups for the Compliance Provider: {}", connector);
@@ -94,6 +97,7 @@ public class ComplianceServiceImpl implements ComplianceService {
             logger.info("Connector: {} does not implement Compliance Provider", connector.getName());
             return;
         }
+        complianceResultCache.invalidateConnector(connector.getUuid());
         for (String kind : functionGroupDto.getKinds()) {
             updateGroups(connector, kind);
             updateRules(connector, kind);
@@ -165,12 +169,17 @@ public class ComplianceServiceImpl implements ComplianceService {
                     setComplianceForCertificate(certificate.getUuid(), ComplianceStatus.NA, complianceResults);
                     return;
                 }
-                complianceRequestDto.setRules(getComplianceRequestRules(applicableRules));
-                ComplianceResponseDto responseDto = complianceApiClient.checkCompliance(
-                        getConnectorEntity(connector.getConnectorUuid()).mapToDto(),
-                        connector.getKind(),
-                        complianceRequestDto
-                );
+                List<ComplianceRequestRulesDto> requestRules = getComplianceRequestRules(applicableRules);
+                complianceRequestDto.setRules(requestRules);
+                ComplianceResponseDto responseDto = complianceResultCache.get(certificate.getFingerprint(), connector.getConnectorUuid(), connector.getKind(), requestRules);
+                if (responseDto == null) {
+                    responseDto = complianceApiClient.checkCompliance(
+                            getConnectorEntity(connector.getConnectorUuid()).mapToDto(),
+                            connector.getKind(),
+                            complianceRequestDto
+                    );
+                    complianceResultCache.put(certificate.getFingerprint(), connector.getConnectorUuid(), connector.getKind(), requestRules, responseDto);
+                }
                 logger.debug("Certificate Compliance Response from Connector: {}", responseDto);
 
                 for (ComplianceResponseRulesDto rule : responseDto.getRules()) {
@@ -276,32 +285,53 @@ public class ComplianceServiceImpl implements ComplianceService {
         logger.info("Adding groups for the Connector: {}, Kind: {}", connector.getName(), kind);
         List<ComplianceGroupsResponseDto> groups = complianceApiClient.getComplianceGroups(connector.mapToDto(), kind);
         logger.debug("Compliance Groups: {}", groups);
-        List<String> groupUuids = groups.stream().map(ComplianceGroupsResponseDto::getUuid).collect(Collectors.toList());
-        if (groupUuids.size() > new HashSet<>(groupUuids).size()) {
-            logger.error("Duplicate UUIDs found from the connector: UUIDs: {}", groupUuids);
-            throw new ValidationException(ValidationError.create("Compliance Groups from the connector contains duplicate UUIDs. UUIDs should be unique across the groups"));
-        }
+        validateUniqueGroups(groups);
+        List<ComplianceGroup> complianceGroups = new ArrayList<>();
         for (ComplianceGroupsResponseDto group : groups) {
             logger.debug("Saving group: {}", group);
-            saveComplianceGroup(frameComplianceGroup(connector, kind, group));
+            complianceGroups.add(frameComplianceGroup(connector, kind, group));
         }
+        complianceGroupRepository.saveAll(complianceGroups);
         logger.info("Groups for the connector: {} added", connector.getName());
     }
 
     private void addRules(Connector connector, String kind) throws ConnectorException {
         logger.info("Adding rules for the Connector: {}, Kind: {}", connector.getName(), kind);
         List<ComplianceRulesResponseDto> rules = complianceApiClient.getComplianceRules(connector.mapToDto(), kind, List.of());
-        logger.debug("Compliance Groups: {}", rules);
+        logger.debug("Compliance Rules: {}", rules);
+        validateUniqueRules(rules);
+        Map<String, ComplianceGroup> groups = getComplianceGroupsMap(connector, kind);
+        List<ComplianceRule> complianceRules = new ArrayList<>();
+        for (ComplianceRulesResponseDto rule : rules) {
+            logger.debug("Saving rule: {}", rule);
+            complianceRules.add(frameComplianceRule(connector, kind, rule, groups));
+        }
+        complianceRuleRepository.saveAll(complianceRules);
+        logger.info("Rules for the connector: {} saved", connector.getName());
+    }
+
+    private void validateUniqueGroups(List<ComplianceGroupsResponseDto> groups) {
+        List<String> groupUuids = groups.stream().map(ComplianceGroupsResponseDto::getUuid).collect(Collectors.toList());
+        if (groupUuids.size() > new HashSet<>(groupUuids).size()) {
+            logger.error("Duplicate UUIDs found from the connector: UUIDs: {}", groupUuids);
+            throw new ValidationException(ValidationError.create("Compliance Groups from the connector contains duplicate UUIDs. UUIDs should be unique across the groups"));
+        }
+    }
+
+    private void validateUniqueRules(List<ComplianceRulesResponseDto> rules) {
         List<String> ruleUuids = rules.stream().map(ComplianceRulesResponseDto::getUuid).collect(Collectors.toList());
         if (ruleUuids.size() > new HashSet<>(ruleUuids).size()) {
-            logger.error("Duplicate UUIDs found from the connector: UUIDs: {}", rules);
+            logger.error("Duplicate UUIDs found from the connector: UUIDs: {}", ruleUuids);
             throw new ValidationException(ValidationError.create("Compliance Rules from the connector contains duplicate UUIDs. UUIDs should be unique across the rules"));
         }
-        for (ComplianceRulesResponseDto rule : rules) {
-            logger.debug("Saving group: {}", rule);
-            saveComplianceRule(frameComplianceRule(connector, kind, rule));
+    }
+
+    private Map<String, ComplianceGroup> getComplianceGroupsMap(Connector connector, String kind) {
+        Map<String, ComplianceGroup> groups = new HashMap<>();
+        for (ComplianceGroup group : complianceGroupRepository.findByConnectorAndKind(connector, kind)) {
+            groups.put(group.getUuid(), group);
         }
-        logger.info("Rules for the connector: {} saved", connector.getName());
+        return groups;
     }
 
     private ComplianceGroup frameComplianceGroup(Connector connector, String kind, ComplianceGroupsResponseDto group) {
@@ -316,7 +346,7 @@ public class ComplianceServiceImpl implements ComplianceService {
         return complianceGroup;
     }
 
-    private ComplianceRule frameComplianceRule(Connector connector, String kind, ComplianceRulesResponseDto rule) throws NotFoundException {
+    private ComplianceRule frameComplianceRule(Connector connector, String kind, ComplianceRulesResponseDto rule, Map<String, ComplianceGroup> groups) {
         ComplianceRule complianceRule = new ComplianceRule();
         complianceRule.setConnector(connector);
         complianceRule.setDescription(rule.getDescription());
@@ -326,92 +356,87 @@ public class ComplianceServiceImpl implements ComplianceService {
         complianceRule.setDecommissioned(false);
         complianceRule.setCertificateType(rule.getCertificateType());
         complianceRule.setAttributes(rule.getAttributes());
-        if (rule.getGroupUuid() != null && !rule.getGroupUuid().isEmpty()) {
-            if (complianceGroupExists(rule.getGroupUuid(), connector, kind)) {
-                complianceRule.setGroup(getComplianceGroupEntity(rule.getGroupUuid(), connector, kind));
-            } else {
-                logger.warn("Compliance Rule: {}, tags unknown group:{}", rule.getUuid(), rule.getGroupUuid());
-            }
-        }
+        complianceRule.setGroup(resolveComplianceGroup(rule, groups));
         logger.debug("Compliance Rule DAO: {}", complianceRule);
         return complianceRule;
     }
 
+    private ComplianceGroup resolveComplianceGroup(ComplianceRulesResponseDto rule, Map<String, ComplianceGroup> groups) {
+        if (rule.getGroupUuid() == null || rule.getGroupUuid().isEmpty()) {
+            return null;
+        }
+        ComplianceGroup group = groups.get(rule.getGroupUuid());
+        if (group == null) {
+            logger.warn("Compliance Rule: {}, tags unknown group:{}", rule.getUuid(), rule.getGroupUuid());
+        }
+        return group;
+    }
+
     private void updateGroups(Connector connector, String kind) throws ConnectorException {
         logger.info("Updating Compliance Group for: {}", connector);
         List<ComplianceGroupsResponseDto> groups = complianceApiClient.getComplianceGroups(connector.mapToDto(), kind);
-        List<String> groupUuids = groups.stream().map(ComplianceGroupsResponseDto::getUuid).collect(Collectors.toList());
-        decommUnavailableGroups(groupUuids, connector, kind);
-        updateGroups(connector, kind, groups);
+        validateUniqueGroups(groups);
+        Map<String, ComplianceGroup> currentGroups = getComplianceGroupsMap(connector, kind);
 
-    }
-
-    private void decommUnavailableGroups(List<String> groups, Connector connector, String kind) throws NotFoundException {
-        logger.info("Preparing the decommision process for the groups that are removed from connector: {}", connector);
-        List<String> currentGroupsInDatabase = complianceGroupRepository.findAll().stream().map(ComplianceGroup::getUuid).collect(Collectors.toList());
-        currentGroupsInDatabase.removeAll(groups);
-        for (String currentGroupUuid : currentGroupsInDatabase) {
-            ComplianceGroup complianceGroup = getComplianceGroupEntity(currentGroupUuid, connector, kind);
-            logger.debug("Group: {} no longer available", complianceGroup);
-            complianceGroup.setDecommissioned(true);
-            saveComplianceGroup(complianceGroup);
-        }
-    }
-
-    private void updateGroups(Connector connector, String kind, List<ComplianceGroupsResponseDto> groups) throws NotFoundException {
+        List<ComplianceGroup> changedGroups = new ArrayList<>();
         for (ComplianceGroupsResponseDto group : groups) {
-            if (!complianceGroupExists(group.getUuid(), connector, kind)) {
-                saveComplianceGroup(frameComplianceGroup(connector, kind, group));
-            } else {
+            ComplianceGroup complianceGroup = currentGroups.remove(group.getUuid());
+            if (complianceGroup == null) {
                 logger.debug("New group found. Adding group: {}", group);
-                ComplianceGroup complianceGroup = getComplianceGroupEntity(group.getUuid(), connector, kind);
+                changedGroups.add(frameComplianceGroup(connector, kind, group));
+            } else {
                 complianceGroup.setName(group.getName());
                 complianceGroup.setDescription(group.getDescription());
-                saveComplianceGroup(complianceGroup);
+                complianceGroup.setDecommissioned(false);
+                changedGroups.add(complianceGroup);
+            }
+        }
+        // groups which are left in the map are no longer provided by the connector
+        logger.info("Preparing the decommission process for the groups that are removed from connector: {}", connector);
+        for (ComplianceGroup complianceGroup : currentGroups.values()) {
+            if (!Boolean.TRUE.equals(complianceGroup.getDecommissioned())) {
+                logger.debug("Group: {} no longer available", complianceGroup);
+                complianceGroup.setDecommissioned(true);
+                changedGroups.add(complianceGroup);
             }
         }
+        complianceGroupRepository.saveAll(changedGroups);
     }
 
     private void updateRules(Connector connector, String kind) throws ConnectorException {
         logger.info("Updating Compliance Rules for: {}", connector);
         List<ComplianceRulesResponseDto> rules = complianceApiClient.getComplianceRules(connector.mapToDto(), kind, List.of());
-        List<String> ruleUuids = rules.stream().map(ComplianceRulesResponseDto::getUuid).collect(Collectors.toList());
-        decommUnavailableRules(ruleUuids, connector, kind);
-        updateRules(connector, kind, rules);
-
-    }
-
-    private void decommUnavailableRules(List<String> rules, Connector connector, String kind) throws NotFoundException {
-        logger.info("Preparing the decommision process for the rules that are removed from connector: {}", connector);
-        List<String> currentRulesInDatabase = complianceRuleRepository.findAll().stream().map(ComplianceRule::getUuid).collect(Collectors.toList());
-        currentRulesInDatabase.removeAll(rules);
-        for (String currentRuleUuid : currentRulesInDatabase) {
-            ComplianceRule complianceRule = getComplianceRuleEntity(currentRuleUuid, connector, kind);
-            logger.debug("Rule: {} no longer available", complianceRule);
-            complianceRule.setDecommissioned(true);
-            saveComplianceRule(complianceRule);
+        validateUniqueRules(rules);
+        Map<String, ComplianceGroup> groups = getComplianceGroupsMap(connector, kind);
+        Map<String, ComplianceRule> currentRules = new HashMap<>();
+        for (ComplianceRule complianceRule : complianceRuleRepository.findByConnectorAndKind(connector, kind)) {
+            currentRules.put(complianceRule.getUuid(), complianceRule);
         }
-    }
 
-    private void updateRules(Connector connector, String kind, List<ComplianceRulesResponseDto> rules) throws NotFoundException {
+        List<ComplianceRule> changedRules = new ArrayList<>();
         for (ComplianceRulesResponseDto rule : rules) {
-            if (!complianceRuleExists(rule.getUuid(), connector, kind)) {
-                saveComplianceRule(frameComplianceRule(connector, kind, rule));
+            ComplianceRule complianceRule = currentRules.remove(rule.getUuid());
+            if (complianceRule == null) {
+                changedRules.add(frameComplianceRule(connector, kind, rule, groups));
             } else {
-                ComplianceRule complianceRule = getComplianceRuleEntity(rule.getUuid(), connector, kind);
                 complianceRule.setName(rule.getName());
                 complianceRule.setDescription(rule.getDescription());
                 complianceRule.setCertificateType(rule.getCertificateType());
-                if (rule.getGroupUuid() != null && !rule.getGroupUuid().isEmpty()) {
-                    if (complianceGroupExists(rule.getUuid(), connector, kind)) {
-                        complianceRule.setGroup(getComplianceGroupEntity(rule.getUuid(), connector, kind));
-                    } else {
-                        logger.warn("Compliance Rule: {}, tags unknown group:{}", rule.getUuid(), rule.getGroupUuid());
-                    }
-                }
-                saveComplianceRule(complianceRule);
+                complianceRule.setGroup(resolveComplianceGroup(rule, groups));
+                complianceRule.setDecommissioned(false);
+                changedRules.add(complianceRule);
+            }
+        }
+        // rules which are left in the map are no longer provided by the connector
+        logger.info("Preparing the decommission process for the rules that are removed from connector: {}", connector);
+        for (ComplianceRule complianceRule : currentRules.values()) {
+            if (!Boolean.TRUE.equals(complianceRule.getDecommissioned())) {
+                logger.debug("Rule: {} no longer available", complianceRule);
+                complianceRule.setDecommissioned(true);
+                changedRules.add(complianceRule);
             }
         }
+        complianceRuleRepository.saveAll(changedRules);
     }
 
     private Connector getConnectorEntity(String uuid) throws NotFoundException {
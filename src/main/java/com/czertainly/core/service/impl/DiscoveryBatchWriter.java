@@ -0,0 +1,171 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.certificate.CertificateEvent;
+import com.czertainly.api.model.core.certificate.CertificateEventStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
+import com.czertainly.core.dao.entity.CertificateEventHistory;
+import com.czertainly.core.dao.entity.DiscoveryCertificate;
+import com.czertainly.core.dao.entity.DiscoveryHistory;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.dao.repository.DiscoveryCertificateRepository;
+import com.czertainly.core.service.CertificateEventHistoryService;
+import com.czertainly.core.service.impl.DiscoveryIngestionPipeline.DiscoveredCertificate;
+import com.czertainly.core.util.MetaDefinitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the batches of the discovered certificates. Existing certificates and contents are resolved for the whole
+ * batch by their fingerprints and all the new rows are inserted with batched statements.
+ */
+@Component
+@Transactional
+public class DiscoveryBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryBatchWriter.class);
+
+    private static final String DISCOVERY_SOURCE = "discoverySource";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+    @Autowired
+    private DiscoveryCertificateRepository discoveryCertificateRepository;
+    @Autowired
+    private CertificateEventHistoryService certificateEventHistoryService;
+
+    /**
+     * Store the batch of the discovered certificates
+     * @param discovery Discovery the certificates belong to
+     * @param batch Parsed discovered certificates
+     * @return Ids of the stored certificates
+     */
+    public List<Long> writeBatch(DiscoveryHistory discovery, List<DiscoveredCertificate> batch) {
+        Map<String, DiscoveredCertificate> discovered = new LinkedHashMap<>();
+        List<DiscoveryCertificate> discoveryCertificates = new ArrayList<>();
+        for (DiscoveredCertificate certificate : batch) {
+            if (discovered.containsKey(certificate.getFingerprint())) {
+                continue;
+            }
+            if (certificate.isUnchanged()) {
+                // certificate discovered by the previous run is only recorded as discovered again
+                discoveryCertificates.add(createDiscoveryCertificate(certificate.getKnownCertificate(), discovery));
+            }
+            discovered.put(certificate.getFingerprint(), certificate);
+        }
+        discovered.values().removeIf(DiscoveredCertificate::isUnchanged);
+
+        Map<String, Certificate> existingCertificates = certificateRepository.findByFingerprintIn(discovered.keySet())
+                .stream().collect(Collectors.toMap(Certificate::getFingerprint, Function.identity(), (a, b) -> a));
+        Map<String, CertificateContent> contents = certificateContentRepository.findByFingerprintIn(discovered.keySet())
+                .stream().collect(Collectors.toMap(CertificateContent::getFingerprint, Function.identity(), (a, b) -> a));
+
+        List<CertificateContent> newContents = new ArrayList<>();
+        for (DiscoveredCertificate certificate : discovered.values()) {
+            if (!existingCertificates.containsKey(certificate.getFingerprint()) && !contents.containsKey(certificate.getFingerprint())) {
+                CertificateContent content = new CertificateContent();
+                content.setFingerprint(certificate.getFingerprint());
+                content.setContent(certificate.getContent());
+                contents.put(certificate.getFingerprint(), content);
+                newContents.add(content);
+            }
+        }
+        certificateContentRepository.saveAll(newContents);
+
+        List<Certificate> certificates = new ArrayList<>();
+        List<CertificateEventHistory> histories = new ArrayList<>();
+        for (DiscoveredCertificate discoveredCertificate : discovered.values()) {
+            Certificate certificate = existingCertificates.get(discoveredCertificate.getFingerprint());
+            if (certificate == null) {
+                certificate = discoveredCertificate.getCertificate();
+                certificate.setCertificateContent(contents.get(discoveredCertificate.getFingerprint()));
+            }
+            updateMeta(certificate, discoveredCertificate.getMeta());
+            certificates.add(certificate);
+            discoveryCertificates.add(createDiscoveryCertificate(certificate, discovery));
+
+            Map<String, Object> additionalInfo = new HashMap<>();
+            additionalInfo.put("Discovery Connector Name", discovery.getConnectorName());
+            additionalInfo.put("Discovery Kind", discovery.getKind());
+            additionalInfo.putAll(discoveredCertificate.getMeta());
+            histories.add(certificateEventHistoryService.getEventHistory(CertificateEvent.DISCOVERY, CertificateEventStatus.SUCCESS,
+                    "Discovered from Connector: " + discovery.getConnectorName(), MetaDefinitions.serialize(additionalInfo), certificate));
+        }
+        certificateRepository.saveAll(certificates);
+        discoveryCertificateRepository.saveAll(discoveryCertificates);
+        certificateEventHistoryService.addEventHistories(histories);
+
+        List<Long> certificateIds = certificates.stream().map(Certificate::getId).collect(Collectors.toList());
+
+        // release the written entities so the persistence context does not grow with the discovery
+        entityManager.flush();
+        entityManager.clear();
+
+        logger.debug("Stored batch of {} discovered certificates, {} new contents, {} unchanged certificates",
+                certificates.size(), newContents.size(), discoveryCertificates.size() - certificates.size());
+        return certificateIds;
+    }
+
+    private DiscoveryCertificate createDiscoveryCertificate(Certificate entry, DiscoveryHistory modal) {
+        DiscoveryCertificate discoveryCertificate = new DiscoveryCertificate();
+        discoveryCertificate.setCommonName(entry.getCommonName());
+        discoveryCertificate.setSerialNumber(entry.getSerialNumber());
+        discoveryCertificate.setIssuerCommonName(entry.getIssuerCommonName());
+        discoveryCertificate.setNotAfter(entry.getNotAfter());
+        discoveryCertificate.setNotBefore(entry.getNotBefore());
+        discoveryCertificate.setCertificateContent(entry.getCertificateContent());
+        discoveryCertificate.setDiscovery(modal);
+        return discoveryCertificate;
+    }
+
+    private DiscoveryCertificate createDiscoveryCertificate(DiscoveryDeltaResolver.KnownCertificate knownCertificate, DiscoveryHistory modal) {
+        DiscoveryCertificate discoveryCertificate = new DiscoveryCertificate();
+        discoveryCertificate.setCommonName(knownCertificate.getCommonName());
+        discoveryCertificate.setSerialNumber(knownCertificate.getSerialNumber());
+        discoveryCertificate.setIssuerCommonName(knownCertificate.getIssuerCommonName());
+        discoveryCertificate.setNotAfter(knownCertificate.getNotAfter());
+        discoveryCertificate.setNotBefore(knownCertificate.getNotBefore());
+        discoveryCertificate.setCertificateContent(entityManager.getReference(CertificateContent.class, knownCertificate.getCertificateContentId()));
+        discoveryCertificate.setDiscovery(modal);
+        return discoveryCertificate;
+    }
+
+    private void updateMeta(Certificate certificate, Map<String, Object> discoveredMeta) {
+        Map<String, Object> meta = new HashMap<>(discoveredMeta);
+        Object discoverySource = discoveredMeta.getOrDefault(DISCOVERY_SOURCE, "");
+        Object existingSource = null;
+        if (certificate.getMeta() != null) {
+            try {
+                existingSource = MetaDefinitions.deserialize(certificate.getMeta()).get(DISCOVERY_SOURCE);
+            } catch (NullPointerException | IllegalStateException e) {
+                logger.debug("Metadata is null for the certificate");
+            }
+        }
+
+        if (existingSource == null || existingSource.equals(discoverySource)) {
+            meta.put(DISCOVERY_SOURCE, existingSource == null ? discoverySource : existingSource);
+        } else {
+            meta.put(DISCOVERY_SOURCE, existingSource + "," + discoverySource);
+        }
+        certificate.setMeta(MetaDefinitions.serialize(meta));
+    }
+}
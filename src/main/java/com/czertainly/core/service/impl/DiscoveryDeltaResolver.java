@@ -0,0 +1,204 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.core.certificate.CertificateEvent;
+import com.czertainly.api.model.core.certificate.CertificateEventStatus;
+import com.czertainly.api.model.core.discovery.DiscoveryStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateEventHistory;
+import com.czertainly.core.dao.entity.DiscoveryHistory;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.dao.repository.DiscoveryCertificateRepository;
+import com.czertainly.core.dao.repository.DiscoveryRepository;
+import com.czertainly.core.service.CertificateEventHistoryService;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves the certificates that did not change since the previous run of the discovery with the same source, i.e.
+ * the same discovery provider, kind and attributes. Fingerprints of the previous run are kept in a bloom filter, so only
+ * the fingerprints that may have been discovered before are checked in the database.
+ * <p>
+ * The delta mode is disabled by default. Certificates discovered again are matched by their fingerprint only and
+ * their discovery records are copied from the previous run, so the metadata from the discovery provider is not
+ * updated and no discovery event is recorded for them.
+ */
+@Component
+public class DiscoveryDeltaResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryDeltaResolver.class);
+
+    private static final int PAGE_SIZE = 10000;
+
+    // Process only the certificates that were not discovered by the previous run of the same discovery
+    @Value("${discovery.delta.enabled:false}")
+    private boolean enabled;
+
+    // Expected false positive probability of the bloom filter
+    @Value("${discovery.delta.falsePositiveProbability:0.01}")
+    private double falsePositiveProbability;
+
+    @Autowired
+    private DiscoveryRepository discoveryRepository;
+    @Autowired
+    private DiscoveryCertificateRepository discoveryCertificateRepository;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertificateEventHistoryService certificateEventHistoryService;
+
+    /**
+     * Prepare the delta against the previous completed run of the discovery with the same source
+     * @param discovery Current discovery
+     * @return Delta or null when the delta mode is disabled or there is no previous run
+     */
+    public DiscoveryDelta prepare(DiscoveryHistory discovery) {
+        if (!enabled) {
+            return null;
+        }
+        Optional<DiscoveryHistory> previous = discoveryRepository.findFirstByConnectorUuidAndKindAndAttributesAndStatusAndIdLessThanOrderByIdDesc(
+                discovery.getConnectorUuid(), discovery.getKind(), discovery.getAttributes(), DiscoveryStatus.COMPLETED, discovery.getId());
+        if (previous.isEmpty()) {
+            return null;
+        }
+
+        int expected = previous.get().getTotalCertificatesDiscovered() != null ? previous.get().getTotalCertificatesDiscovered() : 0;
+        BloomFilter<CharSequence> fingerprints = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                Math.max(expected, 1000), falsePositiveProbability);
+        long lastId = 0;
+        List<Object[]> page;
+        while (!(page = discoveryCertificateRepository.findFingerprintsByDiscovery(previous.get(), lastId, PageRequest.of(0, PAGE_SIZE))).isEmpty()) {
+            for (Object[] row : page) {
+                fingerprints.put((String) row[1]);
+                lastId = (Long) row[0];
+            }
+        }
+        logger.debug("Discovery {} runs in delta mode against discovery {}", discovery.getName(), previous.get().getName());
+        return new DiscoveryDelta(previous.get(), fingerprints);
+    }
+
+    /**
+     * Find the certificates that were discovered by the previous run
+     * @param delta Delta of the discovery
+     * @param fingerprints Fingerprints of the discovered certificates
+     * @return Certificates discovered by the previous run by their fingerprints
+     */
+    public Map<String, KnownCertificate> findUnchanged(DiscoveryDelta delta, Collection<String> fingerprints) {
+        List<String> candidates = new ArrayList<>();
+        for (String fingerprint : fingerprints) {
+            if (delta.fingerprints.mightContain(fingerprint)) {
+                candidates.add(fingerprint);
+            }
+        }
+        Map<String, KnownCertificate> unchanged = new HashMap<>();
+        if (candidates.isEmpty()) {
+            return unchanged;
+        }
+        for (Object[] row : discoveryCertificateRepository.findByDiscoveryAndFingerprintIn(delta.previousDiscovery, candidates)) {
+            unchanged.putIfAbsent((String) row[0], new KnownCertificate((Long) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (Date) row[5], (Date) row[6]));
+        }
+        return unchanged;
+    }
+
+    /**
+     * Record event to the history of the certificates discovered by the previous run that were not discovered again
+     * @param delta Delta of the discovery
+     * @param discovery Current discovery
+     * @return Number of certificates that were not discovered again
+     */
+    public int recordDisappeared(DiscoveryDelta delta, DiscoveryHistory discovery) {
+        int disappeared = 0;
+        long lastId = 0;
+        List<Object[]> page;
+        while (!(page = discoveryCertificateRepository.findContentsNotInDiscovery(delta.previousDiscovery, discovery, lastId, PageRequest.of(0, PAGE_SIZE))).isEmpty()) {
+            List<Long> contentIds = new ArrayList<>();
+            for (Object[] row : page) {
+                lastId = (Long) row[0];
+                contentIds.add((Long) row[1]);
+            }
+            List<CertificateEventHistory> histories = new ArrayList<>();
+            for (Certificate certificate : certificateRepository.findByCertificateContentIdIn(contentIds)) {
+                histories.add(certificateEventHistoryService.getEventHistory(CertificateEvent.DISCOVERY, CertificateEventStatus.FAILED,
+                        "Not discovered again from Connector: " + discovery.getConnectorName(), "", certificate));
+            }
+            certificateEventHistoryService.addEventHistories(histories);
+            disappeared += contentIds.size();
+        }
+        logger.debug("{} certificates of discovery {} were not discovered by discovery {}", disappeared,
+                delta.previousDiscovery.getName(), discovery.getName());
+        return disappeared;
+    }
+
+    /**
+     * Previous run of the discovery with the fingerprints of its certificates
+     */
+    public static final class DiscoveryDelta {
+        private final DiscoveryHistory previousDiscovery;
+        private final BloomFilter<CharSequence> fingerprints;
+
+        private DiscoveryDelta(DiscoveryHistory previousDiscovery, BloomFilter<CharSequence> fingerprints) {
+            this.previousDiscovery = previousDiscovery;
+            this.fingerprints = fingerprints;
+        }
+    }
+
+    /**
+     * Certificate discovered by the previous run
+     */
+    public static final class KnownCertificate {
+        private final Long certificateContentId;
+        private final String commonName;
+        private final String serialNumber;
+        private final String issuerCommonName;
+        private final Date notBefore;
+        private final Date notAfter;
+
+        private KnownCertificate(Long certificateContentId, String commonName, String serialNumber, String issuerCommonName, Date notBefore, Date notAfter) {
+            this.certificateContentId = certificateContentId;
+            this.commonName = commonName;
+            this.serialNumber = serialNumber;
+            this.issuerCommonName = issuerCommonName;
+            this.notBefore = notBefore;
+            this.notAfter = notAfter;
+        }
+
+        public Long getCertificateContentId() {
+            return certificateContentId;
+        }
+
+        public String getCommonName() {
+            return commonName;
+        }
+
+        public String getSerialNumber() {
+            return serialNumber;
+        }
+
+        public String getIssuerCommonName() {
+            return issuerCommonName;
+        }
+
+        public Date getNotBefore() {
+            return notBefore;
+        }
+
+        public Date getNotAfter() {
+            return notAfter;
+        }
+    }
+}
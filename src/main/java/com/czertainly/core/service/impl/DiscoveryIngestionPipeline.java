@@ -0,0 +1,300 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.exception.ConnectorException;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderCertificateDataDto;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.DiscoveryHistory;
+import com.czertainly.core.util.CertificateUtil;
+import com.czertainly.core.util.X509ObjectToString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Staged ingestion of the certificates discovered by the discovery provider. Pages of the discovery result are fetched
+ * by a dedicated thread into a bounded queue, certificates from each page are parsed and fingerprinted in parallel and
+ * the parsed certificates are written to the database in batches, so the memory used by the discovery does not depend
+ * on the number of discovered certificates.
+ */
+@Component
+public class DiscoveryIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryIngestionPipeline.class);
+
+    // Number of fetched pages waiting for processing. Fetching is paused when the queue is full
+    @Value("${discovery.ingestion.queueCapacity:4}")
+    private int queueCapacity;
+
+    // Number of certificates written to the database in a single batch
+    @Value("${discovery.ingestion.batchSize:500}")
+    private int batchSize;
+
+    // Number of threads used to parse the discovered certificates
+    @Value("${discovery.ingestion.parallelism:4}")
+    private int parallelism;
+
+    @Autowired
+    private DiscoveryBatchWriter discoveryBatchWriter;
+    @Autowired
+    private DiscoveryDeltaResolver discoveryDeltaResolver;
+
+    private ForkJoinPool parsePool;
+
+    @PostConstruct
+    public void init() {
+        parsePool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsePool.shutdownNow();
+    }
+
+    /**
+     * Ingest all pages of the discovery result. In the delta mode, certificates discovered by the previous run are not
+     * parsed and only their discovery records are created.
+     * @param discovery Discovery the certificates belong to
+     * @param pageSupplier Supplier of the pages of the discovery result
+     * @param delta Delta against the previous run of the discovery or null to ingest all the certificates
+     * @return Ids of the new or changed discovered certificates
+     * @throws ConnectorException when the page cannot be retrieved from the discovery provider
+     * @throws InterruptedException when the ingestion is interrupted
+     */
+    public List<Long> ingest(DiscoveryHistory discovery, DiscoveryPageSupplier pageSupplier, DiscoveryDeltaResolver.DiscoveryDelta delta) throws ConnectorException, InterruptedException {
+        BlockingQueue<DiscoveryPage> queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        Thread fetchThread = new Thread(() -> fetchPages(pageSupplier, queue), "discovery-fetch-" + discovery.getUuid());
+        fetchThread.setDaemon(true);
+        fetchThread.start();
+
+        List<Long> certificateIds = new ArrayList<>();
+        List<DiscoveredCertificate> pending = new ArrayList<>();
+        Future<List<DiscoveredCertificate>> parsing = null;
+        try {
+            while (true) {
+                DiscoveryPage page = queue.take();
+                if (page.error != null) {
+                    throw page.error;
+                }
+                if (page.certificates == null) {
+                    break;
+                }
+                // parse the page while the previously parsed page is written to the database
+                Future<List<DiscoveredCertificate>> next = parsePool.submit(() -> parsePage(page.certificates, delta));
+                if (parsing != null) {
+                    pending.addAll(awaitParsing(parsing));
+                    writeFullBatches(discovery, pending, certificateIds);
+                }
+                parsing = next;
+            }
+            if (parsing != null) {
+                pending.addAll(awaitParsing(parsing));
+            }
+            writeFullBatches(discovery, pending, certificateIds);
+            if (!pending.isEmpty()) {
+                certificateIds.addAll(discoveryBatchWriter.writeBatch(discovery, pending));
+            }
+        } catch (ConnectorException | InterruptedException | RuntimeException e) {
+            fetchThread.interrupt();
+            throw e;
+        } catch (Exception e) {
+            fetchThread.interrupt();
+            throw new IllegalStateException(e);
+        }
+        logger.info("Discovery {} ingested {} certificates", discovery.getName(), certificateIds.size());
+        return certificateIds;
+    }
+
+    private void fetchPages(DiscoveryPageSupplier pageSupplier, BlockingQueue<DiscoveryPage> queue) {
+        DiscoveryPage last = DiscoveryPage.END;
+        try {
+            List<DiscoveryProviderCertificateDataDto> certificates;
+            while ((certificates = pageSupplier.next()) != null) {
+                if (!certificates.isEmpty()) {
+                    queue.put(new DiscoveryPage(certificates, null));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            last = new DiscoveryPage(null, e);
+        }
+        try {
+            queue.put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<DiscoveredCertificate> parsePage(List<DiscoveryProviderCertificateDataDto> certificates, DiscoveryDeltaResolver.DiscoveryDelta delta) {
+        if (delta == null) {
+            return certificates.parallelStream()
+                    .map(this::parseCertificate)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        }
+
+        Map<DiscoveryProviderCertificateDataDto, String> fingerprints = new IdentityHashMap<>();
+        for (DiscoveryProviderCertificateDataDto certificateData : certificates) {
+            String fingerprint = computeFingerprint(certificateData);
+            if (fingerprint != null) {
+                fingerprints.put(certificateData, fingerprint);
+            }
+        }
+        Map<String, DiscoveryDeltaResolver.KnownCertificate> unchanged = discoveryDeltaResolver.findUnchanged(delta, fingerprints.values());
+        return certificates.parallelStream()
+                .map(certificateData -> {
+                    String fingerprint = fingerprints.get(certificateData);
+                    if (fingerprint != null && unchanged.containsKey(fingerprint)) {
+                        return new DiscoveredCertificate(fingerprint, unchanged.get(fingerprint));
+                    }
+                    return parseCertificate(certificateData);
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private String computeFingerprint(DiscoveryProviderCertificateDataDto certificateData) {
+        try {
+            byte[] encoded = Base64.getDecoder().decode(CertificateUtil.normalizeCertificateContent(certificateData.getBase64Content()));
+            return CertificateUtil.getThumbprint(encoded);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private DiscoveredCertificate parseCertificate(DiscoveryProviderCertificateDataDto certificateData) {
+        try {
+            X509Certificate x509Cert = CertificateUtil.parseCertificate(certificateData.getBase64Content());
+            Certificate certificate = new Certificate();
+            CertificateUtil.prepareCertificate(certificate, x509Cert);
+            certificate.setFingerprint(CertificateUtil.getThumbprint(x509Cert.getEncoded()));
+            String content = CertificateUtil.normalizeCertificateContent(X509ObjectToString.toPem(x509Cert));
+            Map<String, Object> meta = certificateData.getMeta() != null ? certificateData.getMeta() : new HashMap<>();
+            return new DiscoveredCertificate(certificate, content, meta);
+        } catch (Exception e) {
+            logger.error("Unable to parse discovered certificate: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<DiscoveredCertificate> awaitParsing(Future<List<DiscoveredCertificate>> parsing) throws InterruptedException {
+        try {
+            return parsing.get();
+        } catch (ExecutionException e) {
+            // page of the certificates must not be silently lost, the discovery fails instead
+            logger.error("Failed to parse page of discovered certificates: {}", e.getMessage());
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to parse page of discovered certificates", cause);
+        }
+    }
+
+    private void writeFullBatches(DiscoveryHistory discovery, List<DiscoveredCertificate> pending, List<Long> certificateIds) {
+        while (pending.size() >= batchSize) {
+            List<DiscoveredCertificate> batch = pending.subList(0, batchSize);
+            certificateIds.addAll(discoveryBatchWriter.writeBatch(discovery, new ArrayList<>(batch)));
+            batch.clear();
+        }
+    }
+
+    /**
+     * Supplier of the pages of the discovery result. Pages are requested sequentially from a single thread.
+     */
+    public interface DiscoveryPageSupplier {
+        /**
+         * @return Certificates of the next page or null when there are no more pages
+         */
+        List<DiscoveryProviderCertificateDataDto> next() throws ConnectorException, InterruptedException;
+    }
+
+    /**
+     * Parsed certificate from the discovery result that is ready to be stored
+     */
+    public static final class DiscoveredCertificate {
+        private final String fingerprint;
+        private final Certificate certificate;
+        private final String content;
+        private final Map<String, Object> meta;
+        private final DiscoveryDeltaResolver.KnownCertificate knownCertificate;
+
+        private DiscoveredCertificate(Certificate certificate, String content, Map<String, Object> meta) {
+            this.fingerprint = certificate.getFingerprint();
+            this.certificate = certificate;
+            this.content = content;
+            this.meta = meta;
+            this.knownCertificate = null;
+        }
+
+        private DiscoveredCertificate(String fingerprint, DiscoveryDeltaResolver.KnownCertificate knownCertificate) {
+            this.fingerprint = fingerprint;
+            this.certificate = null;
+            this.content = null;
+            this.meta = null;
+            this.knownCertificate = knownCertificate;
+        }
+
+        /**
+         * @return True when the certificate was discovered by the previous run of the discovery and was not parsed
+         */
+        public boolean isUnchanged() {
+            return knownCertificate != null;
+        }
+
+        public DiscoveryDeltaResolver.KnownCertificate getKnownCertificate() {
+            return knownCertificate;
+        }
+
+        public Certificate getCertificate() {
+            return certificate;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public Map<String, Object> getMeta() {
+            return meta;
+        }
+    }
+
+    private static final class DiscoveryPage {
+        private static final DiscoveryPage END = new DiscoveryPage(null, null);
+
+        private final List<DiscoveryProviderCertificateDataDto> certificates;
+        private final Exception error;
+
+        private DiscoveryPage(List<DiscoveryProviderCertificateDataDto> certificates, Exception error) {
+            this.certificates = certificates;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.clients.DiscoveryApiClient;
+import com.czertainly.api.exception.ConnectorException;
+import com.czertainly.api.model.connector.discovery.DiscoveryDataRequestDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderCertificateDataDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderDto;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads the result of the discovery from the discovery provider. Pages are requested in parallel with a bounded
+ * window of requests per discovery. The page size grows while the response time and the size of the pages stay within
+ * the configured bounds and shrinks when they are exceeded. Pages that are larger than requested are cut to the
+ * requested range and pages that are smaller make the size of the following pages limited by the provider.
+ */
+@Component
+public class DiscoveryPageFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryPageFetcher.class);
+
+    private static final int MINIMUM_PAGE_SIZE = 10;
+
+    @Value("${discovery.paging.initialPageSize:100}")
+    private int initialPageSize;
+
+    @Value("${discovery.paging.maxPageSize:5000}")
+    private int maxPageSize;
+
+    // Response time of the page in milliseconds up to which the page size is increased
+    @Value("${discovery.paging.targetLatency:2000}")
+    private long targetLatency;
+
+    // Size of the certificate content of the page in bytes up to which the page size is increased
+    @Value("${discovery.paging.maxPayloadSize:10485760}")
+    private long maxPayloadSize;
+
+    // Number of pages of a single discovery requested in parallel
+    @Value("${discovery.paging.window:4}")
+    private int window;
+
+    @Value("${discovery.paging.threads:8}")
+    private int threads;
+
+    @Autowired
+    private DiscoveryApiClient discoveryApiClient;
+
+    private ExecutorService fetchExecutor;
+
+    @PostConstruct
+    public void init() {
+        fetchExecutor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "discovery-page-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Create supplier of the pages of the discovery result
+     * @param connector Discovery provider
+     * @param name Name of the discovery
+     * @param kind Kind of the discovery
+     * @param discoveryReference Uuid of the discovery in the discovery provider
+     * @param totalCertificates Number of the certificates discovered by the provider
+     * @return Supplier of the pages
+     */
+    public DiscoveryIngestionPipeline.DiscoveryPageSupplier createPageSupplier(ConnectorDto connector, String name, String kind,
+                                                                               String discoveryReference, int totalCertificates) {
+        return new AdaptivePageSupplier(connector, name, kind, discoveryReference, totalCertificates);
+    }
+
+    private final class AdaptivePageSupplier implements DiscoveryIngestionPipeline.DiscoveryPageSupplier {
+        private final ConnectorDto connector;
+        private final String name;
+        private final String kind;
+        private final String discoveryReference;
+        private final int totalCertificates;
+        private final Deque<PageRequest> inFlight = new ArrayDeque<>();
+        private int nextStartIndex = 0;
+        private int pageSize = Math.max(MINIMUM_PAGE_SIZE, initialPageSize);
+        // largest page size the provider returned in full, pages are never requested larger once the provider cuts them
+        private int providerPageSize = Integer.MAX_VALUE;
+
+        private AdaptivePageSupplier(ConnectorDto connector, String name, String kind, String discoveryReference, int totalCertificates) {
+            this.connector = connector;
+            this.name = name;
+            this.kind = kind;
+            this.discoveryReference = discoveryReference;
+            this.totalCertificates = totalCertificates;
+        }
+
+        @Override
+        public List<DiscoveryProviderCertificateDataDto> next() throws ConnectorException, InterruptedException {
+            while (inFlight.size() < Math.max(1, window) && nextStartIndex < totalCertificates) {
+                int size = Math.min(pageSize, totalCertificates - nextStartIndex);
+                submit(nextStartIndex, size);
+                nextStartIndex += size;
+            }
+            PageRequest page = inFlight.poll();
+            if (page == null) {
+                return null;
+            }
+
+            PageResult result;
+            try {
+                result = page.future.get();
+            } catch (InterruptedException e) {
+                cancelAll();
+                throw e;
+            } catch (ExecutionException e) {
+                cancelAll();
+                if (e.getCause() instanceof ConnectorException) {
+                    throw (ConnectorException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+
+            List<DiscoveryProviderCertificateDataDto> certificates = result.certificates != null ? result.certificates : Collections.emptyList();
+            if (certificates.size() > page.size) {
+                logger.warn("Discovery provider returned {} certificates for page of size {}, using only the requested range", certificates.size(), page.size);
+                certificates = certificates.subList(0, page.size);
+            } else if (certificates.size() < page.size && !certificates.isEmpty()) {
+                // provider limits the size of the page, request rest of the range separately
+                providerPageSize = Math.min(providerPageSize, certificates.size());
+                submit(page.startIndex + certificates.size(), page.size - certificates.size());
+            }
+            adaptPageSize(certificates, result.latency);
+            return certificates;
+        }
+
+        private void submit(int startIndex, int size) {
+            DiscoveryDataRequestDto request = new DiscoveryDataRequestDto();
+            request.setName(name);
+            request.setKind(kind);
+            request.setStartIndex(startIndex);
+            request.setEndIndex(startIndex + size);
+            Future<PageResult> future = fetchExecutor.submit(() -> {
+                long start = System.currentTimeMillis();
+                DiscoveryProviderDto response = discoveryApiClient.getDiscoveryData(connector, request, discoveryReference);
+                return new PageResult(response.getCertificateData(), System.currentTimeMillis() - start);
+            });
+            inFlight.add(new PageRequest(startIndex, size, future));
+        }
+
+        private void adaptPageSize(List<DiscoveryProviderCertificateDataDto> certificates, long latency) {
+            long payloadSize = 0;
+            for (DiscoveryProviderCertificateDataDto certificate : certificates) {
+                if (certificate.getBase64Content() != null) {
+                    payloadSize += certificate.getBase64Content().length();
+                }
+            }
+            int newPageSize = pageSize;
+            if (latency > targetLatency || payloadSize > maxPayloadSize) {
+                newPageSize = Math.max(MINIMUM_PAGE_SIZE, pageSize / 2);
+            } else if (certificates.size() >= pageSize && latency * 2 < targetLatency && payloadSize * 2 < maxPayloadSize) {
+                newPageSize = Math.min(pageSize * 2, maxPageSize);
+            }
+            newPageSize = Math.max(MINIMUM_PAGE_SIZE, Math.min(newPageSize, providerPageSize));
+            if (newPageSize != pageSize) {
+                logger.debug("Discovery {} page size changed from {} to {}", name, pageSize, newPageSize);
+                pageSize = newPageSize;
+            }
+        }
+
+        private void cancelAll() {
+            for (PageRequest request : inFlight) {
+                request.future.cancel(true);
+            }
+            inFlight.clear();
+        }
+    }
+
+    private static final class PageRequest {
+        private final int startIndex;
+        private final int size;
+        private final Future<PageResult> future;
+
+        private PageRequest(int startIndex, int size, Future<PageResult> future) {
+            this.startIndex = startIndex;
+            this.size = size;
+            this.future = future;
+        }
+    }
+
+    private static final class PageResult {
+        private final List<DiscoveryProviderCertificateDataDto> certificates;
+        private final long latency;
+
+        private PageResult(List<DiscoveryProviderCertificateDataDto> certificates, long latency) {
+            this.certificates = certificates;
+            this.latency = latency;
+        }
+    }
+}
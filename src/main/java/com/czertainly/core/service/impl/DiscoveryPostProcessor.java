@@ -0,0 +1,218 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.service.CertValidationService;
+import com.czertainly.core.util.CertificateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.security.PublicKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Post-processing of the certificates ingested by the discovery. Issuers are linked only for the ingested certificates
+ * and the certificates issued by the ingested CAs, and the validation of the ingested certificates is queued to the
+ * validation in chunks.
+ */
+@Component
+public class DiscoveryPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryPostProcessor.class);
+
+    // Number of certificates loaded and validated together
+    @Value("${discovery.postProcessing.chunkSize:1000}")
+    private int chunkSize;
+
+    // Number of chunks of certificates queued for the validation at a time
+    @Value("${discovery.postProcessing.validationWindow:2}")
+    private int validationWindow;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertValidationService certValidationService;
+
+    /**
+     * Link the ingested certificates with their issuers. Issuers are looked up among the ingested certificates and
+     * the existing CA certificates. Existing certificates without issuer are linked when their issuer was ingested.
+     * @param certificateIds Ids of the ingested certificates
+     */
+    public void linkIssuers(Collection<Long> certificateIds) {
+        List<List<Long>> idChunks = partition(new LinkedHashSet<>(certificateIds));
+
+        // subject DN to the CA certificates with the subject DN
+        Map<String, List<IssuerCandidate>> issuers = new HashMap<>();
+        Set<String> ingestedIssuerDns = new HashSet<>();
+        Set<String> requiredIssuerDns = new HashSet<>();
+        for (List<Long> chunk : idChunks) {
+            for (Certificate certificate : certificateRepository.findWithContentByIdIn(chunk)) {
+                X509Certificate x509Cert = parse(certificate);
+                if (x509Cert == null) {
+                    continue;
+                }
+                if (isIssuer(certificate, x509Cert)) {
+                    addIssuer(issuers, certificate, x509Cert);
+                    ingestedIssuerDns.add(certificate.getSubjectDn());
+                }
+                if (isWithoutIssuer(certificate)) {
+                    requiredIssuerDns.add(certificate.getIssuerDn());
+                }
+            }
+        }
+
+        requiredIssuerDns.removeAll(issuers.keySet());
+        for (List<String> chunk : partition(requiredIssuerDns)) {
+            for (Certificate certificate : certificateRepository.findWithContentBySubjectDnIn(chunk)) {
+                X509Certificate x509Cert = parse(certificate);
+                if (x509Cert != null && isIssuer(certificate, x509Cert)) {
+                    addIssuer(issuers, certificate, x509Cert);
+                }
+            }
+        }
+
+        int linked = 0;
+        for (List<Long> chunk : idChunks) {
+            linked += linkChunk(certificateRepository.findWithContentByIdIn(chunk), issuers);
+        }
+        for (List<String> chunk : partition(ingestedIssuerDns)) {
+            linked += linkChunk(certificateRepository.findWithContentWithoutIssuerByIssuerDnIn(chunk), issuers);
+        }
+        logger.debug("Linked issuers of {} certificates", linked);
+    }
+
+    /**
+     * Queue the validation of the ingested certificates. Only limited number of chunks is queued at a time, so
+     * the validation does not occupy all the async workers, the next chunk is queued when the validation of a previous
+     * one completes. The caller does not wait for the validation. Certificates of the discoveries resumed after the
+     * restart have no user to validate them, they keep their status until all the certificates are validated.
+     * @param certificateIds Ids of the ingested certificates
+     */
+    public void validateCertificates(Collection<Long> certificateIds) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            logger.info("Validation of {} discovered certificates skipped, the discovery has no user", certificateIds.size());
+            return;
+        }
+        List<List<Long>> chunks = partition(new LinkedHashSet<>(certificateIds));
+        AtomicInteger nextChunk = new AtomicInteger();
+        for (int i = 0; i < Math.max(1, validationWindow); i++) {
+            validateNextChunk(chunks, nextChunk);
+        }
+    }
+
+    private void validateNextChunk(List<List<Long>> chunks, AtomicInteger nextChunk) {
+        int index = nextChunk.getAndIncrement();
+        if (index >= chunks.size()) {
+            return;
+        }
+        try {
+            certValidationService.validateCertificates(certificateRepository.findWithContentByIdIn(chunks.get(index)))
+                    .whenComplete((result, e) -> {
+                        if (e != null) {
+                            logger.warn("Validation of discovered certificates failed: {}", e.getMessage());
+                        }
+                        validateNextChunk(chunks, nextChunk);
+                    });
+        } catch (Exception e) {
+            // certificates not validated now keep their status until they are validated again
+            logger.warn("Validation of {} chunks of discovered certificates was not queued: {}", chunks.size() - index, e.getMessage());
+            nextChunk.set(chunks.size());
+        }
+    }
+
+    private int linkChunk(List<Certificate> certificates, Map<String, List<IssuerCandidate>> issuers) {
+        Map<String, List<Long>> links = new HashMap<>();
+        for (Certificate certificate : certificates) {
+            if (!isWithoutIssuer(certificate) || !issuers.containsKey(certificate.getIssuerDn())) {
+                continue;
+            }
+            X509Certificate x509Cert = parse(certificate);
+            if (x509Cert == null) {
+                continue;
+            }
+            for (IssuerCandidate issuer : issuers.get(certificate.getIssuerDn())) {
+                if (verifySignature(x509Cert, issuer.publicKey)) {
+                    links.computeIfAbsent(issuer.serialNumber, k -> new ArrayList<>()).add(certificate.getId());
+                    break;
+                }
+            }
+        }
+        int linked = 0;
+        for (Map.Entry<String, List<Long>> link : links.entrySet()) {
+            linked += certificateRepository.updateIssuerSerialNumber(link.getKey(), link.getValue());
+        }
+        return linked;
+    }
+
+    private boolean isWithoutIssuer(Certificate certificate) {
+        return certificate.getIssuerSerialNumber() == null && certificate.getIssuerDn() != null
+                && !certificate.getIssuerDn().equals(certificate.getSubjectDn());
+    }
+
+    private boolean isIssuer(Certificate certificate, X509Certificate x509Cert) {
+        return x509Cert.getBasicConstraints() >= 0
+                || (certificate.getSubjectDn() != null && certificate.getSubjectDn().equals(certificate.getIssuerDn()));
+    }
+
+    private void addIssuer(Map<String, List<IssuerCandidate>> issuers, Certificate certificate, X509Certificate x509Cert) {
+        issuers.computeIfAbsent(certificate.getSubjectDn(), k -> new ArrayList<>())
+                .add(new IssuerCandidate(certificate.getSerialNumber(), x509Cert.getPublicKey()));
+    }
+
+    private X509Certificate parse(Certificate certificate) {
+        try {
+            return CertificateUtil.parseCertificate(certificate.getCertificateContent().getContent());
+        } catch (Exception e) {
+            logger.debug("Unable to parse the certificate {}", certificate.getUuid());
+            return null;
+        }
+    }
+
+    private boolean verifySignature(X509Certificate subjectCertificate, PublicKey issuerPublicKey) {
+        try {
+            subjectCertificate.verify(issuerPublicKey);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private <T> List<List<T>> partition(Collection<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>();
+        for (T value : values) {
+            chunk.add(value);
+            if (chunk.size() >= chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static final class IssuerCandidate {
+        private final String serialNumber;
+        private final PublicKey publicKey;
+
+        private IssuerCandidate(String serialNumber, PublicKey publicKey) {
+            this.serialNumber = serialNumber;
+            this.publicKey = publicKey;
+        }
+    }
+}
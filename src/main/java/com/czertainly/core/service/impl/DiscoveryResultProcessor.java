@@ -0,0 +1,114 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderDto;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import com.czertainly.api.model.core.discovery.DiscoveryStatus;
+import com.czertainly.core.dao.entity.DiscoveryHistory;
+import com.czertainly.core.dao.repository.DiscoveryCertificateRepository;
+import com.czertainly.core.dao.repository.DiscoveryRepository;
+import com.czertainly.core.util.MetaDefinitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Processes the result of the discovery finished in the discovery provider. The processing is internal, it is started
+ * by {@link DiscoveryStatusPoller} for the discoveries requested by the users and for the discoveries resumed after the
+ * restart, which have no user, so the processing is not secured.
+ */
+@Component
+public class DiscoveryResultProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryResultProcessor.class);
+    private static final Integer DELETE_BATCH_SIZE = 1000;
+
+    @Autowired
+    private DiscoveryRepository discoveryRepository;
+    @Autowired
+    private DiscoveryCertificateRepository discoveryCertificateRepository;
+    @Autowired
+    private DiscoveryIngestionPipeline discoveryIngestionPipeline;
+    @Autowired
+    private DiscoveryPageFetcher discoveryPageFetcher;
+    @Autowired
+    private DiscoveryPostProcessor discoveryPostProcessor;
+    @Autowired
+    private DiscoveryDeltaResolver discoveryDeltaResolver;
+    @Autowired
+    private CertificateStatisticsRefresher certificateStatisticsRefresher;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Ingest the certificates discovered by the discovery and complete the discovery
+     * @param discoveryUuid Uuid of the discovery
+     * @param connector Discovery provider
+     * @param response Final response of the discovery provider
+     */
+    public void process(String discoveryUuid, ConnectorDto connector, DiscoveryProviderDto response) {
+        Optional<DiscoveryHistory> discovery = discoveryRepository.findByUuid(discoveryUuid);
+        if (discovery.isEmpty()) {
+            logger.debug("Discovery {} no longer exists", discoveryUuid);
+            return;
+        }
+        DiscoveryHistory modal = discovery.get();
+        try {
+            // remove the certificates of the discovery in case its processing was interrupted before
+            deleteDiscoveryCertificates(modal);
+
+            int totalCertificates = response.getTotalCertificatesDiscovered() != null ? response.getTotalCertificatesDiscovered() : 0;
+            DiscoveryDeltaResolver.DiscoveryDelta delta = discoveryDeltaResolver.prepare(modal);
+            List<Long> certificateIds = discoveryIngestionPipeline.ingest(modal, discoveryPageFetcher.createPageSupplier(connector,
+                    modal.getName(), modal.getKind(), modal.getDiscoveryConnectorReference(), totalCertificates), delta);
+            if (delta != null) {
+                discoveryDeltaResolver.recordDisappeared(delta, modal);
+            }
+            discoveryPostProcessor.linkIssuers(certificateIds);
+            updateDiscovery(modal, response);
+            certificateStatisticsRefresher.requestRefresh();
+            discoveryPostProcessor.validateCertificates(certificateIds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            modal.setStatus(DiscoveryStatus.FAILED);
+            modal.setMessage(e.getMessage());
+            discoveryRepository.save(modal);
+            logger.error(e.getMessage());
+        } catch (Exception e) {
+            modal.setStatus(DiscoveryStatus.FAILED);
+            modal.setMessage(e.getMessage());
+            discoveryRepository.save(modal);
+            logger.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the records of the certificates discovered by the discovery in batches
+     * @param discovery Discovery
+     * @return Number of the deleted records
+     */
+    public int deleteDiscoveryCertificates(DiscoveryHistory discovery) {
+        int deleted = 0;
+        List<Long> ids;
+        while (!(ids = discoveryCertificateRepository.findIdsByDiscovery(discovery, PageRequest.of(0, DELETE_BATCH_SIZE))).isEmpty()) {
+            List<Long> batch = ids;
+            Integer batchDeleted = transactionTemplate.execute(status -> discoveryCertificateRepository.deleteByIdIn(batch));
+            deleted += batchDeleted != null ? batchDeleted : 0;
+        }
+        return deleted;
+    }
+
+    private void updateDiscovery(DiscoveryHistory modal, DiscoveryProviderDto response) {
+        modal.setStatus(response.getStatus());
+        modal.setEndTime(new Date());
+        modal.setMeta(MetaDefinitions.serialize(response.getMeta()));
+        modal.setTotalCertificatesDiscovered(response.getTotalCertificatesDiscovered());
+        discoveryRepository.save(modal);
+    }
+}
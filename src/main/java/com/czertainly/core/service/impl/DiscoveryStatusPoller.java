@@ -0,0 +1,244 @@
+package com.czertainly.core.service.impl;
+
+import com.czertainly.api.clients.DiscoveryApiClient;
+import com.czertainly.api.model.connector.discovery.DiscoveryDataRequestDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderDto;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import com.czertainly.api.model.core.discovery.DiscoveryStatus;
+import com.czertainly.core.dao.entity.Connector;
+import com.czertainly.core.dao.entity.DiscoveryHistory;
+import com.czertainly.core.dao.repository.ConnectorRepository;
+import com.czertainly.core.dao.repository.DiscoveryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Polls the discovery providers for the status of all running discoveries. A single periodic task dispatches the polls
+ * of the discoveries that are due to the async executor, so a slow discovery provider does not delay the other
+ * discoveries and the other periodic tasks, and the workers are not blocked between the polls. Each discovery is
+ * polled with its own interval that grows while the provider does not report any progress. When the discovery is
+ * finished in the provider, its result is processed by the worker that polled it. Running discoveries are persisted in
+ * the discovery history and polling of them is resumed after the restart, their results are processed without user.
+ */
+@Component
+public class DiscoveryStatusPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiscoveryStatusPoller.class);
+
+    private static final Integer STATUS_PAGE_SIZE = 100;
+    private static final Long MAXIMUM_WAIT_TIME = (long) (6 * 60 * 60 * 1000); // Hours * Minutes * Seconds * Milliseconds
+    private static final long TICK_INTERVAL = 1000;
+
+    private final Map<String, PolledDiscovery> discoveries = new ConcurrentHashMap<>();
+
+    // Interval between the polls of the discovery in milliseconds, when the provider reports progress
+    @Value("${discovery.polling.initialInterval:5000}")
+    private long initialInterval;
+
+    // Maximum interval between the polls of the discovery in milliseconds
+    @Value("${discovery.polling.maxInterval:60000}")
+    private long maxInterval;
+
+    @Autowired
+    private DiscoveryRepository discoveryRepository;
+    @Autowired
+    private ConnectorRepository connectorRepository;
+    @Autowired
+    private DiscoveryApiClient discoveryApiClient;
+    @Autowired
+    private DiscoveryResultProcessor discoveryResultProcessor;
+    @Autowired
+    private TaskScheduler taskScheduler;
+    @Autowired
+    @Qualifier("threadPoolTaskExecutor")
+    private TaskExecutor threadPoolTaskExecutor;
+
+    private Clock clock = Clock.systemUTC();
+
+    @PostConstruct
+    public void init() {
+        taskScheduler.scheduleWithFixedDelay(this::pollDiscoveries, Instant.now().plusMillis(TICK_INTERVAL), Duration.ofMillis(TICK_INTERVAL));
+    }
+
+    /**
+     * Start polling of the discovery. Result of the discovery is processed with the security context of the caller.
+     * @param discovery Discovery with the reference to the discovery in the provider
+     * @param connector Discovery provider
+     * @param response Response of the provider to the discovery request
+     */
+    public void register(DiscoveryHistory discovery, ConnectorDto connector, DiscoveryProviderDto response) {
+        PolledDiscovery polledDiscovery = new PolledDiscovery(discovery, connector, response.getName(), SecurityContextHolder.getContext());
+        if (response.getStatus() != DiscoveryStatus.IN_PROGRESS) {
+            polledDiscovery.nextPollAt = clock.millis();
+        }
+        discoveries.put(discovery.getUuid(), polledDiscovery);
+        logger.debug("Polling of discovery {} registered", discovery.getName());
+    }
+
+    /**
+     * Stop polling of the discovery
+     * @param discoveryUuid Uuid of the discovery
+     */
+    public void unregister(String discoveryUuid) {
+        discoveries.remove(discoveryUuid);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void resumeDiscoveries() {
+        for (DiscoveryHistory discovery : discoveryRepository.findByStatusInAndEndTimeIsNullAndDiscoveryConnectorReferenceIsNotNull(
+                List.of(DiscoveryStatus.IN_PROGRESS, DiscoveryStatus.WARNING))) {
+            Optional<Connector> connector = connectorRepository.findByUuid(discovery.getConnectorUuid());
+            if (connector.isEmpty()) {
+                discovery.setStatus(DiscoveryStatus.FAILED);
+                discovery.setMessage("Discovery provider not found");
+                discoveryRepository.save(discovery);
+                continue;
+            }
+            discoveries.put(discovery.getUuid(), new PolledDiscovery(discovery, connector.get().mapToDto(), discovery.getName(), null));
+            logger.info("Polling of discovery {} resumed", discovery.getName());
+        }
+    }
+
+    private void pollDiscoveries() {
+        long now = clock.millis();
+        for (PolledDiscovery discovery : discoveries.values()) {
+            if (discovery.nextPollAt > now || !discovery.polling.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                threadPoolTaskExecutor.execute(() -> poll(discovery));
+            } catch (TaskRejectedException e) {
+                // the discovery is polled again on the next tick
+                discovery.polling.set(false);
+                logger.debug("Poll of discovery {} was not queued: {}", discovery.name, e.getMessage());
+            }
+        }
+    }
+
+    private void poll(PolledDiscovery discovery) {
+        try {
+            pollDiscovery(discovery);
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            discoveries.remove(discovery.uuid);
+            updateDiscovery(discovery.uuid, history -> {
+                history.setStatus(DiscoveryStatus.FAILED);
+                history.setMessage(e.getMessage());
+            });
+        } finally {
+            discovery.polling.set(false);
+        }
+    }
+
+    private void pollDiscovery(PolledDiscovery discovery) throws Exception {
+        DiscoveryDataRequestDto request = new DiscoveryDataRequestDto();
+        request.setName(discovery.name);
+        request.setKind(discovery.kind);
+        request.setStartIndex(0);
+        request.setEndIndex(STATUS_PAGE_SIZE);
+        DiscoveryProviderDto response = discoveryApiClient.getDiscoveryData(discovery.connector, request, discovery.reference);
+
+        if (response.getStatus() != DiscoveryStatus.IN_PROGRESS) {
+            discoveries.remove(discovery.uuid);
+            processResult(discovery, response);
+            return;
+        }
+
+        long now = clock.millis();
+        int total = response.getTotalCertificatesDiscovered() != null ? response.getTotalCertificatesDiscovered() : 0;
+        if (total != discovery.lastTotal) {
+            discovery.lastTotal = total;
+            discovery.interval = initialInterval;
+            if (!updateDiscovery(discovery.uuid, history -> history.setTotalCertificatesDiscovered(total))) {
+                discoveries.remove(discovery.uuid);
+                return;
+            }
+        } else {
+            discovery.interval = Math.min(discovery.interval * 2, maxInterval);
+            if (!discovery.warned && now - discovery.startTime > MAXIMUM_WAIT_TIME) {
+                discovery.warned = true;
+                updateDiscovery(discovery.uuid, history -> {
+                    history.setStatus(DiscoveryStatus.WARNING);
+                    history.setMessage("Discovery exceeded maximum time of " + MAXIMUM_WAIT_TIME / (60 * 60 * 1000) + " hours. There are no changes in number of certificates discovered. Please abort the discovery if the provider is stuck in IN_PROGRESS");
+                });
+            }
+        }
+        discovery.nextPollAt = now + discovery.interval;
+        logger.debug("Discovery {} is in progress, next poll in {}ms", discovery.name, discovery.interval);
+    }
+
+    private void processResult(PolledDiscovery discovery, DiscoveryProviderDto response) {
+        if (discovery.securityContext != null) {
+            SecurityContextHolder.setContext(discovery.securityContext);
+        }
+        try {
+            discoveryResultProcessor.process(discovery.uuid, discovery.connector, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private boolean updateDiscovery(String uuid, Consumer<DiscoveryHistory> update) {
+        Optional<DiscoveryHistory> history = discoveryRepository.findByUuid(uuid);
+        if (history.isEmpty()) {
+            logger.debug("Discovery {} no longer exists", uuid);
+            return false;
+        }
+        update.accept(history.get());
+        discoveryRepository.save(history.get());
+        return true;
+    }
+
+    private final class PolledDiscovery {
+        private final String uuid;
+        private final String name;
+        private final String kind;
+        private final String reference;
+        private final long startTime;
+        private final ConnectorDto connector;
+        // security context of the user who started the discovery, null for the resumed discovery
+        private final SecurityContext securityContext;
+        private final AtomicBoolean polling = new AtomicBoolean();
+        private volatile long interval = initialInterval;
+        private volatile long nextPollAt;
+        private volatile int lastTotal;
+        private volatile boolean warned;
+
+        private PolledDiscovery(DiscoveryHistory discovery, ConnectorDto connector, String name, SecurityContext securityContext) {
+            this.uuid = discovery.getUuid();
+            this.name = name;
+            this.kind = discovery.getKind();
+            this.reference = discovery.getDiscoveryConnectorReference();
+            this.startTime = discovery.getStartTime() != null ? discovery.getStartTime().getTime() : clock.millis();
+            this.connector = connector;
+            this.securityContext = securityContext;
+            this.lastTotal = discovery.getTotalCertificatesDiscovered() != null ? discovery.getTotalCertificatesDiscovered() : 0;
+            this.warned = discovery.getStatus() == DiscoveryStatus.WARNING;
+            this.nextPollAt = clock.millis() + interval;
+        }
+    }
+}
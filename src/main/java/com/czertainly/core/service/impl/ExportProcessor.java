@@ -2,6 +2,7 @@ package com.czertainly.core.service.impl;
 
 import com.czertainly.api.model.core.audit.ExportResultDto;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
@@ -10,8 +11,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -60,15 +66,7 @@ public class ExportProcessor {
         try (ByteArrayOutputStream os = new ByteArrayOutputStream();
              OutputStreamWriter osWriter = new OutputStreamWriter(os, encoding)) {
 
-            CsvSchema schema = CSV_MAPPER.schemaFor(data.get(0).getClass())
-                    .withColumnSeparator(separator)
-                    .withLineSeparator(lineEnding)
-                    .withUseHeader(isHeaderIncluded)
-                    .withQuoteChar('"')
-                    .withEscapeChar('\\');
-
-            ObjectWriter writer = CSV_MAPPER.writer()
-                    .with(schema);
+            ObjectWriter writer = createWriter(data.get(0).getClass());
 
             writer.writeValue(osWriter, data);
 
@@ -93,4 +91,114 @@ public class ExportProcessor {
         }
         return result;
     }
+
+    /**
+     * @param fileNamePrefix Prefix of the export file name
+     * @return Name of the export file with the current time
+     */
+    public String getFileName(String fileNamePrefix) {
+        return String.format("%s_%s.%s", fileNamePrefix, LocalDateTime.now().format(EXPORT_DATE_TIME_FORMAT), isZipped ? "zip" : "csv");
+    }
+
+    /**
+     * Open the export written directly to the output stream. Rows are written as they are added, so the memory used
+     * does not depend on the size of the export.
+     * @param fileName Name of the export file returned by {@link #getFileName(String)}
+     * @param type Type of the exported rows
+     * @param outputStream Output stream of the export, it is not closed by the export
+     * @return Writer of the export rows that has to be closed to complete the export
+     */
+    public <T> ExportWriter<T> openExport(String fileName, Class<T> type, OutputStream outputStream) {
+        return openExport(fileName, type, outputStream, isZipped);
+    }
+
+    /**
+     * Open the export written directly to the output stream
+     * @param fileName Name of the export file, the name of the CSV file in the zip file is derived from it
+     * @param type Type of the exported rows
+     * @param outputStream Output stream of the export, it is not closed by the export
+     * @param zipped True when the CSV file is written to the zip file, overrides the configuration of the exports
+     * @return Writer of the export rows that has to be closed to complete the export
+     */
+    public <T> ExportWriter<T> openExport(String fileName, Class<T> type, OutputStream outputStream, boolean zipped) {
+        try {
+            ZipOutputStream zos = null;
+            OutputStream target = outputStream;
+            if (zipped) {
+                zos = new ZipOutputStream(outputStream);
+                zos.putNextEntry(new ZipEntry(fileName.replaceFirst("\\.zip$", ".csv")));
+                target = zos;
+            }
+            // the writer must not close the output stream of the export
+            Writer osWriter = new OutputStreamWriter(new FilterOutputStream(target) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            }, encoding);
+            return new ExportWriter<>(createWriter(type).writeValues(osWriter), zos);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ObjectWriter createWriter(Class<?> type) {
+        CsvSchema schema = CSV_MAPPER.schemaFor(type)
+                .withColumnSeparator(separator)
+                .withLineSeparator(lineEnding)
+                .withUseHeader(isHeaderIncluded)
+                .withQuoteChar('"')
+                .withEscapeChar('\\');
+
+        return CSV_MAPPER.writer()
+                .with(schema);
+    }
+
+    /**
+     * Writer of the rows of the streamed export
+     */
+    public static final class ExportWriter<T> implements Closeable {
+        private final SequenceWriter sequenceWriter;
+        private final ZipOutputStream zipOutputStream;
+        private boolean aborted;
+
+        private ExportWriter(SequenceWriter sequenceWriter, ZipOutputStream zipOutputStream) {
+            this.sequenceWriter = sequenceWriter;
+            this.zipOutputStream = zipOutputStream;
+        }
+
+        public void write(T row) {
+            try {
+                sequenceWriter.write(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Abort the incomplete export, it is not completed when the writer is closed, so the client does not receive
+         * the truncated export as the complete one
+         */
+        public void abort() {
+            aborted = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (aborted) {
+                return;
+            }
+            sequenceWriter.close();
+            if (zipOutputStream != null) {
+                zipOutputStream.closeEntry();
+                zipOutputStream.finish();
+                zipOutputStream.flush();
+            }
+        }
+    }
 }
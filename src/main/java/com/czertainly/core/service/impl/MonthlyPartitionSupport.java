@@ -0,0 +1,164 @@
+package com.czertainly.core.service.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Operations with the tables partitioned by range of the month of their creation in PostgreSQL. Partition of the month
+ * is named by the table and the month, for example {@code audit_log_2022_08}, rows outside of the monthly partitions
+ * are stored in the default partition, for example {@code audit_log_default}.
+ */
+@Component
+public class MonthlyPartitionSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyPartitionSupport.class);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String DEFAULT_PARTITION_SUFFIX = "_default";
+    // tables are partitioned by the time of creation of their rows
+    private static final String PARTITION_COLUMN = "i_cre";
+
+    @Value("${spring.jpa.properties.hibernate.default_schema:}")
+    private String schema;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Check whether the table is partitioned, tables are never partitioned in other databases than PostgreSQL
+     * @param table Name of the table
+     * @return True when the table is partitioned
+     */
+    public boolean isPartitioned(String table) {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(database)) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject("select count(*) from pg_partitioned_table pt " +
+                "join pg_class c on c.oid = pt.partrelid join pg_namespace n on n.oid = c.relnamespace " +
+                "where c.relname = ? and n.nspname = " + getSchemaCondition(), Integer.class, getSchemaArguments(table));
+        return count != null && count > 0;
+    }
+
+    /**
+     * List the partitions of the table, including the default partition
+     * @param table Name of the partitioned table
+     * @return Names of the partitions
+     */
+    public List<String> listPartitions(String table) {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i " +
+                "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent " +
+                "join pg_namespace n on n.oid = p.relnamespace " +
+                "where p.relname = ? and n.nspname = " + getSchemaCondition(), String.class, getSchemaArguments(table));
+    }
+
+    /**
+     * Create the partition of the month when it does not exist. Rows of the month already stored in the default
+     * partition are moved to the new partition, so they are archived and dropped with the month.
+     * @param table Name of the partitioned table
+     * @param month First day of the month
+     */
+    public void createPartition(String table, LocalDate month) {
+        String partition = table + "_" + month.format(PARTITION_SUFFIX_FORMAT);
+        if (listPartitions(table).contains(partition)) {
+            return;
+        }
+        String defaultPartition = getDefaultPartition(table);
+        String monthCondition = " where " + PARTITION_COLUMN + " >= ? and " + PARTITION_COLUMN + " < ?";
+        Object[] monthArguments = {Timestamp.valueOf(month.atStartOfDay()), Timestamp.valueOf(month.plusMonths(1).atStartOfDay())};
+        String createSql = "create table " + qualify(partition) + " partition of " + qualify(table) +
+                " for values from ('" + month + "') to ('" + month.plusMonths(1) + "')";
+
+        try {
+            boolean hasDefaultRows = listPartitions(table).contains(defaultPartition) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "select exists (select 1 from " + qualify(defaultPartition) + monthCondition + ")", Boolean.class, monthArguments));
+            if (!hasDefaultRows) {
+                jdbcTemplate.execute(createSql);
+                return;
+            }
+            // partition overlapping with the rows of the default partition cannot be created while it is attached
+            Integer moved = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("alter table " + qualify(table) + " detach partition " + qualify(defaultPartition));
+                jdbcTemplate.execute(createSql);
+                int count = jdbcTemplate.update("insert into " + qualify(partition) + " select * from " + qualify(defaultPartition) + monthCondition, monthArguments);
+                jdbcTemplate.update("delete from " + qualify(defaultPartition) + monthCondition, monthArguments);
+                jdbcTemplate.execute("alter table " + qualify(table) + " attach partition " + qualify(defaultPartition) + " default");
+                return count;
+            });
+            logger.info("Created partition {} with {} rows moved from {}", partition, moved, defaultPartition);
+        } catch (Exception e) {
+            logger.warn("Failed to create partition {}: {}", partition, e.getMessage());
+        }
+    }
+
+    /**
+     * Get the name of the default partition of the table
+     * @param table Name of the partitioned table
+     * @return Name of the default partition
+     */
+    public String getDefaultPartition(String table) {
+        return table + DEFAULT_PARTITION_SUFFIX;
+    }
+
+    /**
+     * Detach the partition from the table and drop it with all its rows
+     * @param table Name of the partitioned table
+     * @param partition Name of the partition
+     */
+    public void dropPartition(String table, String partition) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("alter table " + qualify(table) + " detach partition " + qualify(partition));
+            jdbcTemplate.execute("drop table " + qualify(partition));
+        });
+    }
+
+    /**
+     * Get the month of the partition
+     * @param table Name of the partitioned table
+     * @param partition Name of the partition
+     * @return First day of the month or null when it is not the partition of a month
+     */
+    public LocalDate getPartitionMonth(String table, String partition) {
+        String prefix = table + "_";
+        if (!partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(prefix.length()) + "_01", DateTimeFormatter.ofPattern("yyyy_MM_dd"));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Qualify the table by the configured schema
+     * @param table Name of the table
+     * @return Name of the table usable in SQL
+     */
+    public String qualify(String table) {
+        return StringUtils.isNotBlank(schema) ? schema + "." + table : table;
+    }
+
+    private String getSchemaCondition() {
+        return StringUtils.isNotBlank(schema) ? "?" : "current_schema()";
+    }
+
+    private Object[] getSchemaArguments(String table) {
+        return StringUtils.isNotBlank(schema) ? new Object[]{table, schema} : new Object[]{table};
+    }
+}
@@ -18,7 +18,6 @@ import com.czertainly.api.model.core.audit.OperationType;
 import com.czertainly.api.model.core.raprofile.RaProfileDto;
 import com.czertainly.core.aop.AuditLogged;
 import com.czertainly.core.dao.entity.AuthorityInstanceReference;
-import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.Client;
 import com.czertainly.core.dao.entity.RaProfile;
 import com.czertainly.core.dao.entity.acme.AcmeProfile;
@@ -65,6 +64,8 @@ public class RaProfileServiceImpl implements RaProfileService {
     private ExtendedAttributeService extendedAttributeService;
     @Autowired
     private ComplianceService complianceService;
+    @Autowired
+    private CertificateStatisticsRefresher certificateStatisticsRefresher;
 
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.RA_PROFILE, operation = OperationType.REQUEST)
@@ -155,10 +156,10 @@ public class RaProfileServiceImpl implements RaProfileService {
             acmeProfile.setRaProfile(null);
             acmeProfileRepository.save(acmeProfile);
         }
-        for (Certificate certificate : certificateRepository.findByRaProfile(raProfile)) {
-            certificate.setRaProfile(null);
-            certificateRepository.save(certificate);
-        }
+        int updated = certificateRepository.removeRaProfileAssociation(raProfile);
+        logger.debug("RA Profile association removed for {} certificates", updated);
+        // bulk update bypasses the entity listeners that keep the statistics current
+        certificateStatisticsRefresher.requestRefresh();
 
         raProfileRepository.delete(raProfile);
     }
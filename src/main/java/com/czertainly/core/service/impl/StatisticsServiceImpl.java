@@ -8,6 +8,7 @@ import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.dao.repository.DiscoveryRepository;
 import com.czertainly.core.dao.repository.GroupRepository;
 import com.czertainly.core.dao.repository.RaProfileRepository;
+import com.czertainly.core.model.dashboard.StatisticsSnapshotDto;
 import com.czertainly.core.service.StatisticsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,7 +17,6 @@ import org.springframework.security.access.annotation.Secured;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -41,33 +41,42 @@ public class StatisticsServiceImpl implements StatisticsService {
     @Autowired
     private RaProfileRepository raProfileRepository;
 
+    @Autowired
+    private CertificateStatisticsStore certificateStatisticsStore;
+
+    @Autowired
+    private CertificateStatisticsRefresher certificateStatisticsRefresher;
+
 
     @Override
     @AuditLogged(originator = ObjectType.FE, affected = ObjectType.STATISTICS, operation = OperationType.REQUEST)
     public StatisticsDto getStatistics() {
         logger.info("Gathering the statistics information from database");
 
-        StatisticsDto dto = new StatisticsDto();
-        dto.setTotalCertificates(getCertificateCount());
+        CertificateStatisticsStore.StatisticsSnapshot snapshot = certificateStatisticsStore.load();
+        if (snapshot == null) {
+            snapshot = certificateStatisticsStore.compute();
+            certificateStatisticsRefresher.requestRefresh();
+        }
+
+        StatisticsSnapshotDto dto = new StatisticsSnapshotDto();
+        dto.setRefreshedAt(snapshot.getRefreshedAt());
+        dto.setTotalCertificates(snapshot.getTotal());
         dto.setTotalDiscoveries(getDiscoveryCount());
         dto.setTotalGroups(getCertificateGroupCount());
         dto.setTotalRaProfiles(getRaProfileCount());
-        dto.setGroupStatByCertificateCount(getGroupStatByCertificateCount(dto));
-        dto.setRaProfileStatByCertificateCount(getRaProfileStatByCertificateCount(dto));
-        dto.setCertificateStatByType(getCertificateStatByType(dto));
-        dto.setCertificateStatByKeySize(getCertificateStatByKeySize(dto));
-        dto.setCertificateStatByBasicConstraints(getCertificateStatByBasicConstraints(dto));
-        dto.setCertificateStatByExpiry(getCertificatesByExpiry(dto));
-        dto.setCertificateStatByStatus(getCertificateStatByStatus());
-        dto.setCertificateStatByComplianceStatus(getCertificateStatByComplianceStatus());
+        dto.setGroupStatByCertificateCount(getGroupStatByCertificateCount(snapshot, dto));
+        dto.setRaProfileStatByCertificateCount(getRaProfileStatByCertificateCount(snapshot, dto));
+        dto.setCertificateStatByType(getStatsMap(snapshot.getCounts(CertificateStatisticsStore.TYPE), null, dto.getTotalCertificates(), "Unknown"));
+        dto.setCertificateStatByKeySize(getStatsMap(snapshot.getCounts(CertificateStatisticsStore.KEY_SIZE), null, dto.getTotalCertificates(), "Unknown"));
+        dto.setCertificateStatByBasicConstraints(getStatsMap(snapshot.getCounts(CertificateStatisticsStore.BASIC_CONSTRAINTS), null, dto.getTotalCertificates(), "Unknown"));
+        dto.setCertificateStatByExpiry(getCertificatesByExpiry(snapshot, dto));
+        dto.setCertificateStatByStatus(getStatsMap(snapshot.getCounts(CertificateStatisticsStore.STATUS), null, 0, null));
+        dto.setCertificateStatByComplianceStatus(getComplianceStatsMap(snapshot.getCounts(CertificateStatisticsStore.COMPLIANCE_STATUS)));
 
         return dto;
     }
 
-    private long getCertificateCount() {
-        return certificateRepository.count();
-    }
-
     private long getDiscoveryCount() {
         return discoveryRepository.count();
     }
@@ -80,89 +89,58 @@ public class StatisticsServiceImpl implements StatisticsService {
         return raProfileRepository.count();
     }
 
-    private Map<String, Long> getGroupStatByCertificateCount(StatisticsDto dto) {
-        List<Long> keys = new ArrayList<Long>();
-        var result = certificateRepository.getCertificatesCountByGroup();
-        for (Object[] item : result) keys.add((long) item[0]);
-        var labels = certificateRepository.getGroupNamesWithIds(keys);
+    private Map<String, Long> getGroupStatByCertificateCount(CertificateStatisticsStore.StatisticsSnapshot snapshot, StatisticsDto dto) {
+        var result = snapshot.getCounts(CertificateStatisticsStore.GROUP);
+        var labels = result.isEmpty() ? new ArrayList<Object[]>() : certificateRepository.getGroupNamesWithIds(getIds(result));
 
         return getStatsMap(result, labels, dto.getTotalCertificates(), "Unassigned");
     }
 
-    private Map<String, Long> getRaProfileStatByCertificateCount(StatisticsDto dto) {
-        List<Long> keys = new ArrayList<Long>();
-        var result = certificateRepository.getCertificatesCountByRaProfile();
-        for (Object[] item : result) keys.add((long) item[0]);
-        var labels = certificateRepository.getRaProfileNamesWithIds(keys);
+    private Map<String, Long> getRaProfileStatByCertificateCount(CertificateStatisticsStore.StatisticsSnapshot snapshot, StatisticsDto dto) {
+        var result = snapshot.getCounts(CertificateStatisticsStore.RA_PROFILE);
+        var labels = result.isEmpty() ? new ArrayList<Object[]>() : certificateRepository.getRaProfileNamesWithIds(getIds(result));
 
         return getStatsMap(result, labels, dto.getTotalCertificates(), "Unassigned");
     }
 
-    private Map<String, Long> getCertificateStatByType(StatisticsDto dto) {
-        var result = certificateRepository.getCertificatesCountByType();
-
-        return getStatsMap(result, null, dto.getTotalCertificates(), "Unknown");
-    }
-
-    private Map<String, Long> getCertificateStatByKeySize(StatisticsDto dto) {
-        var result = certificateRepository.getCertificatesCountByKeySize();
-
-        return getStatsMap(result, null, dto.getTotalCertificates(), "Unknown");
-    }
-
-    private Map<String, Long> getCertificateStatByBasicConstraints(StatisticsDto dto) {
-        var result = certificateRepository.getCertificatesCountByBasicConstraints();
-
-        return getStatsMap(result, null, dto.getTotalCertificates(), "Unknown");
+    private List<Long> getIds(Map<String, Long> result) {
+        List<Long> keys = new ArrayList<>();
+        for (String key : result.keySet()) keys.add(Long.valueOf(key));
+        return keys;
     }
 
-    private Map<String, Long> getCertificateStatByStatus() {
-        var result = certificateRepository.getCertificatesCountByStatus();
-
-        return getStatsMap(result, null, 0, null);
-    }
-
-    private Map<String, Long> getCertificateStatByComplianceStatus() {
-        var result = certificateRepository.getCertificatesCountByComplianceStatus();
-
-        return getComplianceStatsMap(result);
-    }
-
-    private Map<String, Long> getCertificatesByExpiry(StatisticsDto dto) {
+    private Map<String, Long> getCertificatesByExpiry(CertificateStatisticsStore.StatisticsSnapshot snapshot, StatisticsDto dto) {
         long totalStatsCount = 0;
         Map<String, Long> stats = new HashMap<>();
 
-        LocalDateTime today = LocalDateTime.now();
-        LocalDateTime notBeforeTo = today;
-        LocalDateTime notBeforeFrom = LocalDateTime.now();
-        int[] expiryInDays = {10, 20, 30, 60, 90};
-        for (Integer days : expiryInDays) {
-            notBeforeTo = today.plusDays(days);
-            var result = certificateRepository.getCertificatesCountByExpiryDate(java.sql.Timestamp.valueOf(notBeforeFrom), java.sql.Timestamp.valueOf(notBeforeTo));
-            totalStatsCount += (long) result.get(0)[0];
-            stats.put(days.toString(), (Long) result.get(0)[0]);
-            notBeforeFrom = notBeforeTo;
+        var result = snapshot.getCounts(CertificateStatisticsStore.EXPIRY);
+        for (int days : CertificateStatisticsStore.EXPIRY_IN_DAYS) {
+            long count = result.getOrDefault(Integer.toString(days), 0L);
+            totalStatsCount += count;
+            stats.put(Integer.toString(days), count);
         }
         stats.put("More", dto.getTotalCertificates() - totalStatsCount);
 
         return stats;
     }
 
-    private Map<String, Long> getStatsMap(List<Object[]> resultStats, List<Object[]> resultLabels, long totalCount, String defaultLabel) {
+    private Map<String, Long> getStatsMap(Map<String, Long> resultStats, List<Object[]> resultLabels, long totalCount, String defaultLabel) {
         long totalStatsCount = 0;
         Map<String, Long> stats = new HashMap<>();
 
         if (resultLabels == null) {
-            for (Object[] item : resultStats) {
-                totalStatsCount += (long) item[1];
-                stats.put(item[0].toString(), (long) item[1]);
+            for (Map.Entry<String, Long> item : resultStats.entrySet()) {
+                totalStatsCount += item.getValue();
+                stats.put(item.getKey(), item.getValue());
             }
         } else {
-            Map<Long, String> labels = new HashMap<>();
-            for (Object[] item : resultLabels) labels.put((long) item[0], item[1].toString());
-            for (Object[] item : resultStats) {
-                totalStatsCount += (long) item[1];
-                stats.put(labels.get((long) item[0]), (long) item[1]);
+            Map<String, String> labels = new HashMap<>();
+            for (Object[] item : resultLabels) labels.put(item[0].toString(), item[1].toString());
+            for (Map.Entry<String, Long> item : resultStats.entrySet()) {
+                // objects removed since the statistics were updated are counted as unassigned
+                if (!labels.containsKey(item.getKey())) continue;
+                totalStatsCount += item.getValue();
+                stats.put(labels.get(item.getKey()), item.getValue());
             }
         }
 
@@ -170,18 +148,14 @@ public class StatisticsServiceImpl implements StatisticsService {
         return stats;
     }
 
-    private Map<String, Long> getComplianceStatsMap(List<Object[]> resultStats) {
+    private Map<String, Long> getComplianceStatsMap(Map<String, Long> resultStats) {
         Map<String, Long> stats = new HashMap<>();
         Map<String, String> beToUiMapping = new HashMap<>();
         beToUiMapping.put("NA", "Not Checked");
         beToUiMapping.put("NOK", "Non Compliant");
         beToUiMapping.put("OK", "Compliant");
-        for (Object[] item : resultStats) {
-            if(item[0] == null){
-                stats.put(beToUiMapping.get("NA"), (long) item[1]);
-                continue;
-            }
-            stats.put(beToUiMapping.getOrDefault(item[0].toString(), "Unknown"), (long) item[1]);
+        for (Map.Entry<String, Long> item : resultStats.entrySet()) {
+            stats.merge(beToUiMapping.getOrDefault(item.getKey(), "Unknown"), item.getValue(), Long::sum);
         }
         return stats;
     }
@@ -0,0 +1,4 @@
+create index compliance_rule_connector_id_idx on compliance_rule (connector_id);
+create index compliance_group_connector_id_idx on compliance_group (connector_id);
+create index compliance_profile_rule_rule_id_idx on compliance_profile_rule (rule_id);
+create index compliance_profile_2_compliance_group_group_id_idx on compliance_profile_2_compliance_group (group_id);
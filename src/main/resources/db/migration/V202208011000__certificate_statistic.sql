@@ -0,0 +1,13 @@
+create sequence certificate_statistic_id_seq start 1 increment 1;
+
+CREATE TABLE certificate_statistic (
+	"id" BIGINT NOT NULL,
+	"dimension" VARCHAR NOT NULL,
+	"label" VARCHAR NOT NULL,
+	"certificate_count" BIGINT NOT NULL,
+	"refreshed_at" TIMESTAMP NOT NULL,
+	PRIMARY KEY ("id")
+)
+;
+
+create unique index certificate_statistic_dimension_label_idx on certificate_statistic (dimension, label);
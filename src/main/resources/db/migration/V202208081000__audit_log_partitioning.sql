@@ -0,0 +1,46 @@
+-- audit_log is partitioned by month of its creation, the primary key of the partitioned table has to contain the
+-- partition key
+alter table audit_log rename to audit_log_old;
+alter table audit_log_old rename constraint audit_log_pkey to audit_log_old_pkey;
+
+create table audit_log (
+    id int8 not null,
+    uuid varchar(255),
+    i_author varchar(255),
+    i_cre timestamp not null,
+    i_upd timestamp not null,
+    additional_data text,
+    affected varchar(255),
+    object_identifier varchar(255),
+    operation varchar(255),
+    operation_status varchar(255),
+    origination varchar(255),
+    primary key (id, i_cre)
+) partition by range (i_cre);
+
+-- rows outside of the existing monthly partitions
+create table audit_log_default partition of audit_log default;
+
+-- monthly partitions for the existing audit logs and the next months
+do $$
+declare
+    partition_month timestamp;
+    last_month timestamp := date_trunc('month', now()) + interval '2 months';
+begin
+    select coalesce(date_trunc('month', min(i_cre)), date_trunc('month', now())) into partition_month from audit_log_old;
+    while partition_month <= last_month loop
+        execute format('create table %I partition of audit_log for values from (%L) to (%L)',
+            'audit_log_' || to_char(partition_month, 'YYYY_MM'), partition_month, partition_month + interval '1 month');
+        partition_month := partition_month + interval '1 month';
+    end loop;
+end $$;
+
+insert into audit_log (id, uuid, i_author, i_cre, i_upd, additional_data, affected, object_identifier, operation, operation_status, origination)
+    select id, uuid, i_author, i_cre, i_upd, additional_data, affected, object_identifier, operation, operation_status, origination
+    from audit_log_old;
+
+drop table audit_log_old;
+
+create index audit_log_i_cre_idx on audit_log (i_cre);
+create index audit_log_operation_idx on audit_log (operation);
+create index audit_log_affected_idx on audit_log (affected);
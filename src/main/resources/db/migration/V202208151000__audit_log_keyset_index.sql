@@ -0,0 +1,3 @@
+-- audit logs are listed by the cursor ordered by the time of creation and id
+drop index if exists audit_log_i_cre_idx;
+create index audit_log_i_cre_id_idx on audit_log (i_cre, id);
@@ -0,0 +1,10 @@
+-- identifiers of the frequently inserted entities are allocated by the pooled-lo optimizer in blocks of the increment
+alter sequence certificate_id_seq increment by 100;
+alter sequence certificate_content_id_seq increment by 100;
+alter sequence certificate_event_history_id_seq increment by 100;
+alter sequence audit_log_id_seq increment by 100;
+alter sequence discovery_certificate_id_seq increment by 100;
+alter sequence acme_new_account_id_seq increment by 50;
+alter sequence acme_new_order_id_seq increment by 50;
+alter sequence acme_new_authorization_id_seq increment by 50;
+alter sequence acme_new_challenge_id_seq increment by 50;
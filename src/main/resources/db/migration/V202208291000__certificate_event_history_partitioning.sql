@@ -0,0 +1,53 @@
+-- certificate_event_history is partitioned by month of its creation, the primary key of the partitioned table has to
+-- contain the partition key. Repeated identical events are compacted into a single event with their count and the
+-- time of the first event.
+alter table certificate_event_history rename to certificate_event_history_old;
+alter table certificate_event_history_old rename constraint certificate_event_history_pkey to certificate_event_history_old_pkey;
+
+create table certificate_event_history (
+    id int8 not null,
+    uuid varchar not null,
+    i_cre timestamp not null,
+    i_upd timestamp not null,
+    i_author varchar not null,
+    event varchar not null,
+    status varchar not null,
+    message varchar not null,
+    additional_information varchar null default null,
+    certificate_id int8 not null,
+    repeat_count int4 not null default 1,
+    first_seen timestamp null,
+    primary key (id, i_cre)
+) partition by range (i_cre);
+
+-- rows outside of the existing monthly partitions
+create table certificate_event_history_default partition of certificate_event_history default;
+
+-- monthly partitions for the existing events and the next months
+do $$
+declare
+    partition_month timestamp;
+    last_month timestamp := date_trunc('month', now()) + interval '2 months';
+begin
+    select coalesce(date_trunc('month', min(i_cre)), date_trunc('month', now())) into partition_month from certificate_event_history_old;
+    while partition_month <= last_month loop
+        execute format('create table %I partition of certificate_event_history for values from (%L) to (%L)',
+            'certificate_event_history_' || to_char(partition_month, 'YYYY_MM'), partition_month, partition_month + interval '1 month');
+        partition_month := partition_month + interval '1 month';
+    end loop;
+end $$;
+
+insert into certificate_event_history (id, uuid, i_cre, i_upd, i_author, event, status, message, additional_information, certificate_id)
+    select id, uuid, i_cre, i_upd, i_author, event, status, message, additional_information, certificate_id
+    from certificate_event_history_old;
+
+drop table certificate_event_history_old;
+
+alter table certificate_event_history
+    add constraint certificate_history_to_certificate_key_1
+    foreign key (certificate_id)
+    references certificate
+    on update no action on delete cascade;
+
+create index certificate_event_history_certificate_i_cre_idx on certificate_event_history (certificate_id, i_cre, id);
+create index certificate_event_history_event_i_cre_idx on certificate_event_history (event, i_cre);
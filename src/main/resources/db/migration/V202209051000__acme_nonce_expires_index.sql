@@ -0,0 +1,2 @@
+-- expired nonces are removed by the background sweeper
+create index acme_nonce_expires_idx on acme_nonce (expires);
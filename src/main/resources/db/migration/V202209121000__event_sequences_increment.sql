@@ -0,0 +1,3 @@
+-- audit logs and certificate events are inserted by the batch writers with nextval for each row, so they take single identifiers
+alter sequence certificate_event_history_id_seq increment by 1;
+alter sequence audit_log_id_seq increment by 1;
@@ -1,8 +1,12 @@
 package com.czertainly.core;
 
+import com.czertainly.api.model.core.audit.AuditLogDto;
 import com.czertainly.api.model.core.audit.AuditLogFilter;
 import com.czertainly.api.model.core.audit.ExportResultDto;
 import com.czertainly.core.service.AuditLogService;
+import com.czertainly.core.service.impl.ExportProcessor;
+import com.google.common.primitives.Bytes;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,15 +14,22 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.test.context.support.WithMockUser;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 @SpringBootTest
 public class AuditLogExportTest {
 
     @Autowired
     private AuditLogService auditLogService;
+    @Autowired
+    private ExportProcessor exportProcessor;
 
     @Test
     @WithMockUser(roles="SUPERADMINISTRATOR")
@@ -31,4 +42,31 @@ public class AuditLogExportTest {
             fos.flush();
         }
     }
+
+    @Test
+    @WithMockUser(roles="SUPERADMINISTRATOR")
+    public void testExportAuditLog_streaming() throws IOException {
+        String fileName = auditLogService.getAuditLogExportFileName();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        auditLogService.exportAuditLogs(new AuditLogFilter(), Sort.by("id"), fileName, os);
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(os.toByteArray()))) {
+            ZipEntry entry = zis.getNextEntry();
+            Assertions.assertNotNull(entry);
+            Assertions.assertEquals(fileName.replace(".zip", ".csv"), entry.getName());
+        }
+    }
+
+    @Test
+    public void testExportAuditLog_aborted() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ExportProcessor.ExportWriter<AuditLogDto> writer = exportProcessor.openExport("aborted.zip", AuditLogDto.class, os, true)) {
+            writer.write(new AuditLogDto());
+            writer.abort();
+        }
+
+        // the zip file of the aborted export is not finished, it has no end of the central directory
+        byte[] endOfCentralDirectory = {0x50, 0x4b, 0x05, 0x06};
+        Assertions.assertEquals(-1, Collections.indexOfSubList(Bytes.asList(os.toByteArray()), Bytes.asList(endOfCentralDirectory)));
+    }
 }
@@ -14,6 +14,7 @@ import com.czertainly.core.dao.entity.RaProfile;
 import com.czertainly.core.dao.entity.acme.AcmeAccount;
 import com.czertainly.core.dao.entity.acme.AcmeAuthorization;
 import com.czertainly.core.dao.entity.acme.AcmeChallenge;
+import com.czertainly.core.dao.entity.acme.AcmeNonce;
 import com.czertainly.core.dao.entity.acme.AcmeOrder;
 import com.czertainly.core.dao.entity.acme.AcmeProfile;
 import com.czertainly.core.dao.repository.AcmeProfileRepository;
@@ -26,20 +27,31 @@ import com.czertainly.core.dao.repository.RaProfileRepository;
 import com.czertainly.core.dao.repository.acme.AcmeAccountRepository;
 import com.czertainly.core.dao.repository.acme.AcmeAuthorizationRepository;
 import com.czertainly.core.dao.repository.acme.AcmeChallengeRepository;
+import com.czertainly.core.dao.repository.acme.AcmeNonceRepository;
 import com.czertainly.core.dao.repository.acme.AcmeOrderRepository;
 import com.czertainly.core.service.acme.AcmeService;
+import com.czertainly.core.service.acme.impl.AcmeNonceManager;
+import com.czertainly.core.service.acme.impl.AcmeNonceSweeper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.file.Path;
 import java.security.cert.CertificateException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 
 @SpringBootTest
@@ -77,6 +89,12 @@ public class AcmeServiceTest {
 
     @Autowired
     private AcmeAccountService acmeAccountService;
+    @Autowired
+    private AcmeNonceManager acmeNonceManager;
+    @Autowired
+    private AcmeNonceSweeper acmeNonceSweeper;
+    @Autowired
+    private AcmeNonceRepository acmeNonceRepository;
 
     @Autowired
     private AcmeAccountRepository acmeAccountRepository;
@@ -199,6 +217,80 @@ public class AcmeServiceTest {
         Assertions.assertNotNull(response.getHeaders().get("Replay-Nonce"));
     }
 
+    @Test
+    public void testValidateNonce() throws AcmeProblemDocumentException {
+        String nonce = acmeNonceManager.generateNonce();
+        acmeNonceManager.validateNonce(nonce);
+        Assertions.assertThrows(AcmeProblemDocumentException.class, () -> acmeNonceManager.validateNonce(nonce));
+    }
+
+    @Test
+    public void testValidateNonce_tampered() {
+        String nonce = acmeNonceManager.generateNonce();
+        String tampered = (nonce.charAt(0) == 'A' ? 'B' : 'A') + nonce.substring(1);
+        Assertions.assertThrows(AcmeProblemDocumentException.class, () -> acmeNonceManager.validateNonce(tampered));
+        Assertions.assertThrows(AcmeProblemDocumentException.class, () -> acmeNonceManager.validateNonce("5pSv1vR6SEJryGlA0JRns6e376ZGjUt-CYxmqvwBEaY"));
+    }
+
+    @Test
+    public void testValidateNonce_statelessRestart(@TempDir Path stateDirectory) throws AcmeProblemDocumentException {
+        String secret = Base64.getEncoder().encodeToString(new byte[32]);
+        // the clock does not move, so only the reserved sequence numbers distinguish the nonces issued before the start
+        Clock clock = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+        AcmeNonceManager node = createStatelessNonceManager(secret, "node1", stateDirectory, clock);
+        String usedNonce = node.generateNonce();
+        String unusedNonce = node.generateNonce();
+        node.validateNonce(usedNonce);
+        node.destroy();
+
+        // the restarted node remembers the used nonces, another node does not accept them
+        AcmeNonceManager restartedNode = createStatelessNonceManager(secret, "node1", stateDirectory, clock);
+        AcmeNonceManager otherNode = createStatelessNonceManager(secret, "node2", stateDirectory, clock);
+        Assertions.assertThrows(AcmeProblemDocumentException.class, () -> otherNode.validateNonce(unusedNonce));
+        Assertions.assertThrows(AcmeProblemDocumentException.class, () -> restartedNode.validateNonce(usedNonce));
+        restartedNode.validateNonce(unusedNonce);
+
+        // used nonces are not known after a crash, so the nonces issued before the start are rejected
+        String nonceBeforeCrash = restartedNode.generateNonce();
+        AcmeNonceManager crashedNode = createStatelessNonceManager(secret, "node1", stateDirectory, clock);
+        Assertions.assertThrows(AcmeProblemDocumentException.class, () -> crashedNode.validateNonce(nonceBeforeCrash));
+        crashedNode.validateNonce(crashedNode.generateNonce());
+    }
+
+    private AcmeNonceManager createStatelessNonceManager(String secret, String nodeId, Path stateDirectory, Clock clock) {
+        AcmeNonceManager nonceManager = new AcmeNonceManager();
+        ReflectionTestUtils.setField(nonceManager, "clock", clock);
+        ReflectionTestUtils.setField(nonceManager, "store", "");
+        ReflectionTestUtils.setField(nonceManager, "secret", secret);
+        ReflectionTestUtils.setField(nonceManager, "nodeName", nodeId);
+        ReflectionTestUtils.setField(nonceManager, "stateDirectory", stateDirectory.toString());
+        ReflectionTestUtils.setField(nonceManager, "validity", 3600);
+        ReflectionTestUtils.setField(nonceManager, "bucketCount", 60);
+        nonceManager.init();
+        return nonceManager;
+    }
+
+    @Test
+    public void testSweepExpiredNonces() {
+        for (int i = 0; i < 3; i++) {
+            AcmeNonce acmeNonce = new AcmeNonce();
+            acmeNonce.setNonce("expired" + i);
+            acmeNonce.setCreated(new Date(System.currentTimeMillis() - 7200000));
+            acmeNonce.setExpires(new Date(System.currentTimeMillis() - 3600000));
+            acmeNonceRepository.saveAndFlush(acmeNonce);
+        }
+        AcmeNonce liveNonce = new AcmeNonce();
+        liveNonce.setNonce("live");
+        liveNonce.setCreated(new Date());
+        liveNonce.setExpires(new Date(System.currentTimeMillis() + 3600000));
+        acmeNonceRepository.saveAndFlush(liveNonce);
+
+        Assertions.assertEquals(3, acmeNonceSweeper.sweep());
+        Assertions.assertEquals(1, acmeNonceSweeper.getLiveNonceCount());
+        Assertions.assertEquals(3, acmeNonceSweeper.getLastSweepRemoved());
+        Assertions.assertTrue(acmeNonceRepository.findByNonce("live").isPresent());
+    }
+
     @Test
     public void testNewAccount() throws AcmeProblemDocumentException, NotFoundException {
         String requestJson = "{\n" +
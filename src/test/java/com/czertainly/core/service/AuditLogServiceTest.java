@@ -0,0 +1,183 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.exception.ValidationException;
+import com.czertainly.api.model.core.audit.AuditLogDto;
+import com.czertainly.api.model.core.audit.AuditLogFilter;
+import com.czertainly.api.model.core.audit.ObjectType;
+import com.czertainly.api.model.core.audit.OperationStatusEnum;
+import com.czertainly.api.model.core.audit.OperationType;
+import com.czertainly.core.aop.AuditLogPolicy;
+import com.czertainly.core.dao.entity.AuditLog;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.QAuditLog;
+import com.czertainly.core.dao.repository.AuditLogRepository;
+import com.czertainly.core.model.auditlog.AuditLogScrollResponseDto;
+import com.czertainly.core.service.impl.AuditLogArgumentProjector;
+import com.czertainly.core.service.impl.AuditLogPolicyManager;
+import com.czertainly.core.service.impl.AuditLogWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@SpringBootTest(properties = "auditLog.policy.rules=CERTIFICATE/REQUEST=SAMPLED(0.5),CERTIFICATE/*=OFF,*/DELETE=AGGREGATED,CLIENT/*=EXTERNAL_ONLY")
+public class AuditLogServiceTest {
+
+    @Autowired
+    private AuditLogService auditLogService;
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private AuditLogPolicyManager auditLogPolicyManager;
+
+    @Autowired
+    private AuditLogArgumentProjector auditLogArgumentProjector;
+
+    @Test
+    @WithMockUser(username = "auditor", roles = "SUPERADMINISTRATOR")
+    public void testLog_writtenAsynchronously() throws InterruptedException {
+        String objectIdentifier = UUID.randomUUID().toString();
+        auditLogService.log(ObjectType.FE, ObjectType.CERTIFICATE, objectIdentifier, OperationType.REQUEST,
+                OperationStatusEnum.SUCCESS, Map.of("uuid", objectIdentifier));
+        auditLogWriter.flush();
+
+        // the audit log can still be written by the writer thread
+        Optional<AuditLog> auditLog = Optional.empty();
+        for (int i = 0; i < 50 && auditLog.isEmpty(); i++) {
+            auditLog = auditLogRepository.findOne(QAuditLog.auditLog.objectIdentifier.eq(objectIdentifier));
+            if (auditLog.isEmpty()) {
+                Thread.sleep(100);
+            }
+        }
+
+        Assertions.assertTrue(auditLog.isPresent());
+        Assertions.assertEquals("auditor", auditLog.get().getAuthor());
+        Assertions.assertEquals(OperationType.REQUEST, auditLog.get().getOperation());
+        Assertions.assertNotNull(auditLog.get().getCreated());
+        Assertions.assertTrue(auditLog.get().getAdditionalData().contains(objectIdentifier));
+    }
+
+    @Test
+    @WithMockUser(username = "auditor", roles = "SUPERADMINISTRATOR")
+    public void testScrollAuditLogs() throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        for (int i = 0; i < 3; i++) {
+            auditLogService.log(ObjectType.FE, ObjectType.CERTIFICATE, prefix + "-" + i, OperationType.CREATE,
+                    OperationStatusEnum.SUCCESS, Map.of("index", i));
+        }
+        auditLogWriter.flush();
+        for (int i = 0; i < 50 && auditLogRepository.count(QAuditLog.auditLog.objectIdentifier.startsWith(prefix)) < 3; i++) {
+            Thread.sleep(100);
+        }
+
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setObjectIdentifier(prefix + "%");
+        AuditLogScrollResponseDto first = auditLogService.scrollAuditLogs(filter, null, 2, true);
+        Assertions.assertEquals(2, first.getItems().size());
+        Assertions.assertNotNull(first.getNextCursor());
+
+        AuditLogScrollResponseDto second = auditLogService.scrollAuditLogs(filter, first.getNextCursor(), 2, true);
+        Assertions.assertEquals(1, second.getItems().size());
+        Assertions.assertNull(second.getNextCursor());
+        Assertions.assertNotEquals(first.getItems().get(1).getId(), second.getItems().get(0).getId());
+
+        AuditLogDto detail = auditLogService.getAuditLog(second.getItems().get(0).getId());
+        Assertions.assertNotNull(detail.getAdditionalData());
+    }
+
+    @Test
+    public void testScrollAuditLogs_invalidCursor() {
+        Assertions.assertThrows(ValidationException.class,
+                () -> auditLogService.scrollAuditLogs(new AuditLogFilter(), "invalid", 10, false));
+    }
+
+    @Test
+    public void testPolicy_mostSpecificRule() {
+        AuditLogPolicyManager.Rule rule = auditLogPolicyManager.getRule(ObjectType.CERTIFICATE, OperationType.REQUEST);
+        Assertions.assertEquals(AuditLogPolicy.SAMPLED, rule.getPolicy());
+        Assertions.assertEquals(0.5, rule.getSampleRate());
+
+        Assertions.assertEquals(AuditLogPolicy.OFF, auditLogPolicyManager.getRule(ObjectType.CERTIFICATE, OperationType.DELETE).getPolicy());
+        Assertions.assertEquals(AuditLogPolicy.AGGREGATED, auditLogPolicyManager.getRule(ObjectType.RA_PROFILE, OperationType.DELETE).getPolicy());
+        Assertions.assertEquals(AuditLogPolicy.ALWAYS, auditLogPolicyManager.getRule(ObjectType.RA_PROFILE, OperationType.REQUEST).getPolicy());
+    }
+
+    @Test
+    public void testPolicy_isAudited() {
+        AuditLogPolicyManager.Rule externalOnly = auditLogPolicyManager.getRule(ObjectType.CLIENT, OperationType.REQUEST);
+        Assertions.assertTrue(auditLogPolicyManager.isAudited(externalOnly, false, OperationStatusEnum.SUCCESS));
+        Assertions.assertFalse(auditLogPolicyManager.isAudited(externalOnly, true, OperationStatusEnum.SUCCESS));
+
+        AuditLogPolicyManager.Rule aggregated = auditLogPolicyManager.getRule(ObjectType.RA_PROFILE, OperationType.DELETE);
+        Assertions.assertFalse(auditLogPolicyManager.isAudited(aggregated, false, OperationStatusEnum.SUCCESS));
+        Assertions.assertTrue(auditLogPolicyManager.isAudited(aggregated, false, OperationStatusEnum.FAILURE));
+
+        AuditLogPolicyManager.Rule off = auditLogPolicyManager.getRule(ObjectType.CERTIFICATE, OperationType.DELETE);
+        Assertions.assertFalse(auditLogPolicyManager.isAudited(off, false, OperationStatusEnum.FAILURE));
+    }
+
+    @Test
+    public void testProjectArguments() {
+        Certificate certificate = new Certificate();
+        certificate.setCommonName("testCertificate");
+        certificate.setSerialNumber("123456789");
+        certificate.setMeta("{\"discoverySource\":\"test\"}");
+
+        Map<?, ?> summary = (Map<?, ?>) auditLogArgumentProjector.project(certificate);
+        Assertions.assertEquals(certificate.getUuid(), summary.get("uuid"));
+        Assertions.assertEquals("testCertificate", summary.get("commonName"));
+        Assertions.assertFalse(summary.containsKey("meta"));
+
+        String projected = (String) auditLogArgumentProjector.project("a".repeat(5000));
+        Assertions.assertTrue(projected.length() < 1100);
+
+        List<?> items = (List<?>) auditLogArgumentProjector.project(Collections.nCopies(100, "item"));
+        Assertions.assertEquals(21, items.size());
+    }
+
+    @Test
+    public void testProjectArguments_nestedBeans() {
+        ProjectedNode node = new ProjectedNode();
+        node.setName("a".repeat(5000));
+        // cyclic graph is projected only to the maximum depth
+        node.setNext(node);
+
+        Map<?, ?> projected = (Map<?, ?>) auditLogArgumentProjector.project(node);
+        Assertions.assertTrue(((String) projected.get("name")).length() < 1100);
+        Map<?, ?> nested = (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) projected.get("next")).get("next")).get("next");
+        Assertions.assertEquals("...", nested.get("next"));
+    }
+
+    public static class ProjectedNode {
+        private String name;
+        private ProjectedNode next;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public ProjectedNode getNext() {
+            return next;
+        }
+
+        public void setNext(ProjectedNode next) {
+            this.next = next;
+        }
+    }
+}
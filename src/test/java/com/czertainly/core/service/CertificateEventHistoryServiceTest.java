@@ -0,0 +1,134 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.model.core.certificate.CertificateEvent;
+import com.czertainly.api.model.core.certificate.CertificateEventHistoryDto;
+import com.czertainly.api.model.core.certificate.CertificateEventStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
+import com.czertainly.core.dao.entity.CertificateEventHistory;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateEventHistoryRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
+import com.czertainly.core.model.certificate.CertificateEventHistoryPageResponseDto;
+import com.czertainly.core.service.impl.CertificateEventHistoryMaintenance;
+import com.czertainly.core.service.impl.CertificateEventHistoryWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@SpringBootTest
+@WithMockUser(username = "historian", roles = "SUPERADMINISTRATOR")
+public class CertificateEventHistoryServiceTest {
+
+    @Autowired
+    private CertificateEventHistoryService certificateEventHistoryService;
+    @Autowired
+    private CertificateEventHistoryWriter certificateEventHistoryWriter;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private CertificateEventHistoryRepository certificateEventHistoryRepository;
+    @Autowired
+    private CertificateEventHistoryMaintenance certificateEventHistoryMaintenance;
+
+    private CertificateContent certificateContent;
+    private Certificate certificate;
+
+    @BeforeEach
+    public void setUp() {
+        certificateContent = certificateContentRepository.save(new CertificateContent());
+
+        certificate = new Certificate();
+        certificate.setSubjectDn("testCertificate");
+        certificate.setIssuerDn("testCertificate");
+        certificate.setSerialNumber(UUID.randomUUID().toString());
+        certificate.setCertificateContent(certificateContent);
+        certificate = certificateRepository.save(certificate);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // the test is not transactional, so the events are written, the stored data are removed for the other tests
+        certificateEventHistoryWriter.flush();
+        certificateEventHistoryRepository.deleteAll(certificateEventHistoryRepository.findByCertificateOrderByCreatedDesc(certificate));
+        certificateRepository.delete(certificate);
+        certificateContentRepository.delete(certificateContent);
+    }
+
+    @Test
+    public void testAddEventHistory_writtenOnCommit() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> certificateEventHistoryService.addEventHistory(
+                CertificateEvent.UPDATE_OWNER, CertificateEventStatus.SUCCESS, "committed", "", certificate));
+        transactionTemplate.executeWithoutResult(status -> {
+            certificateEventHistoryService.addEventHistory(CertificateEvent.UPDATE_OWNER, CertificateEventStatus.SUCCESS, "rolled back", "", certificate);
+            status.setRollbackOnly();
+        });
+        certificateEventHistoryWriter.flush();
+
+        List<CertificateEventHistoryDto> history = certificateEventHistoryService.getCertificateEventHistory(certificate.getUuid());
+        Assertions.assertEquals(1, history.size());
+        Assertions.assertEquals("committed", history.get(0).getMessage());
+        Assertions.assertEquals("historian", history.get(0).getCreatedBy());
+    }
+
+    @Test
+    public void testAddEventHistoryForCertificates() throws Exception {
+        Integer inserted = transactionTemplate.execute(status -> certificateEventHistoryService.addEventHistoryForCertificates(
+                " WHERE c.serialNumber = '" + certificate.getSerialNumber() + "'", CertificateEvent.UPDATE_GROUP,
+                CertificateEventStatus.SUCCESS, "Group Name: test"));
+        Assertions.assertEquals(1, inserted);
+
+        List<CertificateEventHistoryDto> history = certificateEventHistoryService.getCertificateEventHistory(certificate.getUuid());
+        Assertions.assertEquals(1, history.size());
+        Assertions.assertEquals(CertificateEvent.UPDATE_GROUP, history.get(0).getEvent());
+        Assertions.assertEquals("historian", history.get(0).getCreatedBy());
+        Assertions.assertNotNull(history.get(0).getUuid());
+    }
+
+    @Test
+    public void testCompactDiscoveryEvents() throws Exception {
+        List<CertificateEventHistory> histories = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            histories.add(getDiscoveryEvent(CertificateEventStatus.SUCCESS, "Discovered from Connector: test"));
+        }
+        // disappearance of the certificate separates the runs of the identical events
+        histories.add(getDiscoveryEvent(CertificateEventStatus.FAILED, "Not discovered again from Connector: test"));
+        for (int i = 0; i < 3; i++) {
+            histories.add(getDiscoveryEvent(CertificateEventStatus.SUCCESS, "Discovered from Connector: test"));
+        }
+        certificateEventHistoryRepository.saveAll(histories);
+
+        Assertions.assertEquals(3, certificateEventHistoryMaintenance.compact(CertificateEvent.DISCOVERY));
+
+        CertificateEventHistoryPageResponseDto page = certificateEventHistoryService.getCertificateEventHistory(certificate.getUuid(), 1, 1);
+        Assertions.assertEquals(3, page.getTotalItems());
+        Assertions.assertEquals(3, page.getTotalPages());
+        Assertions.assertEquals(1, page.getItems().size());
+
+        List<Object> occurrences = new ArrayList<>();
+        for (CertificateEventHistoryDto history : certificateEventHistoryService.getCertificateEventHistory(certificate.getUuid())) {
+            if (history.getStatus() == CertificateEventStatus.SUCCESS) {
+                occurrences.add(history.getAdditionalInformation().get("Occurrences"));
+            }
+        }
+        Assertions.assertEquals(2, occurrences.size());
+        Assertions.assertTrue(occurrences.containsAll(List.of(2, 3)));
+    }
+
+    private CertificateEventHistory getDiscoveryEvent(CertificateEventStatus status, String message) {
+        return certificateEventHistoryService.getEventHistory(CertificateEvent.DISCOVERY, status, message, "{}", certificate);
+    }
+}
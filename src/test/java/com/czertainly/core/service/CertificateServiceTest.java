@@ -12,6 +12,7 @@ import com.czertainly.api.model.client.certificate.owner.CertificateOwnerRequest
 import com.czertainly.api.model.core.certificate.CertificateDto;
 import com.czertainly.api.model.core.certificate.CertificateStatus;
 import com.czertainly.api.model.core.search.SearchFieldDataDto;
+import com.czertainly.api.model.core.search.SearchLabelConstants;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.CertificateGroup;
@@ -244,6 +245,25 @@ public class CertificateServiceTest {
         Assertions.assertFalse(response.isEmpty());
     }
 
+    @Test
+    public void testSearchableFields_groupAdded() {
+        // the first call flushes the entities created by the set up, which invalidates the catalog being built
+        certificateService.getSearchableFieldInformation();
+        List<SearchFieldDataDto> response = certificateService.getSearchableFieldInformation();
+        Assertions.assertSame(response, certificateService.getSearchableFieldInformation());
+
+        CertificateGroup group = new CertificateGroup();
+        group.setName("testSearchableGroup");
+        groupRepository.saveAndFlush(group);
+
+        response = certificateService.getSearchableFieldInformation();
+        SearchFieldDataDto groupFilter = response.stream()
+                .filter(field -> field.getField() == SearchLabelConstants.GROUP_NAME_FILTER.getField())
+                .findFirst().orElseThrow();
+        Assertions.assertTrue(groupFilter.getValue().contains("testSearchableGroup"));
+        Assertions.assertNotSame(SearchLabelConstants.GROUP_NAME_FILTER, groupFilter);
+    }
+
     @Test
     public void testBulkRemove() throws NotFoundException {
         RemoveCertificateDto request = new RemoveCertificateDto();
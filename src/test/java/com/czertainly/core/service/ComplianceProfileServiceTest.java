@@ -10,11 +10,15 @@ import com.czertainly.api.model.client.compliance.ComplianceRuleAdditionRequestD
 import com.czertainly.api.model.client.compliance.ComplianceRuleDeletionRequestDto;
 import com.czertainly.api.model.client.compliance.RaProfileAssociationRequestDto;
 import com.czertainly.api.model.client.raprofile.SimplifiedRaProfileDto;
+import com.czertainly.api.model.core.certificate.CertificateComplianceStorageDto;
 import com.czertainly.api.model.core.certificate.CertificateType;
 import com.czertainly.api.model.core.compliance.ComplianceProfileDto;
 import com.czertainly.api.model.core.compliance.ComplianceProfilesListDto;
+import com.czertainly.api.model.core.compliance.ComplianceStatus;
 import com.czertainly.api.model.core.connector.ConnectorStatus;
 import com.czertainly.core.dao.entity.AuthorityInstanceReference;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.ComplianceGroup;
 import com.czertainly.core.dao.entity.ComplianceProfile;
 import com.czertainly.core.dao.entity.ComplianceProfileRule;
@@ -22,6 +26,8 @@ import com.czertainly.core.dao.entity.ComplianceRule;
 import com.czertainly.core.dao.entity.Connector;
 import com.czertainly.core.dao.entity.RaProfile;
 import com.czertainly.core.dao.repository.AuthorityInstanceReferenceRepository;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.dao.repository.ComplianceGroupRepository;
 import com.czertainly.core.dao.repository.ComplianceProfileRepository;
 import com.czertainly.core.dao.repository.ComplianceProfileRuleRepository;
@@ -40,7 +46,10 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @SpringBootTest
 @Transactional
@@ -72,6 +81,15 @@ public class ComplianceProfileServiceTest {
     @Autowired
     private RaProfileRepository raProfileRepository;
 
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private Connector connector;
     private WireMockServer mockServer;
     private ComplianceRule complianceRule;
@@ -352,6 +370,41 @@ public class ComplianceProfileServiceTest {
         complianceProfileService.associateProfile(complianceProfile.getUuid(), request);
     }
 
+    @Test
+    public void disassociateRaProfile_resetsCompliance() throws NotFoundException {
+        raProfile.setComplianceProfiles(new HashSet<>(Set.of(complianceProfile)));
+        raProfile = raProfileRepository.save(raProfile);
+
+        CertificateContent certificateContent = certificateContentRepository.save(new CertificateContent());
+        Certificate profileCertificate = createCertificate(certificateContent, raProfile);
+        Certificate otherCertificate = createCertificate(certificateContent, null);
+        entityManager.flush();
+        entityManager.clear();
+
+        RaProfileAssociationRequestDto request = new RaProfileAssociationRequestDto();
+        request.setRaProfileUuids(List.of(raProfile.getUuid()));
+        complianceProfileService.disassociateProfile(complianceProfile.getUuid(), request);
+        entityManager.flush();
+        entityManager.clear();
+
+        // the RA Profile has no compliance profile left, so the results of its certificates are removed
+        Certificate updated = certificateRepository.findByUuid(profileCertificate.getUuid()).orElseThrow();
+        Assertions.assertNull(updated.getComplianceStatus());
+        Assertions.assertNull(updated.getComplianceResult());
+        Assertions.assertEquals(raProfile.getId(), updated.getRaProfileId());
+        Assertions.assertEquals(ComplianceStatus.NOK, certificateRepository.findByUuid(otherCertificate.getUuid()).orElseThrow().getComplianceStatus());
+    }
+
+    private Certificate createCertificate(CertificateContent certificateContent, RaProfile raProfile) {
+        Certificate certificate = new Certificate();
+        certificate.setCertificateContent(certificateContent);
+        certificate.setSerialNumber(raProfile != null ? "profileSerial" : "otherSerial");
+        certificate.setRaProfile(raProfile);
+        certificate.setComplianceStatus(ComplianceStatus.NOK);
+        certificate.setComplianceResult(new CertificateComplianceStorageDto());
+        return certificateRepository.save(certificate);
+    }
+
     @Test
     public void getComplianceRulesTest_Invalid() throws NotFoundException {
         Assertions.assertThrows(NotFoundException.class, () -> complianceProfileService.getComplianceRules("wrong", null, null));
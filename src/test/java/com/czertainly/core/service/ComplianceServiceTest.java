@@ -1,12 +1,20 @@
 package com.czertainly.core.service;
 
 import com.czertainly.api.exception.ConnectorException;
+import com.czertainly.api.exception.NotFoundException;
+import com.czertainly.api.model.client.certificate.CertificateUpdateRAProfileDto;
+import com.czertainly.api.model.connector.compliance.ComplianceRequestRulesDto;
+import com.czertainly.api.model.connector.compliance.ComplianceResponseDto;
+import com.czertainly.api.model.connector.compliance.ComplianceResponseRulesDto;
 import com.czertainly.api.model.core.certificate.CertificateType;
+import com.czertainly.api.model.core.compliance.ComplianceStatus;
 import com.czertainly.api.model.core.connector.ConnectorStatus;
 import com.czertainly.core.dao.entity.AuthorityInstanceReference;
 import com.czertainly.core.dao.entity.Certificate;
 import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.ComplianceGroup;
+import com.czertainly.core.dao.entity.ComplianceProfile;
+import com.czertainly.core.dao.entity.ComplianceProfileRule;
 import com.czertainly.core.dao.entity.ComplianceRule;
 import com.czertainly.core.dao.entity.Connector;
 import com.czertainly.core.dao.entity.RaProfile;
@@ -14,9 +22,12 @@ import com.czertainly.core.dao.repository.AuthorityInstanceReferenceRepository;
 import com.czertainly.core.dao.repository.CertificateContentRepository;
 import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.dao.repository.ComplianceGroupRepository;
+import com.czertainly.core.dao.repository.ComplianceProfileRepository;
+import com.czertainly.core.dao.repository.ComplianceProfileRuleRepository;
 import com.czertainly.core.dao.repository.ComplianceRuleRepository;
 import com.czertainly.core.dao.repository.ConnectorRepository;
 import com.czertainly.core.dao.repository.RaProfileRepository;
+import com.czertainly.core.service.impl.ComplianceResultCache;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import org.junit.jupiter.api.AfterEach;
@@ -27,8 +38,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @SpringBootTest
 @Transactional
 @Rollback
@@ -57,6 +74,14 @@ public class ComplianceServiceTest {
     private ComplianceGroupRepository complianceGroupRepository;
     @Autowired
     private ComplianceRuleRepository complianceRuleRepository;
+    @Autowired
+    private ComplianceResultCache complianceResultCache;
+    @Autowired
+    private CertificateService certificateService;
+    @Autowired
+    private ComplianceProfileRepository complianceProfileRepository;
+    @Autowired
+    private ComplianceProfileRuleRepository complianceProfileRuleRepository;
 
 
     private RaProfile raProfile;
@@ -175,4 +200,86 @@ public class ComplianceServiceTest {
         Boolean isExists = complianceService.complianceGroupExists("random", connector, "default");
         Assertions.assertEquals(false, isExists);
     }
+
+    @Test
+    public void testComplianceResultCache() {
+        ComplianceRequestRulesDto rule1 = new ComplianceRequestRulesDto();
+        rule1.setUuid("e8965d90-f1fd-11ec-b939-0242ac120002");
+        ComplianceRequestRulesDto rule2 = new ComplianceRequestRulesDto();
+        rule2.setUuid("e8965d90-f1fd-11ec-b939-0242ac120004");
+        ComplianceResponseDto response = new ComplianceResponseDto();
+        response.setRules(new ArrayList<>());
+
+        complianceResultCache.put("fingerprint", connector.getUuid(), "default", List.of(rule1, rule2), response);
+        // order of the rules does not change the rule set
+        ComplianceResponseDto cached = complianceResultCache.get("fingerprint", connector.getUuid(), "default", List.of(rule2, rule1));
+        Assertions.assertNotNull(cached);
+        Assertions.assertNotSame(response, cached);
+        // change of the returned result does not change the cached one
+        cached.getRules().add(new ComplianceResponseRulesDto());
+        response.getRules().add(new ComplianceResponseRulesDto());
+        Assertions.assertTrue(complianceResultCache.get("fingerprint", connector.getUuid(), "default", List.of(rule1, rule2)).getRules().isEmpty());
+        Assertions.assertNull(complianceResultCache.get("fingerprint", connector.getUuid(), "default", List.of(rule1)));
+        Assertions.assertNull(complianceResultCache.get("fingerprint", connector.getUuid(), "other", List.of(rule1, rule2)));
+
+        complianceResultCache.invalidateConnector(connector.getUuid());
+        Assertions.assertNull(complianceResultCache.get("fingerprint", connector.getUuid(), "default", List.of(rule1, rule2)));
+    }
+
+    @Test
+    public void testComplianceResultCache_evictOldest() {
+        ComplianceRequestRulesDto rule = new ComplianceRequestRulesDto();
+        rule.setUuid("e8965d90-f1fd-11ec-b939-0242ac120002");
+
+        int maxEntries = (int) ReflectionTestUtils.getField(complianceResultCache, "maxEntries");
+        ReflectionTestUtils.setField(complianceResultCache, "maxEntries", 2);
+        try {
+            complianceResultCache.invalidateAll();
+            for (int i = 0; i < 3; i++) {
+                complianceResultCache.put("fingerprint" + i, connector.getUuid(), "default", List.of(rule), new ComplianceResponseDto());
+            }
+            Assertions.assertNull(complianceResultCache.get("fingerprint0", connector.getUuid(), "default", List.of(rule)));
+            Assertions.assertNotNull(complianceResultCache.get("fingerprint1", connector.getUuid(), "default", List.of(rule)));
+            Assertions.assertNotNull(complianceResultCache.get("fingerprint2", connector.getUuid(), "default", List.of(rule)));
+        } finally {
+            ReflectionTestUtils.setField(complianceResultCache, "maxEntries", maxEntries);
+            complianceResultCache.invalidateAll();
+        }
+    }
+
+    @Test
+    public void testUpdateRaProfile_cachedCompliance() throws NotFoundException {
+        mockServer.stubFor(WireMock
+                .any(WireMock.urlPathMatching("/v1/complianceProvider/[^/]+/compliance"))
+                .willReturn(WireMock.okJson("{\"status\":\"nok\",\"rules\":[{\"uuid\":\"" + complianceRule.getUuid() + "\",\"name\":\"Rule1\",\"status\":\"nok\"}]}")));
+
+        ComplianceProfile complianceProfile = new ComplianceProfile();
+        complianceProfile.setName("testComplianceProfile");
+        complianceProfile = complianceProfileRepository.save(complianceProfile);
+        ComplianceProfileRule complianceProfileRule = new ComplianceProfileRule();
+        complianceProfileRule.setComplianceProfile(complianceProfile);
+        complianceProfileRule.setComplianceRule(complianceRule);
+        complianceProfileRuleRepository.save(complianceProfileRule);
+        complianceProfile.getComplianceRules().add(complianceProfileRule);
+        raProfile.setComplianceProfiles(new HashSet<>(Set.of(complianceProfile)));
+        raProfile = raProfileRepository.save(raProfile);
+
+        certificateContent.setContent("certificateContent");
+        certificate.setFingerprint("updateRaProfileFingerprint");
+        certificate = certificateRepository.save(certificate);
+
+        CertificateUpdateRAProfileDto request = new CertificateUpdateRAProfileDto();
+        request.setRaProfileUuid(raProfile.getUuid());
+        complianceResultCache.invalidateAll();
+        try {
+            // the result of the same certificate and rules is requested from the provider only once
+            for (int i = 0; i < 2; i++) {
+                certificateService.updateRaProfile(certificate.getUuid(), request);
+                Assertions.assertEquals(ComplianceStatus.NOK, certificateRepository.findByUuid(certificate.getUuid()).orElseThrow().getComplianceStatus());
+            }
+            mockServer.verify(1, WireMock.anyRequestedFor(WireMock.urlPathMatching("/v1/complianceProvider/[^/]+/compliance")));
+        } finally {
+            complianceResultCache.invalidateAll();
+        }
+    }
 }
@@ -0,0 +1,123 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.clients.DiscoveryApiClient;
+import com.czertainly.api.model.connector.discovery.DiscoveryDataRequestDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderCertificateDataDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderDto;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import com.czertainly.core.service.impl.DiscoveryIngestionPipeline;
+import com.czertainly.core.service.impl.DiscoveryPageFetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+public class DiscoveryPageFetcherTest {
+
+    @Mock
+    private DiscoveryApiClient discoveryApiClient;
+
+    @InjectMocks
+    private DiscoveryPageFetcher discoveryPageFetcher = new DiscoveryPageFetcher();
+
+    // start and end index of the requested pages
+    private final List<int[]> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(discoveryPageFetcher, "initialPageSize", 10);
+        ReflectionTestUtils.setField(discoveryPageFetcher, "maxPageSize", 40);
+        // the response time never limits the page size, so the page sizes depend only on the returned certificates
+        ReflectionTestUtils.setField(discoveryPageFetcher, "targetLatency", Long.MAX_VALUE / 4);
+        ReflectionTestUtils.setField(discoveryPageFetcher, "maxPayloadSize", 1000L);
+        // single page is requested at a time, so the pages are requested in a predictable order
+        ReflectionTestUtils.setField(discoveryPageFetcher, "window", 1);
+        ReflectionTestUtils.setField(discoveryPageFetcher, "threads", 1);
+        discoveryPageFetcher.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        discoveryPageFetcher.shutdown();
+    }
+
+    @Test
+    public void testPageSize_growAndShrink() throws Exception {
+        // certificates from the index 100 are large, pages of more than 10 of them exceed the maximum payload size
+        mockProvider(Integer.MAX_VALUE, index -> index < 100 ? 10 : 100);
+
+        List<Integer> indexes = fetchAll(200);
+
+        Assertions.assertEquals(range(200), indexes);
+        Assertions.assertEquals(List.of(10, 20, 40, 40, 20, 10, 10), requestedSizes().subList(0, 7));
+        Assertions.assertEquals(200, requestedSizes().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void testPageSize_limitedByProvider() throws Exception {
+        // provider returns at most 15 certificates in a page
+        mockProvider(15, index -> 10);
+
+        List<Integer> indexes = fetchAll(60);
+
+        // rest of the short page is requested again and the following pages are not larger than the provider returns
+        Assertions.assertEquals(range(60), indexes);
+        Assertions.assertEquals(List.of(0, 10, 25, 30, 45), requests.stream().map(request -> request[0]).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(10, 20, 5, 15, 15), requestedSizes());
+    }
+
+    private void mockProvider(int providerPageSize, IntUnaryOperator contentLength) throws Exception {
+        Mockito.when(discoveryApiClient.getDiscoveryData(Mockito.any(), Mockito.any(DiscoveryDataRequestDto.class), Mockito.eq("reference")))
+                .thenAnswer(invocation -> {
+                    DiscoveryDataRequestDto request = invocation.getArgument(1);
+                    requests.add(new int[]{request.getStartIndex(), request.getEndIndex()});
+                    List<DiscoveryProviderCertificateDataDto> certificates = new ArrayList<>();
+                    int endIndex = Math.min(request.getEndIndex(), request.getStartIndex() + providerPageSize);
+                    for (int index = request.getStartIndex(); index < endIndex; index++) {
+                        DiscoveryProviderCertificateDataDto certificate = new DiscoveryProviderCertificateDataDto();
+                        certificate.setBase64Content(String.format("%0" + contentLength.applyAsInt(index) + "d", index));
+                        certificates.add(certificate);
+                    }
+                    DiscoveryProviderDto response = new DiscoveryProviderDto();
+                    response.setCertificateData(certificates);
+                    return response;
+                });
+    }
+
+    private List<Integer> fetchAll(int totalCertificates) throws Exception {
+        DiscoveryIngestionPipeline.DiscoveryPageSupplier supplier = discoveryPageFetcher.createPageSupplier(new ConnectorDto(),
+                "testDiscovery", "default", "reference", totalCertificates);
+        List<Integer> indexes = new ArrayList<>();
+        List<DiscoveryProviderCertificateDataDto> page;
+        while ((page = supplier.next()) != null) {
+            for (DiscoveryProviderCertificateDataDto certificate : page) {
+                indexes.add(Integer.parseInt(certificate.getBase64Content()));
+            }
+        }
+        return indexes;
+    }
+
+    private List<Integer> requestedSizes() {
+        return requests.stream().map(request -> request[1] - request[0]).collect(Collectors.toList());
+    }
+
+    private static List<Integer> range(int size) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int index = 0; index < size; index++) {
+            indexes.add(index);
+        }
+        return indexes;
+    }
+}
@@ -5,17 +5,29 @@ import com.czertainly.api.exception.ConnectorException;
 import com.czertainly.api.exception.NotFoundException;
 import com.czertainly.api.exception.ValidationException;
 import com.czertainly.api.model.client.discovery.DiscoveryDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderCertificateDataDto;
 import com.czertainly.api.model.core.connector.ConnectorStatus;
 import com.czertainly.api.model.core.connector.FunctionGroupCode;
 import com.czertainly.api.model.core.discovery.DiscoveryHistoryDto;
+import com.czertainly.api.model.core.discovery.DiscoveryStatus;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.Connector;
 import com.czertainly.core.dao.entity.Connector2FunctionGroup;
+import com.czertainly.core.dao.entity.DiscoveryCertificate;
 import com.czertainly.core.dao.entity.DiscoveryHistory;
 import com.czertainly.core.dao.entity.FunctionGroup;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.dao.repository.Connector2FunctionGroupRepository;
 import com.czertainly.core.dao.repository.ConnectorRepository;
+import com.czertainly.core.dao.repository.DiscoveryCertificateRepository;
 import com.czertainly.core.dao.repository.DiscoveryRepository;
 import com.czertainly.core.dao.repository.FunctionGroupRepository;
+import com.czertainly.core.service.impl.DiscoveryDeltaResolver;
+import com.czertainly.core.service.impl.DiscoveryIngestionPipeline;
+import com.czertainly.core.service.impl.DiscoveryPostProcessor;
+import com.czertainly.core.util.CertificateUtil;
 import com.czertainly.core.util.MetaDefinitions;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
@@ -28,9 +40,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 @SpringBootTest
 @Transactional
@@ -51,6 +72,20 @@ public class DiscoveryServiceTest {
     private FunctionGroupRepository functionGroupRepository;
     @Autowired
     private Connector2FunctionGroupRepository connector2FunctionGroupRepository;
+    @Autowired
+    private CertificateRepository certificateRepository;
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+    @Autowired
+    private DiscoveryCertificateRepository discoveryCertificateRepository;
+    @Autowired
+    private DiscoveryIngestionPipeline discoveryIngestionPipeline;
+    @Autowired
+    private DiscoveryDeltaResolver discoveryDeltaResolver;
+    @Autowired
+    private DiscoveryPostProcessor discoveryPostProcessor;
+    @Autowired
+    private EntityManager entityManager;
 
     private DiscoveryHistory discovery;
     private Connector connector;
@@ -186,12 +221,132 @@ public class DiscoveryServiceTest {
         Assertions.assertThrows(ValidationException.class, () -> discoveryService.createDiscovery(request, discovery));
     }
 
+    @Test
+    public void testIngestDiscoveredCertificates() throws Exception {
+        InputStream keyStoreStream = DiscoveryServiceTest.class.getClassLoader().getResourceAsStream("client1.p12");
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(keyStoreStream, "123456".toCharArray());
+        X509Certificate x509Cert = (X509Certificate) keyStore.getCertificate("1");
+
+        DiscoveryProviderCertificateDataDto certificateData = new DiscoveryProviderCertificateDataDto();
+        certificateData.setBase64Content(Base64.getEncoder().encodeToString(x509Cert.getEncoded()));
+        certificateData.setMeta(new HashMap<>(Map.of("discoverySource", "testSource")));
+
+        DiscoveryProviderCertificateDataDto invalidData = new DiscoveryProviderCertificateDataDto();
+        invalidData.setBase64Content("invalid");
+
+        Iterator<List<DiscoveryProviderCertificateDataDto>> pages = List.of(
+                List.of(certificateData, invalidData),
+                List.of(certificateData)).iterator();
+        List<Long> certificateIds = discoveryIngestionPipeline.ingest(discovery, () -> pages.hasNext() ? pages.next() : null, null);
+
+        // duplicate certificate is stored only once and invalid certificate is skipped
+        Assertions.assertEquals(1, certificateIds.size());
+        Certificate certificate = certificateRepository.findById(certificateIds.get(0)).orElseThrow();
+        Assertions.assertNotNull(certificate.getCertificateContent());
+        Assertions.assertTrue(certificate.getMeta().contains("testSource"));
+        Assertions.assertEquals(1, discoveryCertificateRepository.findByDiscovery(discovery).size());
+    }
+
+    @Test
+    public void testIngestDiscoveredCertificates_delta() throws Exception {
+        InputStream keyStoreStream = DiscoveryServiceTest.class.getClassLoader().getResourceAsStream("client1.p12");
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(keyStoreStream, "123456".toCharArray());
+        X509Certificate x509Cert = (X509Certificate) keyStore.getCertificate("1");
+
+        DiscoveryProviderCertificateDataDto certificateData = new DiscoveryProviderCertificateDataDto();
+        certificateData.setBase64Content(Base64.getEncoder().encodeToString(x509Cert.getEncoded()));
+
+        Assertions.assertNull(discoveryDeltaResolver.prepare(discovery));
+        Iterator<List<DiscoveryProviderCertificateDataDto>> pages = List.of(List.of(certificateData)).iterator();
+        Assertions.assertEquals(1, discoveryIngestionPipeline.ingest(discovery, () -> pages.hasNext() ? pages.next() : null, null).size());
+        discovery.setStatus(DiscoveryStatus.COMPLETED);
+        discoveryRepository.save(discovery);
+
+        DiscoveryHistory nextDiscovery = new DiscoveryHistory();
+        nextDiscovery.setName("testDiscovery2");
+        nextDiscovery.setConnectorUuid(connector.getUuid());
+        nextDiscovery.setConnectorName(connector.getName());
+        nextDiscovery = discoveryRepository.save(nextDiscovery);
+
+        // the delta mode is disabled by default
+        Assertions.assertNull(discoveryDeltaResolver.prepare(nextDiscovery));
+
+        ReflectionTestUtils.setField(discoveryDeltaResolver, "enabled", true);
+        try {
+            DiscoveryDeltaResolver.DiscoveryDelta delta = discoveryDeltaResolver.prepare(nextDiscovery);
+            Assertions.assertNotNull(delta);
+            Iterator<List<DiscoveryProviderCertificateDataDto>> nextPages = List.of(List.of(certificateData)).iterator();
+            List<Long> certificateIds = discoveryIngestionPipeline.ingest(nextDiscovery, () -> nextPages.hasNext() ? nextPages.next() : null, delta);
+
+            // unchanged certificate is only recorded as discovered again
+            Assertions.assertTrue(certificateIds.isEmpty());
+            Assertions.assertEquals(1, discoveryCertificateRepository.findByDiscovery(nextDiscovery).size());
+            Assertions.assertEquals(0, discoveryDeltaResolver.recordDisappeared(delta, nextDiscovery));
+        } finally {
+            ReflectionTestUtils.setField(discoveryDeltaResolver, "enabled", false);
+        }
+    }
+
+    @Test
+    public void testLinkIssuers() throws Exception {
+        InputStream keyStoreStream = DiscoveryServiceTest.class.getClassLoader().getResourceAsStream("client1.p12");
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(keyStoreStream, "123456".toCharArray());
+        java.security.cert.Certificate[] chain = keyStore.getCertificateChain("1");
+
+        // the CA certificate exists before the discovery, only the leaf certificate is ingested
+        Certificate caCertificate = saveCertificate((X509Certificate) chain[1]);
+        Certificate leafCertificate = saveCertificate((X509Certificate) chain[0]);
+        Assertions.assertNull(leafCertificate.getIssuerSerialNumber());
+        entityManager.flush();
+        entityManager.clear();
+
+        discoveryPostProcessor.linkIssuers(List.of(leafCertificate.getId()));
+        entityManager.clear();
+
+        Assertions.assertEquals(caCertificate.getSerialNumber(), certificateRepository.findById(leafCertificate.getId()).orElseThrow().getIssuerSerialNumber());
+        Assertions.assertNull(certificateRepository.findById(caCertificate.getId()).orElseThrow().getIssuerSerialNumber());
+    }
+
+    private Certificate saveCertificate(X509Certificate x509Cert) throws Exception {
+        CertificateContent certificateContent = new CertificateContent();
+        certificateContent.setContent(Base64.getEncoder().encodeToString(x509Cert.getEncoded()));
+        certificateContent.setFingerprint(CertificateUtil.getThumbprint(x509Cert.getEncoded()));
+        certificateContent = certificateContentRepository.save(certificateContent);
+
+        Certificate certificate = CertificateUtil.prepareCertificate(new Certificate(), x509Cert);
+        certificate.setFingerprint(certificateContent.getFingerprint());
+        certificate.setCertificateContent(certificateContent);
+        return certificateRepository.save(certificate);
+    }
+
     @Test
     public void testRemoveDiscovery() throws NotFoundException {
         discoveryService.removeDiscovery(discovery.getUuid());
         Assertions.assertThrows(NotFoundException.class, () -> discoveryService.getDiscovery(discovery.getUuid()));
     }
 
+    @Test
+    public void testRemoveDiscovery_unusedContentRemoved() throws NotFoundException {
+        CertificateContent content = new CertificateContent();
+        content.setContent("discoveredContent");
+        content.setFingerprint("discoveredFingerprint");
+        content = certificateContentRepository.save(content);
+
+        DiscoveryCertificate discoveryCertificate = new DiscoveryCertificate();
+        discoveryCertificate.setCommonName("discoveredCertificate");
+        discoveryCertificate.setCertificateContent(content);
+        discoveryCertificate.setDiscovery(discovery);
+        discoveryCertificateRepository.save(discoveryCertificate);
+
+        discoveryService.removeDiscovery(discovery.getUuid());
+
+        Assertions.assertTrue(discoveryCertificateRepository.findByUuid(discoveryCertificate.getUuid()).isEmpty());
+        Assertions.assertNull(certificateContentRepository.findByFingerprint("discoveredFingerprint"));
+    }
+
     @Test
     public void testRemoveDiscovery_notFound() {
         Assertions.assertThrows(NotFoundException.class, () -> discoveryService.removeDiscovery("wrong-uuid"));
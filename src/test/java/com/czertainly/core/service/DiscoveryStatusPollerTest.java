@@ -0,0 +1,169 @@
+package com.czertainly.core.service;
+
+import com.czertainly.api.clients.DiscoveryApiClient;
+import com.czertainly.api.model.connector.discovery.DiscoveryDataRequestDto;
+import com.czertainly.api.model.connector.discovery.DiscoveryProviderDto;
+import com.czertainly.api.model.core.connector.ConnectorDto;
+import com.czertainly.api.model.core.discovery.DiscoveryStatus;
+import com.czertainly.core.dao.entity.Connector;
+import com.czertainly.core.dao.entity.DiscoveryHistory;
+import com.czertainly.core.dao.repository.ConnectorRepository;
+import com.czertainly.core.dao.repository.DiscoveryRepository;
+import com.czertainly.core.service.impl.DiscoveryResultProcessor;
+import com.czertainly.core.service.impl.DiscoveryStatusPoller;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@SpringBootTest
+public class DiscoveryStatusPollerTest {
+
+    private static final long INITIAL_INTERVAL = 5000;
+    private static final long MAX_INTERVAL = 20000;
+
+    @Mock
+    private DiscoveryRepository discoveryRepository;
+
+    @Mock
+    private ConnectorRepository connectorRepository;
+
+    @Mock
+    private DiscoveryApiClient discoveryApiClient;
+
+    @Mock
+    private DiscoveryResultProcessor discoveryResultProcessor;
+
+    @InjectMocks
+    private DiscoveryStatusPoller discoveryStatusPoller = new DiscoveryStatusPoller();
+
+    private long now;
+    private DiscoveryHistory discovery;
+    private ConnectorDto connectorDto;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(discoveryStatusPoller, "threadPoolTaskExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(discoveryStatusPoller, "initialInterval", INITIAL_INTERVAL);
+        ReflectionTestUtils.setField(discoveryStatusPoller, "maxInterval", MAX_INTERVAL);
+        now = System.currentTimeMillis();
+        setClock();
+
+        Connector connector = new Connector();
+        connector.setName("discoveryProvider");
+        connectorDto = connector.mapToDto();
+
+        discovery = new DiscoveryHistory();
+        discovery.setName("testDiscovery");
+        discovery.setConnectorUuid(connector.getUuid());
+        discovery.setDiscoveryConnectorReference("reference");
+        discovery.setStatus(DiscoveryStatus.IN_PROGRESS);
+        // the discovery does not report any progress for longer than the maximum wait time
+        discovery.setStartTime(new Date(now - 7 * 60 * 60 * 1000));
+        Mockito.when(discoveryRepository.findByUuid(discovery.getUuid())).thenReturn(Optional.of(discovery));
+        Mockito.when(connectorRepository.findByUuid(connector.getUuid())).thenReturn(Optional.of(connector));
+    }
+
+    @Test
+    public void testPollDiscovery_backoff() throws Exception {
+        DiscoveryProviderDto inProgress = getResponse(DiscoveryStatus.IN_PROGRESS, 0);
+        Mockito.when(discoveryApiClient.getDiscoveryData(Mockito.any(), Mockito.any(), Mockito.eq("reference"))).thenReturn(inProgress);
+        discoveryStatusPoller.register(discovery, connectorDto, inProgress);
+
+        // the interval doubles while there is no progress, up to the maximum interval
+        long[] intervals = {INITIAL_INTERVAL, 2 * INITIAL_INTERVAL, 4 * INITIAL_INTERVAL, MAX_INTERVAL};
+        for (int i = 0; i < intervals.length; i++) {
+            advance(intervals[i] - 1);
+            verifyPolls(i);
+            advance(1);
+            verifyPolls(i + 1);
+        }
+
+        // progress resets the interval
+        Mockito.when(discoveryApiClient.getDiscoveryData(Mockito.any(), Mockito.any(), Mockito.eq("reference"))).thenReturn(getResponse(DiscoveryStatus.IN_PROGRESS, 10));
+        advance(MAX_INTERVAL);
+        verifyPolls(5);
+        Assertions.assertEquals(10, discovery.getTotalCertificatesDiscovered());
+        advance(INITIAL_INTERVAL);
+        verifyPolls(6);
+    }
+
+    @Test
+    public void testPollDiscovery_warning() throws Exception {
+        DiscoveryProviderDto inProgress = getResponse(DiscoveryStatus.IN_PROGRESS, 0);
+        Mockito.when(discoveryApiClient.getDiscoveryData(Mockito.any(), Mockito.any(), Mockito.eq("reference"))).thenReturn(inProgress);
+        discoveryStatusPoller.register(discovery, connectorDto, inProgress);
+
+        advance(INITIAL_INTERVAL);
+        Assertions.assertEquals(DiscoveryStatus.WARNING, discovery.getStatus());
+        Mockito.verify(discoveryRepository, Mockito.times(1)).save(discovery);
+
+        // the warning is recorded only once
+        advance(2 * INITIAL_INTERVAL);
+        verifyPolls(2);
+        Mockito.verify(discoveryRepository, Mockito.times(1)).save(discovery);
+
+        DiscoveryProviderDto completed = getResponse(DiscoveryStatus.COMPLETED, 0);
+        Mockito.when(discoveryApiClient.getDiscoveryData(Mockito.any(), Mockito.any(), Mockito.eq("reference"))).thenReturn(completed);
+        advance(MAX_INTERVAL);
+        Mockito.verify(discoveryResultProcessor).process(discovery.getUuid(), connectorDto, completed);
+
+        // the finished discovery is no longer polled
+        advance(MAX_INTERVAL);
+        verifyPolls(3);
+    }
+
+    @Test
+    public void testResumeDiscoveries() throws Exception {
+        DiscoveryHistory orphanedDiscovery = new DiscoveryHistory();
+        orphanedDiscovery.setName("orphanedDiscovery");
+        orphanedDiscovery.setConnectorUuid("missing");
+        orphanedDiscovery.setStatus(DiscoveryStatus.IN_PROGRESS);
+        Mockito.when(discoveryRepository.findByStatusInAndEndTimeIsNullAndDiscoveryConnectorReferenceIsNotNull(Mockito.any()))
+                .thenReturn(List.of(discovery, orphanedDiscovery));
+        Mockito.when(connectorRepository.findByUuid("missing")).thenReturn(Optional.empty());
+        DiscoveryProviderDto completed = getResponse(DiscoveryStatus.COMPLETED, 1);
+        Mockito.when(discoveryApiClient.getDiscoveryData(Mockito.any(), Mockito.any(), Mockito.eq("reference"))).thenReturn(completed);
+
+        discoveryStatusPoller.resumeDiscoveries();
+        Assertions.assertEquals(DiscoveryStatus.FAILED, orphanedDiscovery.getStatus());
+
+        advance(INITIAL_INTERVAL);
+        verifyPolls(1);
+        Mockito.verify(discoveryResultProcessor).process(Mockito.eq(discovery.getUuid()), Mockito.any(), Mockito.eq(completed));
+    }
+
+    private DiscoveryProviderDto getResponse(DiscoveryStatus status, int total) {
+        DiscoveryProviderDto response = new DiscoveryProviderDto();
+        response.setName(discovery.getName());
+        response.setStatus(status);
+        response.setTotalCertificatesDiscovered(total);
+        return response;
+    }
+
+    private void advance(long millis) {
+        now += millis;
+        setClock();
+        ReflectionTestUtils.invokeMethod(discoveryStatusPoller, "pollDiscoveries");
+    }
+
+    private void setClock() {
+        ReflectionTestUtils.setField(discoveryStatusPoller, "clock", Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+    }
+
+    private void verifyPolls(int polls) throws Exception {
+        Mockito.verify(discoveryApiClient, Mockito.times(polls)).getDiscoveryData(Mockito.any(), Mockito.any(DiscoveryDataRequestDto.class), Mockito.eq("reference"));
+    }
+}
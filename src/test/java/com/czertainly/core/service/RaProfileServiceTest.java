@@ -21,6 +21,7 @@ import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.dao.repository.ClientRepository;
 import com.czertainly.core.dao.repository.ConnectorRepository;
 import com.czertainly.core.dao.repository.RaProfileRepository;
+import com.czertainly.core.dao.repository.custom.impl.CustomCertificateRepositoryImpl;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import org.junit.jupiter.api.AfterEach;
@@ -31,9 +32,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.List;
 
 @SpringBootTest
@@ -60,6 +64,10 @@ public class RaProfileServiceTest {
     private AuthorityInstanceReferenceRepository authorityInstanceReferenceRepository;
     @Autowired
     private ConnectorRepository connectorRepository;
+    @Autowired
+    private CustomCertificateRepositoryImpl customCertificateRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     private RaProfile raProfile;
     private Certificate certificate;
@@ -199,6 +207,38 @@ public class RaProfileServiceTest {
         Assertions.assertThrows(NotFoundException.class, () -> raProfileService.getRaProfile(raProfile.getUuid()));
     }
 
+    @Test
+    public void testRemoveRaProfile_certificates() throws NotFoundException {
+        List<Certificate> certificates = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Certificate profileCertificate = new Certificate();
+            profileCertificate.setCertificateContent(certificateContent);
+            profileCertificate.setSerialNumber("serial" + i);
+            profileCertificate.setRaProfile(raProfile);
+            certificates.add(certificateRepository.save(profileCertificate));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // certificates are updated in more chunks than one
+        long chunkSize = (long) ReflectionTestUtils.getField(customCertificateRepository, "chunkSize");
+        ReflectionTestUtils.setField(customCertificateRepository, "chunkSize", 2L);
+        try {
+            raProfileService.removeRaProfile(raProfile.getUuid());
+        } finally {
+            ReflectionTestUtils.setField(customCertificateRepository, "chunkSize", chunkSize);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        for (Certificate profileCertificate : certificates) {
+            Certificate updated = certificateRepository.findByUuid(profileCertificate.getUuid()).orElseThrow();
+            Assertions.assertNull(updated.getRaProfile());
+            Assertions.assertNull(updated.getRaProfileId());
+        }
+        Assertions.assertTrue(raProfileRepository.findByUuid(raProfile.getUuid()).isEmpty());
+    }
+
     @Test
     public void testRemoveRaProfile_notFound() {
         Assertions.assertThrows(NotFoundException.class, () -> raProfileService.removeRaProfile("wrong-uuid"));
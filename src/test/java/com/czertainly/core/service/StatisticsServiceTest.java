@@ -1,8 +1,14 @@
 package com.czertainly.core.service;
 
 import com.czertainly.api.model.client.dashboard.StatisticsDto;
+import com.czertainly.core.dao.entity.Certificate;
+import com.czertainly.core.dao.entity.CertificateContent;
 import com.czertainly.core.dao.entity.CertificateGroup;
+import com.czertainly.core.dao.repository.CertificateContentRepository;
+import com.czertainly.core.dao.repository.CertificateRepository;
 import com.czertainly.core.dao.repository.GroupRepository;
+import com.czertainly.core.model.dashboard.StatisticsSnapshotDto;
+import com.czertainly.core.service.impl.CertificateStatisticsStore;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +29,15 @@ public class StatisticsServiceTest {
     @Autowired
     private GroupRepository groupRepository;
 
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateContentRepository certificateContentRepository;
+
+    @Autowired
+    private CertificateStatisticsStore certificateStatisticsStore;
+
     @Test
     public void testGetStatistics() {
         StatisticsDto result = statisticsService.getStatistics();
@@ -40,4 +55,37 @@ public class StatisticsServiceTest {
         Assertions.assertEquals(0l, result.getTotalCertificates());
         Assertions.assertEquals(1l, result.getTotalGroups());
     }
+
+    @Test
+    public void testGetStatistics_materialized() {
+        CertificateGroup group = new CertificateGroup();
+        group.setName("testGroup");
+        group = groupRepository.save(group);
+        createCertificate("1", group);
+        certificateStatisticsStore.refresh();
+
+        // certificates created after the refresh are not counted until the next refresh
+        createCertificate("2", null);
+        StatisticsDto result = statisticsService.getStatistics();
+        Assertions.assertEquals(1l, result.getTotalCertificates());
+        Assertions.assertEquals(1l, result.getGroupStatByCertificateCount().get(group.getName()));
+        Assertions.assertNotNull(((StatisticsSnapshotDto) result).getRefreshedAt());
+
+        certificateStatisticsStore.refresh();
+        result = statisticsService.getStatistics();
+        Assertions.assertEquals(2l, result.getTotalCertificates());
+        Assertions.assertEquals(1l, result.getGroupStatByCertificateCount().get("Unassigned"));
+    }
+
+    private void createCertificate(String serialNumber, CertificateGroup group) {
+        CertificateContent certificateContent = new CertificateContent();
+        certificateContent.setContent("content" + serialNumber);
+        certificateContent = certificateContentRepository.save(certificateContent);
+
+        Certificate certificate = new Certificate();
+        certificate.setSerialNumber(serialNumber);
+        certificate.setCertificateContent(certificateContent);
+        certificate.setGroup(group);
+        certificateRepository.save(certificate);
+    }
 }